@@ -0,0 +1,64 @@
+package org.example.engine.ecs.benchmark;
+
+import org.example.engine.ecs.ECSManager;
+import org.example.engine.ecs.Entity;
+import org.example.engine.ecs.components.CollisionComponent;
+import org.example.engine.ecs.components.MovementComponent;
+import org.example.engine.ecs.components.TransformComponent;
+
+import java.util.Random;
+
+/**
+ * Helpers to fill the ECSManager with reproducible entity sets for benchmarks
+ */
+final class BenchmarkWorld {
+    static final float DELTA_TIME = 1.0f / 60.0f;
+
+    private BenchmarkWorld() {
+    }
+
+    /**
+     * Get the manager with all entities and systems of a previous benchmark removed
+     */
+    static ECSManager reset() {
+        ECSManager manager = ECSManager.getInstance();
+        manager.clear();
+        return manager;
+    }
+
+    /**
+     * Spawn entities with a transform and a movement component, about half of them moving
+     * @param manager The manager to add to
+     * @param count Number of entities
+     * @param worldSize Edge length of the square the entities are scattered over
+     */
+    static void spawnMovers(ECSManager manager, int count, float worldSize) {
+        Random random = new Random(42);
+        for (int i = 0; i < count; i++) {
+            Entity entity = new Entity();
+            entity.addComponent(new TransformComponent(random.nextFloat() * worldSize, random.nextFloat() * worldSize, 0));
+            MovementComponent movement = new MovementComponent(random.nextFloat() * 100 + 20);
+            entity.addComponent(movement);
+            manager.addEntity(entity);
+
+            movement.setMoveRight(random.nextBoolean());
+            movement.setMoveDown(random.nextBoolean());
+        }
+    }
+
+    /**
+     * Spawn entities with a transform and a 16x16 collision box
+     * @param manager The manager to add to
+     * @param count Number of entities
+     * @param worldSize Edge length of the square the entities are scattered over
+     */
+    static void spawnColliders(ECSManager manager, int count, float worldSize) {
+        Random random = new Random(42);
+        for (int i = 0; i < count; i++) {
+            Entity entity = new Entity();
+            entity.addComponent(new TransformComponent(random.nextFloat() * worldSize, random.nextFloat() * worldSize, 0));
+            entity.addComponent(new CollisionComponent(16, 16));
+            manager.addEntity(entity);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package org.example.engine.ecs.benchmark;
+
+import org.example.engine.ecs.ECSManager;
+import org.example.engine.ecs.systems.MovementSystem;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full ECSManager.update over moving entities: system iteration, sync points and interpolation bookkeeping
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ECSUpdateBenchmark {
+    @Param({"1000", "10000", "100000"})
+    public int entityCount;
+
+    @Param({"false", "true"})
+    public boolean parallelScheduling;
+
+    private ECSManager manager;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        manager = BenchmarkWorld.reset();
+        manager.addSystem(new MovementSystem());
+        manager.setParallelScheduling(parallelScheduling);
+        BenchmarkWorld.spawnMovers(manager, entityCount, 10000);
+        // Apply the pending archetype moves before measuring
+        manager.update(0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        manager.setParallelScheduling(false);
+        manager.clear();
+    }
+
+    @Benchmark
+    public void update() {
+        manager.update(BenchmarkWorld.DELTA_TIME);
+    }
+}
@@ -0,0 +1,70 @@
+package org.example.engine.ecs.benchmark;
+
+import org.example.engine.ecs.ECSManager;
+import org.example.engine.ecs.Entity;
+import org.example.engine.ecs.Prefab;
+import org.example.engine.ecs.components.MovementComponent;
+import org.example.engine.ecs.components.TransformComponent;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creating and destroying batches of entities, as with projectiles or particles.
+ * Each invocation spawns a batch, applies it at a sync point, destroys it and applies that too.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EntityChurnBenchmark {
+    private static final int BATCH = 1000;
+
+    private ECSManager manager;
+    private Prefab prefab;
+    private final Entity[] batch = new Entity[BATCH];
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        manager = BenchmarkWorld.reset();
+        prefab = new Prefab("mover")
+                .with(TransformComponent.class, TransformComponent::new, transform -> transform.setPosition(0, 0, 0))
+                .with(MovementComponent.class, MovementComponent::new, movement -> movement.setMoving(false));
+        // A background population so slots and archetypes are not empty
+        BenchmarkWorld.spawnMovers(manager, 10000, 10000);
+        manager.update(0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        manager.clear();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void createDestroy() {
+        for (int i = 0; i < BATCH; i++) {
+            Entity entity = new Entity();
+            entity.addComponent(new TransformComponent(i, i, 0));
+            entity.addComponent(new MovementComponent());
+            batch[i] = manager.addEntity(entity);
+        }
+        manager.update(0);
+        for (int i = 0; i < BATCH; i++) {
+            manager.removeEntity(batch[i]);
+        }
+        manager.update(0);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void instantiateDestroyPrefab() {
+        manager.instantiate(prefab, BATCH, (entity, i) -> batch[i] = entity);
+        for (int i = 0; i < BATCH; i++) {
+            manager.removeEntity(batch[i]);
+        }
+        manager.update(0);
+    }
+}
@@ -0,0 +1,46 @@
+package org.example.engine.ecs.benchmark;
+
+import org.example.engine.ecs.Entity;
+import org.example.engine.ecs.components.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity.getComponent for present and missing component types
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GetComponentBenchmark {
+    private Entity entity;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        entity = new Entity();
+        entity.addComponent(new TransformComponent());
+        entity.addComponent(new MovementComponent());
+        entity.addComponent(new CollisionComponent(16, 16));
+        entity.addComponent(new HealthComponent(100));
+        entity.addComponent(new AIComponent(AIComponent.AIType.WANDER));
+        entity.addComponent(new TileComponent(1));
+    }
+
+    @Benchmark
+    public TransformComponent present() {
+        return entity.getComponent(TransformComponent.class);
+    }
+
+    @Benchmark
+    public TileComponent presentLastAdded() {
+        return entity.getComponent(TileComponent.class);
+    }
+
+    @Benchmark
+    public PlayerComponent missing() {
+        return entity.getComponent(PlayerComponent.class);
+    }
+}
@@ -0,0 +1,53 @@
+package org.example.engine.ecs.benchmark;
+
+import org.example.engine.ecs.ECSManager;
+import org.example.engine.ecs.systems.CollisionSystem;
+import org.example.engine.ecs.systems.MovementSystem;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The inner loops of MovementSystem and CollisionSystem, run directly without sync points
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SystemLoopBenchmark {
+    @Param({"1000", "10000"})
+    public int entityCount;
+
+    private ECSManager manager;
+    private MovementSystem movementSystem;
+    private CollisionSystem collisionSystem;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        manager = BenchmarkWorld.reset();
+        movementSystem = new MovementSystem();
+        collisionSystem = new CollisionSystem();
+        manager.addSystem(movementSystem);
+        manager.addSystem(collisionSystem);
+        BenchmarkWorld.spawnMovers(manager, entityCount, 10000);
+        BenchmarkWorld.spawnColliders(manager, entityCount / 10, 10000);
+        manager.update(0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        manager.clear();
+    }
+
+    @Benchmark
+    public void movement() {
+        movementSystem.update(BenchmarkWorld.DELTA_TIME);
+    }
+
+    @Benchmark
+    public void collision() {
+        collisionSystem.update(BenchmarkWorld.DELTA_TIME);
+    }
+}
@@ -2,8 +2,11 @@ package org.example.engine;
 
 import org.example.engine.ecs.ECSManager;
 import org.example.engine.ecs.Entity;
+import org.example.engine.ecs.Prefab;
 import org.example.engine.ecs.components.*;
 import org.example.engine.ecs.systems.*;
+import org.example.engine.navigation.FlowFieldService;
+import org.example.engine.navigation.NavigationGrid;
 import org.example.game.Direction;
 import org.example.game.Player;
 import org.joml.Matrix4f;
@@ -33,8 +36,15 @@ public class ECSIntegration {
     private NetworkSystem networkSystem;
     private LightSystem lightSystem;
     private InteractionSystem interactionSystem;
+    private AISystem aiSystem;
     private AudioSystem audioSystem;
 
+    // Prefabs for entities that are created in bulk or spawned often
+    private Prefab tilePrefab;
+    private Prefab solidTilePrefab;
+    private Prefab lightPrefab;
+    private Prefab particleEffectPrefab;
+
     /**
      * Get the singleton instance
      */
@@ -63,6 +73,56 @@ public class ECSIntegration {
 
         // Create ECS systems
         setupSystems();
+        setupPrefabs();
+    }
+
+    /**
+     * Set up the prefabs; initializers reset pooled components to their default state
+     */
+    private void setupPrefabs() {
+        tilePrefab = new Prefab("tile")
+                .with(TransformComponent.class, TransformComponent::new, ECSIntegration::resetTransform)
+                .with(SpriteComponent.class, () -> new SpriteComponent(null), ECSIntegration::resetSprite)
+                .with(TileComponent.class, () -> new TileComponent(0), tile -> tile.setInteractable(false));
+
+        solidTilePrefab = new Prefab("tile")
+                .with(TransformComponent.class, TransformComponent::new, ECSIntegration::resetTransform)
+                .with(SpriteComponent.class, () -> new SpriteComponent(null), ECSIntegration::resetSprite)
+                .with(TileComponent.class, () -> new TileComponent(0), tile -> tile.setInteractable(false))
+                .with(CollisionComponent.class, () -> new CollisionComponent(32, 32), collision -> {
+                    collision.setWidth(32);
+                    collision.setHeight(32);
+                    collision.setTrigger(false);
+                    collision.setCollisionLayer("tile");
+                    collision.setCollidesWith(new String[]{"default"});
+                });
+
+        lightPrefab = new Prefab("light")
+                .with(TransformComponent.class, TransformComponent::new, ECSIntegration::resetTransform)
+                .with(LightComponent.class, LightComponent::new);
+
+        particleEffectPrefab = new Prefab("particle_effect")
+                .with(TransformComponent.class, TransformComponent::new, ECSIntegration::resetTransform)
+                .with(ParticleEffectComponent.class, ParticleEffectComponent::new, particles -> {
+                    particles.setBaseLife(5.0f);
+                    particles.setBaseSize(2.0f);
+                    particles.setSpawnRate(0.005f);
+                    particles.setMaxParticles(500);
+                    particles.setPlaying(true);
+                });
+    }
+
+    private static void resetTransform(TransformComponent transform) {
+        transform.setPosition(0, 0, 0);
+        transform.setRotation(0);
+        transform.setScale(1, 1);
+    }
+
+    private static void resetSprite(SpriteComponent sprite) {
+        sprite.setSprite(null);
+        sprite.setColor(0xFFFFFF);
+        sprite.setAlpha(1.0f);
+        sprite.setPalette(null);
     }
 
     /**
@@ -77,6 +137,7 @@ public class ECSIntegration {
         collisionSystem = new CollisionSystem();
         lightSystem = new LightSystem();
         interactionSystem = new InteractionSystem(input);
+        aiSystem = new AISystem();
 
         // Initialize audio system if we have an audio engine
         try {
@@ -91,6 +152,7 @@ public class ECSIntegration {
         // Add systems to ECS manager in order of execution
         ecsManager.addSystem(playerInputSystem);
         ecsManager.addSystem(interactionSystem);
+        ecsManager.addSystem(aiSystem);
         ecsManager.addSystem(movementSystem);
         ecsManager.addSystem(collisionSystem);
         ecsManager.addSystem(animationSystem);
@@ -183,11 +245,19 @@ public class ECSIntegration {
         ecsManager.update(deltaTime);
     }
 
+    /**
+     * Called once per frame after the updates to draw the ECS sprites
+     * @param alpha How far the frame is between the last two updates, see Engine.getInterpolationAlpha
+     */
+    public void render(float alpha) {
+        ecsManager.render(alpha);
+    }
+
     /**
      * Convert an existing Player to an ECS Entity
      */
     public Entity convertPlayerToEntity(Player player) {
-        // Create a new entity with the same UUID as the player
+        // The player UUID is kept as network identity on the NetworkComponent
         UUID playerId = player.getPlayerId();
         Entity entity = new Entity(player.getUsername());
 
@@ -317,11 +387,22 @@ public class ECSIntegration {
      * Create a tile entity in the ECS
      */
     public Entity createTileEntity(int tileId, float x, float y, float z, boolean isWalkable) {
-        Entity entity = new Entity("tile_" + tileId);
+        // Non-walkable tiles get a collision component
+        Entity entity = ecsManager.newInstance(isWalkable ? tilePrefab : solidTilePrefab);
+        setupTile(entity, tileId, x, y, z, isWalkable);
 
-        // Add transform component
-        TransformComponent transform = new TransformComponent(x, y, z);
-        entity.addComponent(transform);
+        // Add to ECS manager
+        ecsManager.addEntity(entity);
+
+        return entity;
+    }
+
+    /**
+     * Fill a tile prefab instance with the data of one tile
+     */
+    private void setupTile(Entity entity, int tileId, float x, float y, float z, boolean isWalkable) {
+        entity.setName("tile_" + tileId);
+        entity.getComponent(TransformComponent.class).setPosition(x, y, z);
 
         // Get the sprite based on tile ID
         String spriteName = "tile_w_1"; // Default tile
@@ -339,44 +420,26 @@ public class ECSIntegration {
                 break;
             // Add more mappings as needed
         }
+        entity.getComponent(SpriteComponent.class).setSprite(spriteManager.getSprite(spriteName));
 
-        // Create sprite component
-        Sprite tileSprite = spriteManager.getSprite(spriteName);
-        SpriteComponent spriteComponent = new SpriteComponent(tileSprite);
-        entity.addComponent(spriteComponent);
-
-        // Add tile component
-        TileComponent tileComponent = new TileComponent(tileId);
+        TileComponent tileComponent = entity.getComponent(TileComponent.class);
+        tileComponent.setTileId(tileId);
         tileComponent.setWalkable(isWalkable);
-        entity.addComponent(tileComponent);
-
-        // Add collision component if not walkable
-        if (!isWalkable) {
-            CollisionComponent collisionComponent = new CollisionComponent(32, 32);
-            collisionComponent.setCollisionLayer("tile");
-            entity.addComponent(collisionComponent);
-        }
-
-        // Add to ECS manager
-        ecsManager.addEntity(entity);
-
-        return entity;
     }
 
     /**
      * Create a light entity in the ECS
      */
     public Entity createLightEntity(float x, float y, float z, int color, float intensity, float radius, int lightType) {
-        Entity entity = new Entity("light");
-
-        // Add transform component
-        TransformComponent transform = new TransformComponent(x, y, z);
-        entity.addComponent(transform);
-
-        // Add light component
-        LightComponent lightComponent = new LightComponent(color, intensity, radius);
+        Entity entity = ecsManager.newInstance(lightPrefab);
+        entity.getComponent(TransformComponent.class).setPosition(x, y, z);
+
+        // Set up light component
+        LightComponent lightComponent = entity.getComponent(LightComponent.class);
+        lightComponent.setColor(color);
+        lightComponent.setIntensity(intensity);
+        lightComponent.setRadius(radius);
         lightComponent.setLightType(lightType);
-        entity.addComponent(lightComponent);
 
         // Add to ECS manager
         ecsManager.addEntity(entity);
@@ -421,16 +484,13 @@ public class ECSIntegration {
      * Create a particle effect entity in the ECS
      */
     public Entity createParticleEffectEntity(int effectType, float x, float y, float z, int color) {
-        Entity entity = new Entity("particle_effect");
-
-        // Add transform component
-        TransformComponent transform = new TransformComponent(x, y, z);
-        entity.addComponent(transform);
+        Entity entity = ecsManager.newInstance(particleEffectPrefab);
+        entity.getComponent(TransformComponent.class).setPosition(x, y, z);
 
-        // Add particle effect component
-        ParticleEffectComponent particleComponent = new ParticleEffectComponent(effectType);
+        // Set up particle effect component
+        ParticleEffectComponent particleComponent = entity.getComponent(ParticleEffectComponent.class);
+        particleComponent.setEffectType(effectType);
         particleComponent.setColor(color);
-        entity.addComponent(particleComponent);
 
         // Add to ECS manager
         ecsManager.addEntity(entity);
@@ -470,6 +530,10 @@ public class ECSIntegration {
     public List<Entity> createLevelFromTileMap(int[][] tileMap, int tileSize) {
         List<Entity> entities = new ArrayList<>();
 
+        // Collect the tiles per prefab so each group can be spawned in one batch
+        List<int[]> walkableTiles = new ArrayList<>();
+        List<int[]> solidTiles = new ArrayList<>();
+
         // Process tile map
         for (int y = 0; y < tileMap.length; y++) {
             for (int x = 0; x < tileMap[y].length; x++) {
@@ -480,20 +544,28 @@ public class ECSIntegration {
 
                 // Determine if tile is walkable (example: odd numbers are walkable)
                 boolean isWalkable = (tileId % 2 == 1);
-
-                // Create tile entity
-                Entity tileEntity = createTileEntity(
-                        tileId,
-                        x * tileSize,
-                        y * tileSize,
-                        0,
-                        isWalkable
-                );
-
-                entities.add(tileEntity);
+                (isWalkable ? walkableTiles : solidTiles).add(new int[]{tileId, x, y});
             }
         }
 
+        // Create tile entities
+        ecsManager.instantiate(tilePrefab, walkableTiles.size(), (entity, i) -> {
+            int[] tile = walkableTiles.get(i);
+            setupTile(entity, tile[0], tile[1] * tileSize, tile[2] * tileSize, 0, true);
+            entities.add(entity);
+        });
+        ecsManager.instantiate(solidTilePrefab, solidTiles.size(), (entity, i) -> {
+            int[] tile = solidTiles.get(i);
+            setupTile(entity, tile[0], tile[1] * tileSize, tile[2] * tileSize, 0, false);
+            entities.add(entity);
+        });
+
+        // Let enemies chase players around the solid tiles
+        NavigationGrid grid = NavigationGrid.fromTiles(ecsManager, tileSize);
+        if (aiSystem != null && grid != null) {
+            aiSystem.setFlowFields(new FlowFieldService(grid));
+        }
+
         return entities;
     }
 
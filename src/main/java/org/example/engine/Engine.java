@@ -26,6 +26,13 @@ public class Engine {
     private UIManagerGameObject uiGameObject;
     private static org.example.GameWorld gameWorld;
 
+    // Fixed-timestep simulation: the scene and world advance in ticks of 1 / tickRate seconds
+    private boolean fixedTimestep = false;
+    private int tickRate = 60;
+    private int maxCatchUpSteps = 5;
+    // How far rendering is between the last two simulation ticks, 0..1
+    private static float interpolationAlpha = 1.0f;
+
     public void init(int width, int height, String title) {
         // Set up error callback
         GLFWErrorCallback.createPrint(System.err).set();
@@ -102,6 +109,7 @@ public class Engine {
     public void run() {
         double lastTime = glfwGetTime();
         double lastFPSUpdate = lastTime;
+        double accumulator = 0.0;
         int frames = 0;
         running = true;
 
@@ -121,34 +129,111 @@ public class Engine {
             // Poll for window events
             glfwPollEvents();
 
-            // Update input
-            input.update();
-            Sprite.clearGlobalLights();
-
             // Update camera if needed
             if (camera != null && !camera.isFollowing()) {
                 handleCameraMovement(deltaTime);
             }
 
-
-            // Update scene
-            activeScene.update(deltaTime);
-            if (gameWorld != null) {
-                gameWorld.update(deltaTime);
+            if (fixedTimestep) {
+                double tickDelta = 1.0 / tickRate;
+                accumulator += deltaTime;
+
+                int steps = (int) (accumulator / tickDelta);
+                if (steps > maxCatchUpSteps) {
+                    // Too far behind (e.g. after a hitch): drop the backlog instead of spiralling
+                    accumulator -= (steps - maxCatchUpSteps) * tickDelta;
+                    steps = maxCatchUpSteps;
+                }
+                accumulator -= steps * tickDelta;
+
+                for (int i = 0; i < steps; i++) {
+                    simulate((float) tickDelta);
+                }
+
+                // Time left over after the ticks, as a fraction of the next one
+                interpolationAlpha = (float) (accumulator / tickDelta);
+            } else {
+                interpolationAlpha = 1.0f;
+                simulate(deltaTime);
             }
 
             camera.update();
 
-            // Render
+            // Render, blending moving objects between the last two ticks
             renderer.clear();
             Matrix4f vpMatrix = camera.getViewProjectionMatrix();
-            activeScene.render(vpMatrix);
+            activeScene.render(vpMatrix, interpolationAlpha);
+            ECSIntegration ecsIntegration = ECSIntegration.getInstance();
+            if (ecsIntegration != null) {
+                ecsIntegration.render(interpolationAlpha);
+            }
 
             glfwSwapBuffers(window);
         }
         cleanup();
     }
 
+    /**
+     * Advance input, scene and game world by one step
+     * @param deltaTime Step length in seconds
+     */
+    private void simulate(float deltaTime) {
+        // Input edges are consumed per step, so a key press is seen by exactly one tick
+        input.update();
+        Sprite.clearGlobalLights();
+
+        // Update scene
+        activeScene.update(deltaTime);
+        if (gameWorld != null) {
+            gameWorld.update(deltaTime);
+        }
+    }
+
+    /**
+     * Switch between a variable step (one update per frame) and fixed-rate ticks
+     * @param fixedTimestep True to simulate in fixed ticks of 1 / tickRate seconds
+     */
+    public void setFixedTimestep(boolean fixedTimestep) {
+        this.fixedTimestep = fixedTimestep;
+    }
+
+    public boolean isFixedTimestep() {
+        return fixedTimestep;
+    }
+
+    /**
+     * Set the number of simulation ticks per second used in fixed-timestep mode, e.g. 60 or 120
+     */
+    public void setTickRate(int tickRate) {
+        if (tickRate <= 0) {
+            throw new IllegalArgumentException("Tick rate must be positive");
+        }
+        this.tickRate = tickRate;
+    }
+
+    public int getTickRate() {
+        return tickRate;
+    }
+
+    /**
+     * Set the maximum number of ticks run in one frame; time beyond that is dropped
+     */
+    public void setMaxCatchUpSteps(int maxCatchUpSteps) {
+        this.maxCatchUpSteps = Math.max(1, maxCatchUpSteps);
+    }
+
+    public int getMaxCatchUpSteps() {
+        return maxCatchUpSteps;
+    }
+
+    /**
+     * Get how far the current frame is between the previous and the latest simulation tick.
+     * Renderers blend previous and current state with it; always 1 in variable-step mode.
+     */
+    public static float getInterpolationAlpha() {
+        return interpolationAlpha;
+    }
+
     public void setActiveScene(Scene scene) {
         if (activeScene != null) {
             activeScene.cleanup();
@@ -44,6 +44,12 @@ public class GameCollisionManager extends GameObject {
 
         // Set response strength (how strongly objects push apart when colliding)
         collisionSystem.setResponseStrength(0.8f);
+
+        // Sweep bullet colliders such as spells along their path
+        collisionSystem.setContinuousDetection(true);
+
+        // Split the narrowphase across cores once large fights produce enough candidate pairs
+        collisionSystem.setParallelNarrowphase(true);
     }
 
     /**
@@ -93,6 +99,9 @@ public class GameCollisionManager extends GameObject {
             // Make spells act as triggers
             collider.setTrigger(true);
 
+            // Spells are fast; test their whole path so they cannot skip past a player
+            collider.setBullet(true);
+
             // Register with collision system
             collisionSystem.registerCollider(spell, collider);
 
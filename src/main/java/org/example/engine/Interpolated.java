@@ -0,0 +1,17 @@
+package org.example.engine;
+
+/**
+ * Game object whose visuals are blended between the last two simulation ticks when rendering.
+ */
+public interface Interpolated {
+    /**
+     * Remember the current state as the previous tick; called by the scene before each update
+     */
+    void savePreviousState();
+
+    /**
+     * Place the visuals between the previous and the current tick; called once per frame before rendering
+     * @param alpha 0 for the previous tick, 1 for the current one
+     */
+    void interpolate(float alpha);
+}
@@ -25,6 +25,9 @@ public class Scene {
     public void update(float deltaTime) {
         List<GameObject> objectsCopy = new ArrayList<>(gameObjects);
         for (GameObject obj : objectsCopy) {
+            if (obj instanceof Interpolated) {
+                ((Interpolated) obj).savePreviousState();
+            }
             obj.update(deltaTime);
 
 
@@ -72,9 +75,21 @@ public class Scene {
     }
 
     public void render(Matrix4f viewProjectionMatrix) {
+        render(viewProjectionMatrix, 1.0f);
+    }
+
+    /**
+     * Render all objects, blending interpolated ones between the last two simulation ticks
+     * @param viewProjectionMatrix The camera's view-projection matrix
+     * @param alpha 0 for the previous tick, 1 for the current one
+     */
+    public void render(Matrix4f viewProjectionMatrix, float alpha) {
         sortGameObjects();
 
         for (GameObject obj : gameObjects) {
+            if (obj instanceof Interpolated) {
+                ((Interpolated) obj).interpolate(alpha);
+            }
             obj.render(viewProjectionMatrix);
         }
     }
@@ -43,6 +43,10 @@ public class Sprite extends GameObject implements ZOrderProvider  {
     private int color = 0xFFFFFF;
     private float alpha = 1.0f;
 
+    // Whatever last pushed its properties into this sprite, e.g. the ECS SpriteComponent drawing it;
+    // cached sprites can be shared, so a different owner means the properties must be pushed again
+    private Object renderOwner;
+
     // Uniform locations
     private int u_MVPLoc;
     private int u_ModelLoc;
@@ -473,4 +477,12 @@ public class Sprite extends GameObject implements ZOrderProvider  {
     public int getColor() {
         return color;
     }
+
+    public Object getRenderOwner() {
+        return renderOwner;
+    }
+
+    public void setRenderOwner(Object renderOwner) {
+        this.renderOwner = renderOwner;
+    }
 }
\ No newline at end of file
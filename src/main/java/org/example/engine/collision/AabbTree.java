@@ -0,0 +1,371 @@
+package org.example.engine.collision;
+
+import java.util.Arrays;
+
+/**
+ * Bounding volume hierarchy of axis-aligned boxes, kept balanced by tree rotations.
+ * Leaves store fattened boxes, so a collider moving within its margin does not touch the tree.
+ * Nodes live in parallel arrays and are recycled through a free list.
+ */
+final class AabbTree {
+    static final int NULL = -1;
+
+    private float[] minX = new float[64];
+    private float[] minY = new float[64];
+    private float[] maxX = new float[64];
+    private float[] maxY = new float[64];
+    // Parent of a node in the tree, or the next free node while on the free list
+    private int[] parent = new int[64];
+    private int[] child1 = new int[64];
+    private int[] child2 = new int[64];
+    // Leaves have height 0 and no children
+    private int[] height = new int[64];
+    private int[] proxies = new int[64];
+    private int capacity = 64;
+    private int freeList = NULL;
+    private int root = NULL;
+
+    // Traversal stack shared by queries
+    private int[] stack = new int[64];
+
+    AabbTree() {
+        linkFreeNodes(0);
+    }
+
+    /**
+     * Insert a leaf for a proxy
+     * @param margin Distance the stored box extends past the given bounds on every side
+     * @return The leaf node
+     */
+    int createLeaf(int proxy, float minX, float minY, float maxX, float maxY, float margin) {
+        int leaf = allocateNode();
+        setBox(leaf, minX - margin, minY - margin, maxX + margin, maxY + margin);
+        proxies[leaf] = proxy;
+        height[leaf] = 0;
+        insertLeaf(leaf);
+        return leaf;
+    }
+
+    void destroyLeaf(int leaf) {
+        removeLeaf(leaf);
+        freeNode(leaf);
+    }
+
+    /**
+     * Move a leaf to new bounds, reinserting it only if they left its fattened box
+     * @return True if the leaf was reinserted
+     */
+    boolean moveLeaf(int leaf, float minX, float minY, float maxX, float maxY, float margin) {
+        if (this.minX[leaf] <= minX && this.minY[leaf] <= minY && this.maxX[leaf] >= maxX && this.maxY[leaf] >= maxY) {
+            return false;
+        }
+        removeLeaf(leaf);
+        setBox(leaf, minX - margin, minY - margin, maxX + margin, maxY + margin);
+        insertLeaf(leaf);
+        return true;
+    }
+
+    int getProxy(int leaf) {
+        return proxies[leaf];
+    }
+
+    /**
+     * Report the proxy of every leaf whose fattened box overlaps an area
+     * @return False if the callback stopped the query
+     */
+    boolean query(float minX, float minY, float maxX, float maxY, Broadphase.QueryCallback callback) {
+        if (root == NULL) {
+            return true;
+        }
+        int top = 0;
+        stack[top++] = root;
+        while (top > 0) {
+            int node = stack[--top];
+            if (this.minX[node] > maxX || this.maxX[node] < minX || this.minY[node] > maxY || this.maxY[node] < minY) {
+                continue;
+            }
+            if (height[node] == 0) {
+                if (!callback.report(proxies[node])) {
+                    return false;
+                }
+            } else {
+                top = push(top, child1[node], child2[node]);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Report the proxy of every leaf whose fattened box a ray hits, skipping subtrees beyond the current maximum distance
+     * @return The maximum distance after the callbacks, or 0 if one stopped the ray
+     */
+    float raycast(float originX, float originY, float directionX, float directionY, float maxDistance,
+                  Broadphase.RaycastCallback callback) {
+        if (root == NULL) {
+            return maxDistance;
+        }
+        int top = 0;
+        stack[top++] = root;
+        while (top > 0) {
+            int node = stack[--top];
+            float distance = ProxyStore.rayDistance(originX, originY, directionX, directionY,
+                    minX[node], minY[node], maxX[node], maxY[node], maxDistance);
+            if (distance < 0) {
+                continue;
+            }
+            if (height[node] == 0) {
+                float result = callback.report(proxies[node], distance);
+                if (result == 0) {
+                    return 0;
+                }
+                if (result > 0) {
+                    maxDistance = result;
+                }
+            } else {
+                top = push(top, child1[node], child2[node]);
+            }
+        }
+        return maxDistance;
+    }
+
+    void clear() {
+        root = NULL;
+        linkFreeNodes(0);
+    }
+
+    private int push(int top, int first, int second) {
+        if (top + 2 > stack.length) {
+            stack = Arrays.copyOf(stack, stack.length * 2);
+        }
+        stack[top++] = first;
+        stack[top++] = second;
+        return top;
+    }
+
+    private void insertLeaf(int leaf) {
+        if (root == NULL) {
+            root = leaf;
+            parent[leaf] = NULL;
+            return;
+        }
+
+        // Descend towards the sibling that grows the total perimeter of the tree the least
+        float leafMinX = minX[leaf];
+        float leafMinY = minY[leaf];
+        float leafMaxX = maxX[leaf];
+        float leafMaxY = maxY[leaf];
+        int index = root;
+        while (height[index] > 0) {
+            int c1 = child1[index];
+            int c2 = child2[index];
+            float perimeter = perimeter(minX[index], minY[index], maxX[index], maxY[index]);
+            float combined = perimeter(Math.min(minX[index], leafMinX), Math.min(minY[index], leafMinY),
+                    Math.max(maxX[index], leafMaxX), Math.max(maxY[index], leafMaxY));
+
+            // Cost of making a new parent for this node and the leaf
+            float cost = 2 * combined;
+            // Minimum cost of pushing the leaf further down
+            float inheritance = 2 * (combined - perimeter);
+            float cost1 = descendCost(c1, leafMinX, leafMinY, leafMaxX, leafMaxY) + inheritance;
+            float cost2 = descendCost(c2, leafMinX, leafMinY, leafMaxX, leafMaxY) + inheritance;
+            if (cost < cost1 && cost < cost2) {
+                break;
+            }
+            index = cost1 < cost2 ? c1 : c2;
+        }
+
+        int sibling = index;
+        int oldParent = parent[sibling];
+        int newParent = allocateNode();
+        parent[newParent] = oldParent;
+        proxies[newParent] = NULL;
+        setBox(newParent, Math.min(minX[sibling], leafMinX), Math.min(minY[sibling], leafMinY),
+                Math.max(maxX[sibling], leafMaxX), Math.max(maxY[sibling], leafMaxY));
+        height[newParent] = height[sibling] + 1;
+        child1[newParent] = sibling;
+        child2[newParent] = leaf;
+        parent[sibling] = newParent;
+        parent[leaf] = newParent;
+        if (oldParent == NULL) {
+            root = newParent;
+        } else if (child1[oldParent] == sibling) {
+            child1[oldParent] = newParent;
+        } else {
+            child2[oldParent] = newParent;
+        }
+
+        refit(parent[leaf]);
+    }
+
+    private float descendCost(int child, float leafMinX, float leafMinY, float leafMaxX, float leafMaxY) {
+        float combined = perimeter(Math.min(minX[child], leafMinX), Math.min(minY[child], leafMinY),
+                Math.max(maxX[child], leafMaxX), Math.max(maxY[child], leafMaxY));
+        if (height[child] == 0) {
+            return combined;
+        }
+        return combined - perimeter(minX[child], minY[child], maxX[child], maxY[child]);
+    }
+
+    private void removeLeaf(int leaf) {
+        if (leaf == root) {
+            root = NULL;
+            return;
+        }
+
+        int oldParent = parent[leaf];
+        int grandParent = parent[oldParent];
+        int sibling = child1[oldParent] == leaf ? child2[oldParent] : child1[oldParent];
+        freeNode(oldParent);
+        if (grandParent == NULL) {
+            root = sibling;
+            parent[sibling] = NULL;
+            return;
+        }
+
+        if (child1[grandParent] == oldParent) {
+            child1[grandParent] = sibling;
+        } else {
+            child2[grandParent] = sibling;
+        }
+        parent[sibling] = grandParent;
+        refit(grandParent);
+    }
+
+    /**
+     * Rebalance and recompute boxes and heights from a node up to the root
+     */
+    private void refit(int index) {
+        while (index != NULL) {
+            index = balance(index);
+            int c1 = child1[index];
+            int c2 = child2[index];
+            height[index] = 1 + Math.max(height[c1], height[c2]);
+            setUnion(index, c1, c2);
+            index = parent[index];
+        }
+    }
+
+    /**
+     * Rotate the taller grandchild of a node up if its children's heights differ by more than one
+     * @return The node now at the position of the given one
+     */
+    private int balance(int a) {
+        if (height[a] < 2) {
+            return a;
+        }
+
+        int b = child1[a];
+        int c = child2[a];
+        int difference = height[c] - height[b];
+        if (difference > 1) {
+            rotateUp(a, c, b, false);
+            return c;
+        }
+        if (difference < -1) {
+            rotateUp(a, b, c, true);
+            return b;
+        }
+        return a;
+    }
+
+    /**
+     * Make a child the parent of its former parent, which keeps the child's shorter subtree
+     * @param a The node moving down
+     * @param up The child of a moving up
+     * @param other The other child of a
+     * @param upIsFirst Whether up is the first child of a
+     */
+    private void rotateUp(int a, int up, int other, boolean upIsFirst) {
+        int f = child1[up];
+        int g = child2[up];
+
+        // up takes a's place
+        child1[up] = a;
+        parent[up] = parent[a];
+        parent[a] = up;
+        int upParent = parent[up];
+        if (upParent == NULL) {
+            root = up;
+        } else if (child1[upParent] == a) {
+            child1[upParent] = up;
+        } else {
+            child2[upParent] = up;
+        }
+
+        // The taller grandchild stays under up, the shorter one moves to a
+        int keep = height[f] > height[g] ? f : g;
+        int move = keep == f ? g : f;
+        child2[up] = keep;
+        if (upIsFirst) {
+            child1[a] = move;
+        } else {
+            child2[a] = move;
+        }
+        parent[move] = a;
+
+        setUnion(a, other, move);
+        height[a] = 1 + Math.max(height[other], height[move]);
+        setUnion(up, a, keep);
+        height[up] = 1 + Math.max(height[a], height[keep]);
+    }
+
+    private void setBox(int node, float minX, float minY, float maxX, float maxY) {
+        this.minX[node] = minX;
+        this.minY[node] = minY;
+        this.maxX[node] = maxX;
+        this.maxY[node] = maxY;
+    }
+
+    private void setUnion(int node, int a, int b) {
+        setBox(node, Math.min(minX[a], minX[b]), Math.min(minY[a], minY[b]),
+                Math.max(maxX[a], maxX[b]), Math.max(maxY[a], maxY[b]));
+    }
+
+    private static float perimeter(float minX, float minY, float maxX, float maxY) {
+        return 2 * ((maxX - minX) + (maxY - minY));
+    }
+
+    private int allocateNode() {
+        if (freeList == NULL) {
+            int oldCapacity = capacity;
+            capacity *= 2;
+            minX = Arrays.copyOf(minX, capacity);
+            minY = Arrays.copyOf(minY, capacity);
+            maxX = Arrays.copyOf(maxX, capacity);
+            maxY = Arrays.copyOf(maxY, capacity);
+            parent = Arrays.copyOf(parent, capacity);
+            child1 = Arrays.copyOf(child1, capacity);
+            child2 = Arrays.copyOf(child2, capacity);
+            height = Arrays.copyOf(height, capacity);
+            proxies = Arrays.copyOf(proxies, capacity);
+            linkFreeNodes(oldCapacity);
+        }
+
+        int node = freeList;
+        freeList = parent[node];
+        parent[node] = NULL;
+        child1[node] = NULL;
+        child2[node] = NULL;
+        height[node] = 0;
+        return node;
+    }
+
+    private void freeNode(int node) {
+        parent[node] = freeList;
+        height[node] = -1;
+        freeList = node;
+    }
+
+    /**
+     * Put the nodes from an index to the end of the arrays on the free list
+     */
+    private void linkFreeNodes(int from) {
+        for (int i = from; i < capacity - 1; i++) {
+            parent[i] = i + 1;
+            height[i] = -1;
+        }
+        parent[capacity - 1] = NULL;
+        height[capacity - 1] = -1;
+        freeList = from;
+    }
+}
@@ -46,9 +46,11 @@ public class BoxCollider extends Collider {
         if (gameObject instanceof org.example.game.Player) {
             objectPos = ((org.example.game.Player) gameObject).getPosition();
         } else if (gameObject instanceof org.example.game.SpellEntity) {
-            float x = ((org.example.game.SpellEntity) gameObject).getX();
-            float y = ((org.example.game.SpellEntity) gameObject).getY();
-            objectPos = new org.joml.Vector3f(x, y, 0);
+            // Read the coordinates directly; this runs for every spell every frame
+            org.example.game.SpellEntity spell = (org.example.game.SpellEntity) gameObject;
+            position.x = spell.getX() + offsetX;
+            position.y = spell.getY() + offsetY;
+            return;
         } else {
             // Default behavior - try to access a position field or method using reflection
             try {
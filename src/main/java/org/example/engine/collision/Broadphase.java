@@ -0,0 +1,78 @@
+package org.example.engine.collision;
+
+/**
+ * Finds the pairs of colliders whose bounds overlap, so the narrowphase only checks those, and
+ * answers area and ray queries over the same structure.
+ * Colliders are identified by proxy ids handed out by the CollisionSystem; implementations may
+ * keep state between updates (sorted axes, trees) and are told about every change of bounds.
+ */
+public interface Broadphase {
+    /**
+     * Receives the proxies found by an area query
+     */
+    interface QueryCallback {
+        /**
+         * @return False to stop the query
+         */
+        boolean report(int proxy);
+    }
+
+    /**
+     * Receives the proxies whose bounds a ray hits, in no particular order
+     */
+    interface RaycastCallback {
+        /**
+         * @param distance Distance along the ray at which it enters the proxy's bounds
+         * @return The new maximum distance, so returning distance only looks for closer hits;
+         *         a negative value keeps the current maximum and 0 stops the ray
+         */
+        float report(int proxy, float distance);
+    }
+
+    /**
+     * Start tracking a proxy
+     * @param proxy Proxy id, small and non-negative
+     * @param isStatic Whether the proxy never moves; pairs of two static proxies are never reported
+     */
+    void add(int proxy, float minX, float minY, float maxX, float maxY, boolean isStatic);
+
+    /**
+     * Set which proxies a tracked proxy is paired with; a pair is only reported if
+     * (category of one AND mask of the other) is not zero. Proxies start with every bit set.
+     * Filters must be symmetric: a's category matches b's mask exactly when b's category matches a's.
+     */
+    void setFilter(int proxy, long category, long mask);
+
+    /**
+     * Set the current bounds of a tracked proxy
+     */
+    void update(int proxy, float minX, float minY, float maxX, float maxY);
+
+    /**
+     * Stop tracking a proxy; its id may be reused afterwards
+     */
+    void remove(int proxy);
+
+    /**
+     * Add every pair of tracked proxies with overlapping bounds, each pair once; touching bounds count as overlapping
+     * @param pairs Buffer the proxy id pairs are added to
+     */
+    void findPairs(PairBuffer pairs);
+
+    /**
+     * Report every tracked proxy whose bounds overlap an area, each once
+     */
+    void query(float minX, float minY, float maxX, float maxY, QueryCallback callback);
+
+    /**
+     * Report the tracked proxies whose bounds a ray hits within the maximum distance
+     * @param directionX Ray direction, unit length
+     */
+    void raycast(float originX, float originY, float directionX, float directionY, float maxDistance,
+                 RaycastCallback callback);
+
+    /**
+     * Stop tracking all proxies
+     */
+    void clear();
+}
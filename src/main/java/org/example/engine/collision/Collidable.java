@@ -2,14 +2,35 @@ package org.example.engine.collision;
 
 import org.example.engine.GameObject;
 
+/**
+ * Receives collision callbacks. Each contact is reported once when it begins, every following
+ * frame as a stay, and once when it ends.
+ * The CollisionResult passed in is reused by the collision system afterwards, so copy anything
+ * that must outlive the call (new CollisionResult(result)).
+ */
 public interface Collidable {
     /**
-     * Called when this object collides with another object
+     * Called when this object starts colliding with another object
      * @param other The other game object
      * @param result The collision result with details about the collision
      */
     void onCollision(GameObject other, CollisionResult result);
 
+    /**
+     * Called every frame after the first that this object keeps colliding with another object
+     * @param other The other game object
+     * @param result The collision result with details about the collision
+     */
+    default void onCollisionStay(GameObject other, CollisionResult result) {
+    }
+
+    /**
+     * Called when this object stops colliding with another object
+     * @param other The other game object
+     */
+    default void onCollisionExit(GameObject other) {
+    }
+
     /**
      * Called when this object enters a trigger collider
      * @param other The other game object
@@ -17,6 +38,14 @@ public interface Collidable {
      */
     void onTriggerEnter(GameObject other, CollisionResult result);
 
+    /**
+     * Called every frame after the first that another object stays inside this object's trigger collider
+     * @param other The other game object
+     * @param result The collision result with details about the trigger
+     */
+    default void onTriggerStay(GameObject other, CollisionResult result) {
+    }
+
     /**
      * Called when this object exits a trigger collider
      * @param other The other game object
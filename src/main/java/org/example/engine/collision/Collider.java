@@ -8,12 +8,16 @@ public abstract class Collider {
     protected int layer;
     protected boolean isTrigger;
     protected boolean isActive;
+    protected boolean isBullet;
+    // Broadphase proxy id while registered with a CollisionSystem, -1 otherwise
+    int proxy = -1;
 
     public Collider() {
         this.position = new Vector2f();
         this.layer = 0; // Default layer
         this.isTrigger = false;
         this.isActive = true;
+        this.isBullet = false;
     }
 
     /**
@@ -82,4 +86,18 @@ public abstract class Collider {
     public void setActive(boolean isActive) {
         this.isActive = isActive;
     }
-}
\ No newline at end of file
+
+    /**
+     * Checks if this collider is a bullet, whose whole path is tested each update when continuous detection is on
+     */
+    public boolean isBullet() {
+        return isBullet;
+    }
+
+    /**
+     * Sets whether this collider is a fast-moving bullet that must not pass through thin colliders
+     */
+    public void setBullet(boolean isBullet) {
+        this.isBullet = isBullet;
+    }
+}
@@ -1,19 +1,26 @@
 package org.example.engine.collision;
 
-import java.util.HashSet;
-import java.util.Set;
-
 public class CollisionLayer {
+    /**
+     * Layer ids run from 0 to this value minus one, so a set of layers fits in one long
+     */
+    public static final int MAX_LAYERS = 64;
+    /**
+     * Layer mask that matches every layer, for queries
+     */
+    public static final long ALL_LAYERS = -1L;
+
     private final String name;
     private final int id;
-    private final Set<Integer> collidingLayers;
+    // Bit n set if this layer collides with layer n
+    private long collisionMask;
 
     public CollisionLayer(String name, int id) {
+        checkId(id);
         this.name = name;
         this.id = id;
-        this.collidingLayers = new HashSet<>();
         // By default, a layer collides with itself
-        this.collidingLayers.add(id);
+        this.collisionMask = bit(id);
     }
 
     /**
@@ -31,23 +38,47 @@ public class CollisionLayer {
     }
 
     /**
-     * Adds a layer that this layer can collide with
+     * Adds a layer that this layer can collide with.
+     * Once the layer is added to a CollisionSystem, use CollisionSystem.setLayerCollision instead.
      */
     public void addCollidingLayer(int layerId) {
-        collidingLayers.add(layerId);
+        checkId(layerId);
+        collisionMask |= bit(layerId);
     }
 
     /**
-     * Removes a layer that this layer can collide with
+     * Removes a layer that this layer can collide with.
+     * Once the layer is added to a CollisionSystem, use CollisionSystem.setLayerCollision instead.
      */
     public void removeCollidingLayer(int layerId) {
-        collidingLayers.remove(layerId);
+        checkId(layerId);
+        collisionMask &= ~bit(layerId);
     }
 
     /**
      * Checks if this layer can collide with another layer
      */
     public boolean canCollideWith(int layerId) {
-        return collidingLayers.contains(layerId);
+        return layerId >= 0 && layerId < MAX_LAYERS && (collisionMask & bit(layerId)) != 0;
+    }
+
+    /**
+     * Gets the layers this layer collides with, one bit per layer id
+     */
+    public long getCollisionMask() {
+        return collisionMask;
+    }
+
+    /**
+     * Gets the bit that stands for a layer id in collision masks
+     */
+    public static long bit(int layerId) {
+        return 1L << layerId;
+    }
+
+    private static void checkId(int layerId) {
+        if (layerId < 0 || layerId >= MAX_LAYERS) {
+            throw new IllegalArgumentException("Layer id must be between 0 and " + (MAX_LAYERS - 1) + ": " + layerId);
+        }
     }
-}
\ No newline at end of file
+}
@@ -74,6 +74,26 @@ public class CollisionResult {
         this.contactPoint.set(contactPoint);
     }
 
+    /**
+     * Marks this result as a collision with the given details, without allocating
+     */
+    public void set(float normalX, float normalY, float depth, float contactX, float contactY) {
+        this.colliding = true;
+        this.normal.set(normalX, normalY);
+        this.depth = depth;
+        this.contactPoint.set(contactX, contactY);
+    }
+
+    /**
+     * Copies another result into this one, without allocating
+     */
+    public void set(CollisionResult other) {
+        this.colliding = other.colliding;
+        this.normal.set(other.normal);
+        this.depth = other.depth;
+        this.contactPoint.set(other.contactPoint);
+    }
+
     /**
      * Flips the direction of the collision (for use with the second collider)
      */
@@ -2,21 +2,34 @@ package org.example.engine.collision;
 
 import org.example.engine.GameObject;
 import org.example.engine.Scene;
-import org.joml.Vector2f;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
 
 /**
  * Manages collision detection and resolution between game objects
  */
 public class CollisionSystem {
+    private static final int DEFAULT_MIN_PAIRS_PER_BATCH = 128;
+
     private final Scene scene;
     private final Map<GameObject, Collider> colliders;
+    // Colliders that never move: positioned once on registration and never paired with each other
+    private final Map<GameObject, Collider> staticColliders;
     private final List<CollisionLayer> collisionLayers;
+    private final CollisionLayer[] layersById = new CollisionLayer[CollisionLayer.MAX_LAYERS];
+    // Bit n of entry m set if layers m and n collide; kept symmetric and rebuilt whenever layers change
+    private final long[] layerMasks = new long[CollisionLayer.MAX_LAYERS];
     private final Map<CollisionPair, CollisionHandler> collisionHandlers;
+    // Handler lookups by collider type pair, including misses, so the narrowphase does not build CollisionPairs
+    private final Map<Class<?>, Map<Class<?>, CollisionHandler>> handlerCache = new HashMap<>();
     private boolean debugDraw = false;
 
     // Collision response settings
@@ -24,12 +37,50 @@ public class CollisionSystem {
     private boolean continuousDetection = false;
     private int maxIterations = 3;
 
+    // Registered colliders by broadphase proxy id, with free ids kept for reuse
+    private GameObject[] proxyObjects = new GameObject[64];
+    private Collider[] proxyColliders = new Collider[64];
+    private boolean[] proxyStatic = new boolean[64];
+    // Layer each proxy's broadphase filter was built from
+    private int[] proxyLayer = new int[64];
+    // Distance bullets moved during the current update, zero for everything else
+    private float[] proxyMoveX = new float[64];
+    private float[] proxyMoveY = new float[64];
+    private int[] freeProxies = new int[16];
+    private int freeProxyCount = 0;
+    private int nextProxy = 0;
+    private Broadphase broadphase = new DynamicTreeBroadphase();
+    private final PairBuffer candidatePairs = new PairBuffer();
+    // Narrowphase batches over contiguous runs of the sorted candidate pairs, each with its own contact buffer;
+    // the first is used on its own unless the narrowphase runs in parallel
+    private NarrowphaseBatch[] batches = { new NarrowphaseBatch() };
+    private int batchCount = 1;
+    private boolean parallelNarrowphase = false;
+    private int minPairsPerBatch = DEFAULT_MIN_PAIRS_PER_BATCH;
+    private final List<ForkJoinTask<?>> pendingTasks = new ArrayList<>();
+    private ForkJoinPool workerPool;
+    private final CollisionResult flippedResult = new CollisionResult(false);
+    // Contacts of the last and the current frame, swapped every frame
+    private ContactCache previousContacts = new ContactCache();
+    private ContactCache currentContacts = new ContactCache();
+    private final AreaQuery areaQuery = new AreaQuery();
+    private final NearestRaycast nearestRaycast = new NearestRaycast();
+    private final OverlapQuery overlapQuery = new OverlapQuery();
+    private final ShapeCast shapeCast = new ShapeCast();
+
+    // Bounds computed by computeBounds
+    private float boundsMinX;
+    private float boundsMinY;
+    private float boundsMaxX;
+    private float boundsMaxY;
+
     /**
      * Creates a new collision system for the given scene
      */
     public CollisionSystem(Scene scene) {
         this.scene = scene;
         this.colliders = new HashMap<>();
+        this.staticColliders = new HashMap<>();
         this.collisionLayers = new ArrayList<>();
         this.collisionHandlers = new HashMap<>();
 
@@ -87,19 +138,24 @@ public class CollisionSystem {
      * Add a collision layer to the system
      */
     public void addCollisionLayer(CollisionLayer layer) {
+        // A layer replaces any earlier layer with the same id
+        CollisionLayer previous = layersById[layer.getId()];
+        if (previous != null) {
+            collisionLayers.remove(previous);
+        }
         collisionLayers.add(layer);
+        layersById[layer.getId()] = layer;
+        rebuildLayerMasks();
     }
 
     /**
      * Get a collision layer by ID
      */
     public CollisionLayer getLayer(int layerId) {
-        for (CollisionLayer layer : collisionLayers) {
-            if (layer.getId() == layerId) {
-                return layer;
-            }
+        if (layerId < 0 || layerId >= CollisionLayer.MAX_LAYERS) {
+            return null;
         }
-        return null;
+        return layersById[layerId];
     }
 
     /**
@@ -129,28 +185,340 @@ public class CollisionSystem {
                 l1.removeCollidingLayer(layer2);
                 l2.removeCollidingLayer(layer1);
             }
+            rebuildLayerMasks();
+        }
+    }
+
+    /**
+     * Rebuild the collision matrix from the layers and refresh the broadphase filters.
+     * Two layers collide if either lists the other; layers that were never added collide with nothing.
+     */
+    private void rebuildLayerMasks() {
+        long existing = 0;
+        for (int id = 0; id < CollisionLayer.MAX_LAYERS; id++) {
+            if (layersById[id] != null) {
+                existing |= CollisionLayer.bit(id);
+            }
+        }
+        for (int id = 0; id < CollisionLayer.MAX_LAYERS; id++) {
+            layerMasks[id] = layersById[id] != null ? layersById[id].getCollisionMask() & existing : 0;
+        }
+        for (int id = 0; id < CollisionLayer.MAX_LAYERS; id++) {
+            long mask = layerMasks[id];
+            while (mask != 0) {
+                int other = Long.numberOfTrailingZeros(mask);
+                mask &= mask - 1;
+                layerMasks[other] |= CollisionLayer.bit(id);
+            }
+        }
+
+        for (int proxy = 0; proxy < nextProxy; proxy++) {
+            if (proxyColliders[proxy] != null) {
+                applyFilter(broadphase, proxy);
+            }
+        }
+    }
+
+    /**
+     * Set a proxy's broadphase filter from its collider's layer, so pairs of layers that do not
+     * collide never reach the narrowphase
+     */
+    private void applyFilter(Broadphase target, int proxy) {
+        int layer = proxyColliders[proxy].getLayer();
+        proxyLayer[proxy] = layer;
+        if (layer >= 0 && layer < CollisionLayer.MAX_LAYERS) {
+            target.setFilter(proxy, CollisionLayer.bit(layer), layerMasks[layer]);
+        } else {
+            target.setFilter(proxy, 0, 0);
         }
     }
 
+    /**
+     * Category bit of a collider's layer, or 0 when the layer is out of range so queries skip it
+     * the same way the broadphase filter does
+     */
+    private static long layerBit(Collider collider) {
+        int layer = collider.getLayer();
+        return layer >= 0 && layer < CollisionLayer.MAX_LAYERS ? CollisionLayer.bit(layer) : 0;
+    }
+
     /**
      * Register a game object with a collider
      */
     public void registerCollider(GameObject gameObject, Collider collider) {
-        colliders.put(gameObject, collider);
+        register(gameObject, collider, false);
+    }
+
+    /**
+     * Register a game object that never moves, such as terrain. Its collider is positioned once
+     * here and never tested against other static colliders; register it again after moving it
+     * or changing its layer.
+     */
+    public void registerStaticCollider(GameObject gameObject, Collider collider) {
+        register(gameObject, collider, true);
+    }
+
+    private void register(GameObject gameObject, Collider collider, boolean isStatic) {
+        Map<GameObject, Collider> target = isStatic ? staticColliders : colliders;
+        Collider previous = target.put(gameObject, collider);
+        Collider other = (isStatic ? colliders : staticColliders).remove(gameObject);
+        if (previous != null) {
+            releaseProxy(previous);
+        }
+        if (other != null) {
+            releaseProxy(other);
+        }
+
+        if (collider != null) {
+            if (gameObject != null) {
+                collider.updatePosition(gameObject);
+            }
+            createProxy(gameObject, collider, isStatic);
+        }
     }
 
     /**
      * Unregister a game object from the collision system
      */
     public void unregisterCollider(GameObject gameObject) {
-        colliders.remove(gameObject);
+        Collider removed = colliders.remove(gameObject);
+        if (removed == null) {
+            removed = staticColliders.remove(gameObject);
+        }
+        if (removed != null) {
+            releaseProxy(removed);
+        }
+    }
+
+    /**
+     * Give a collider a proxy id and add it to the broadphase
+     */
+    private void createProxy(GameObject gameObject, Collider collider, boolean isStatic) {
+        int proxy;
+        if (freeProxyCount > 0) {
+            proxy = freeProxies[--freeProxyCount];
+        } else {
+            proxy = nextProxy++;
+            if (proxy == proxyColliders.length) {
+                proxyObjects = Arrays.copyOf(proxyObjects, proxy * 2);
+                proxyColliders = Arrays.copyOf(proxyColliders, proxy * 2);
+                proxyStatic = Arrays.copyOf(proxyStatic, proxy * 2);
+                proxyLayer = Arrays.copyOf(proxyLayer, proxy * 2);
+                proxyMoveX = Arrays.copyOf(proxyMoveX, proxy * 2);
+                proxyMoveY = Arrays.copyOf(proxyMoveY, proxy * 2);
+            }
+        }
+
+        collider.proxy = proxy;
+        proxyObjects[proxy] = gameObject;
+        proxyColliders[proxy] = collider;
+        proxyStatic[proxy] = isStatic;
+        proxyMoveX[proxy] = 0;
+        proxyMoveY[proxy] = 0;
+        computeBounds(collider);
+        broadphase.add(proxy, boundsMinX, boundsMinY, boundsMaxX, boundsMaxY, isStatic);
+        applyFilter(broadphase, proxy);
+    }
+
+    /**
+     * Remove a collider from the broadphase and free its proxy id
+     */
+    private void releaseProxy(Collider collider) {
+        int proxy = collider.proxy;
+        if (proxy < 0 || proxyColliders[proxy] != collider) {
+            return;
+        }
+
+        broadphase.remove(proxy);
+        proxyObjects[proxy] = null;
+        proxyColliders[proxy] = null;
+        collider.proxy = -1;
+        if (freeProxyCount == freeProxies.length) {
+            freeProxies = Arrays.copyOf(freeProxies, freeProxyCount * 2);
+        }
+        freeProxies[freeProxyCount++] = proxy;
+    }
+
+    /**
+     * Get the broadphase that picks the pairs for the narrowphase
+     */
+    public Broadphase getBroadphase() {
+        return broadphase;
+    }
+
+    /**
+     * Switch to another broadphase, such as a SpatialHashBroadphase or SweepAndPruneBroadphase
+     * instead of the default DynamicTreeBroadphase; all registered colliders are moved over
+     */
+    public void setBroadphase(Broadphase broadphase) {
+        if (broadphase == null) {
+            throw new IllegalArgumentException("Broadphase cannot be null");
+        }
+        if (broadphase == this.broadphase) {
+            return;
+        }
+
+        broadphase.clear();
+        for (int proxy = 0; proxy < nextProxy; proxy++) {
+            Collider collider = proxyColliders[proxy];
+            if (collider != null) {
+                computeBounds(collider);
+                broadphase.add(proxy, boundsMinX, boundsMinY, boundsMaxX, boundsMaxY, proxyStatic[proxy]);
+                applyFilter(broadphase, proxy);
+            }
+        }
+        this.broadphase.clear();
+        this.broadphase = broadphase;
     }
 
     /**
      * Get the collider for a game object
      */
     public Collider getCollider(GameObject gameObject) {
-        return colliders.get(gameObject);
+        Collider collider = colliders.get(gameObject);
+        return collider != null ? collider : staticColliders.get(gameObject);
+    }
+
+    /**
+     * Find the game objects whose active colliders' bounds overlap an area
+     * @param results Collection the objects are added to
+     * @return Number of objects added
+     */
+    public int queryArea(float minX, float minY, float maxX, float maxY, Collection<? super GameObject> results) {
+        areaQuery.results = results;
+        areaQuery.count = 0;
+        broadphase.query(minX, minY, maxX, maxY, areaQuery);
+        areaQuery.results = null;
+        return areaQuery.count;
+    }
+
+    /**
+     * Find the nearest game object whose active collider's bounds a ray hits
+     * @param directionX Ray direction, normalized here
+     * @return The object, or null if nothing is hit within maxDistance
+     */
+    public GameObject raycast(float originX, float originY, float directionX, float directionY, float maxDistance) {
+        float length = (float) Math.sqrt(directionX * directionX + directionY * directionY);
+        if (length == 0) {
+            throw new IllegalArgumentException("Ray direction cannot be zero");
+        }
+
+        nearestRaycast.nearest = -1;
+        nearestRaycast.nearestDistance = Float.POSITIVE_INFINITY;
+        broadphase.raycast(originX, originY, directionX / length, directionY / length, maxDistance, nearestRaycast);
+        return nearestRaycast.nearest >= 0 ? proxyObjects[nearestRaycast.nearest] : null;
+    }
+
+    /**
+     * Find every active collider on the given layers that a ray hits, nearest first.
+     * Colliders the ray starts inside are not reported.
+     * @param directionX Ray direction, normalized here
+     * @param layerMask Layers to hit, as a set of {@link CollisionLayer#bit} values
+     * @param hits Cleared and filled with the hits, each with the point where the ray enters the shape
+     * @return Number of hits
+     */
+    public int raycast(float originX, float originY, float directionX, float directionY, float maxDistance,
+                       long layerMask, HitBuffer hits) {
+        return cast(originX, originY, 0, directionX, directionY, maxDistance, layerMask, hits, true);
+    }
+
+    /**
+     * Find every active collider on the given layers that a circle moving along a line hits, nearest first.
+     * Colliders the circle already overlaps at the start are not reported; use overlapCircle for those.
+     * @param directionX Direction of motion, normalized here
+     * @param hits Cleared and filled with the hits, each with the point where the circle touches the shape
+     * @return Number of hits
+     */
+    public int sweepCircle(float centerX, float centerY, float radius, float directionX, float directionY,
+                           float maxDistance, long layerMask, HitBuffer hits) {
+        if (radius < 0) {
+            throw new IllegalArgumentException("Radius cannot be negative");
+        }
+        return cast(centerX, centerY, radius, directionX, directionY, maxDistance, layerMask, hits, false);
+    }
+
+    /**
+     * Find every active collider on the given layers whose shape overlaps a circle
+     * @param hits Cleared and filled with the colliders found
+     * @return Number of hits
+     */
+    public int overlapCircle(float centerX, float centerY, float radius, long layerMask, HitBuffer hits) {
+        if (radius < 0) {
+            throw new IllegalArgumentException("Radius cannot be negative");
+        }
+        return overlap(centerX, centerY, radius, centerX - radius, centerY - radius, centerX + radius, centerY + radius,
+                layerMask, hits);
+    }
+
+    /**
+     * Find every active collider on the given layers whose shape overlaps a box
+     * @param hits Cleared and filled with the colliders found
+     * @return Number of hits
+     */
+    public int overlapBox(float minX, float minY, float maxX, float maxY, long layerMask, HitBuffer hits) {
+        if (maxX < minX || maxY < minY) {
+            throw new IllegalArgumentException("Box maximum cannot be less than its minimum");
+        }
+        return overlap(0, 0, -1, minX, minY, maxX, maxY, layerMask, hits);
+    }
+
+    /**
+     * Run an overlap query over the broadphase
+     * @param radius Radius of the circle around the center, or negative to test the box itself
+     */
+    private int overlap(float centerX, float centerY, float radius, float minX, float minY, float maxX, float maxY,
+                        long layerMask, HitBuffer hits) {
+        hits.clear();
+        OverlapQuery query = overlapQuery;
+        query.hits = hits;
+        query.layerMask = layerMask;
+        query.centerX = centerX;
+        query.centerY = centerY;
+        query.radius = radius;
+        query.minX = minX;
+        query.minY = minY;
+        query.maxX = maxX;
+        query.maxY = maxY;
+        broadphase.query(minX, minY, maxX, maxY, query);
+        query.hits = null;
+        return hits.size();
+    }
+
+    /**
+     * Run a ray or circle cast: rays descend the broadphase's ray query, sweeps query the area they pass through
+     */
+    private int cast(float originX, float originY, float radius, float directionX, float directionY, float maxDistance,
+                     long layerMask, HitBuffer hits, boolean isRay) {
+        float length = (float) Math.sqrt(directionX * directionX + directionY * directionY);
+        if (length == 0) {
+            throw new IllegalArgumentException("Direction cannot be zero");
+        }
+        if (maxDistance < 0) {
+            throw new IllegalArgumentException("Maximum distance cannot be negative");
+        }
+
+        hits.clear();
+        directionX /= length;
+        directionY /= length;
+        ShapeCast cast = shapeCast;
+        cast.hits = hits;
+        cast.layerMask = layerMask;
+        cast.originX = originX;
+        cast.originY = originY;
+        cast.radius = radius;
+        cast.maxDistance = maxDistance;
+        cast.moveX = directionX * maxDistance;
+        cast.moveY = directionY * maxDistance;
+        if (isRay) {
+            broadphase.raycast(originX, originY, directionX, directionY, maxDistance, cast);
+        } else {
+            float endX = originX + cast.moveX;
+            float endY = originY + cast.moveY;
+            broadphase.query(Math.min(originX, endX) - radius, Math.min(originY, endY) - radius,
+                    Math.max(originX, endX) + radius, Math.max(originY, endY) + radius, cast);
+        }
+        cast.hits = null;
+        return hits.size();
     }
 
     /**
@@ -159,6 +527,7 @@ public class CollisionSystem {
     public void registerCollisionHandler(Class<? extends Collider> type1, Class<? extends Collider> type2, CollisionHandler handler) {
         CollisionPair pair = new CollisionPair(type1, type2);
         collisionHandlers.put(pair, handler);
+        handlerCache.clear();
     }
 
     /**
@@ -179,11 +548,70 @@ public class CollisionSystem {
         for (Map.Entry<GameObject, Collider> entry : colliders.entrySet()) {
             GameObject gameObject = entry.getKey();
             Collider collider = entry.getValue();
+            if (collider == null) {
+                continue;
+            }
 
             // Update the collider's position based on the game object
+            float previousX = collider.getPosition().x;
+            float previousY = collider.getPosition().y;
             if (gameObject != null) {
                 collider.updatePosition(gameObject);
             }
+
+            if (collider.getLayer() != proxyLayer[collider.proxy]) {
+                applyFilter(broadphase, collider.proxy);
+            }
+            computeBounds(collider);
+            int proxy = collider.proxy;
+            if (continuousDetection && collider.isBullet()) {
+                float moveX = collider.getPosition().x - previousX;
+                float moveY = collider.getPosition().y - previousY;
+                proxyMoveX[proxy] = moveX;
+                proxyMoveY[proxy] = moveY;
+                // Cover the whole path, so the broadphase finds everything the bullet passed
+                if (moveX > 0) {
+                    boundsMinX -= moveX;
+                } else {
+                    boundsMaxX -= moveX;
+                }
+                if (moveY > 0) {
+                    boundsMinY -= moveY;
+                } else {
+                    boundsMaxY -= moveY;
+                }
+            } else {
+                proxyMoveX[proxy] = 0;
+                proxyMoveY[proxy] = 0;
+            }
+            broadphase.update(proxy, boundsMinX, boundsMinY, boundsMaxX, boundsMaxY);
+        }
+    }
+
+    /**
+     * Compute the bounds of a collider as the broadphase sees them
+     */
+    private void computeBounds(Collider collider) {
+        if (collider instanceof BoxCollider) {
+            BoxCollider box = (BoxCollider) collider;
+            boundsMinX = box.getX();
+            boundsMinY = box.getY();
+            boundsMaxX = box.getX() + box.getWidth();
+            boundsMaxY = box.getY() + box.getHeight();
+        } else if (collider instanceof CircleCollider) {
+            // getBounds treats the position as the centre, the built-in checks as the top-left corner; cover both
+            CircleCollider circle = (CircleCollider) collider;
+            float radius = circle.getRadius();
+            boundsMinX = circle.getX() - radius;
+            boundsMinY = circle.getY() - radius;
+            boundsMaxX = circle.getX() + radius * 2;
+            boundsMaxY = circle.getY() + radius * 2;
+        } else {
+            Bounds bounds = collider.getBounds();
+            boundsMinX = bounds.getX();
+            boundsMinY = bounds.getY();
+            boundsMaxX = bounds.getX() + bounds.getWidth();
+            boundsMaxY = bounds.getY() + bounds.getHeight();
         }
     }
 
@@ -191,107 +619,309 @@ public class CollisionSystem {
      * Detect and resolve collisions between all objects
      */
     private void detectAndResolveCollisions() {
-        List<Collision> collisions = new ArrayList<>();
+        // Only pairs whose bounds overlap and whose layers collide come out of the broadphase, ordered by proxy id
+        // so the order does not depend on the broadphase
+        candidatePairs.clear();
+        broadphase.findPairs(candidatePairs);
+        candidatePairs.sort();
+
+        // Narrowphase: every hit is written into the reused contact buffer of its batch.
+        // Custom handlers may not be thread-safe, so they keep the narrowphase on this thread
+        int pairCount = candidatePairs.size();
+        int count = 1;
+        if (parallelNarrowphase && collisionHandlers.isEmpty()) {
+            count = Math.max(1, Math.min(getWorkerPool().getParallelism() + 1, pairCount / minPairsPerBatch));
+        }
+        if (count > batches.length) {
+            int oldLength = batches.length;
+            batches = Arrays.copyOf(batches, count);
+            for (int b = oldLength; b < count; b++) {
+                batches[b] = new NarrowphaseBatch();
+            }
+        }
+        int start = 0;
+        for (int b = 0; b < count; b++) {
+            int end = (int) ((long) pairCount * (b + 1) / count);
+            batches[b].from = start;
+            batches[b].to = end;
+            start = end;
+        }
+        batchCount = count;
 
-        // Check all pairs of colliders for collisions
-        List<GameObject> gameObjects = new ArrayList<>(colliders.keySet());
+        if (count == 1) {
+            batches[0].run();
+        } else {
+            runBatches(count);
+        }
 
-        for (int i = 0; i < gameObjects.size(); i++) {
-            GameObject objA = gameObjects.get(i);
-            Collider colliderA = colliders.get(objA);
+        // Resolution and callbacks stay on this thread, in pair order
+        dispatchContacts();
+    }
 
-            if (colliderA == null || !colliderA.isActive()) continue;
+    /**
+     * Run the narrowphase batches on the worker pool; the calling thread takes the last one
+     */
+    private void runBatches(int count) {
+        ForkJoinPool pool = getWorkerPool();
+        try {
+            for (int b = 0; b < count - 1; b++) {
+                pendingTasks.add(pool.submit(batches[b]));
+            }
+            batches[count - 1].run();
+        } finally {
+            // Always wait for the workers before the contacts are read
+            RuntimeException failure = null;
+            for (ForkJoinTask<?> task : pendingTasks) {
+                try {
+                    task.join();
+                } catch (RuntimeException e) {
+                    if (failure == null) {
+                        failure = e;
+                    }
+                }
+            }
+            pendingTasks.clear();
 
-            for (int j = i + 1; j < gameObjects.size(); j++) {
-                GameObject objB = gameObjects.get(j);
-                Collider colliderB = colliders.get(objB);
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
 
-                if (colliderB == null || !colliderB.isActive()) continue;
+    /**
+     * Get the pool used for the parallel narrowphase, creating it on first use
+     */
+    private ForkJoinPool getWorkerPool() {
+        if (workerPool == null) {
+            // The updating thread works too, so leave one core for it
+            int parallelism = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+            workerPool = new ForkJoinPool(parallelism, pool -> {
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                thread.setName("collision-worker-" + thread.getPoolIndex());
+                thread.setDaemon(true);
+                return thread;
+            }, null, false);
+        }
+        return workerPool;
+    }
 
-                // Check if layers can collide
-                if (!canLayersCollide(colliderA.getLayer(), colliderB.getLayer())) {
-                    continue;
+    /**
+     * Resolve this frame's contacts and tell the objects which contacts began, persisted and ended,
+     * by merging them with the last frame's contacts; both are sorted by proxy pair, as the batches cover
+     * the sorted candidate pairs in order
+     */
+    private void dispatchContacts() {
+        ContactCache previous = currentContacts;
+        currentContacts = previousContacts;
+        previousContacts = previous;
+        currentContacts.clear();
+
+        int cursor = 0;
+        for (int b = 0; b < batchCount; b++) {
+            ContactBuffer contacts = batches[b].contacts;
+            for (int c = 0; c < contacts.size(); c++) {
+                int i = contacts.getProxyA(c);
+                int j = contacts.getProxyB(c);
+                long key = ContactCache.key(i, j);
+                Collider colliderA = contacts.getColliderA(c);
+                Collider colliderB = contacts.getColliderB(c);
+                // An earlier callback may have unregistered either collider, and its proxy id may already be reused
+                boolean registered = proxyColliders[i] == colliderA && proxyColliders[j] == colliderB;
+
+                // Contacts of the last frame that sort before this one have ended
+                int next = previous.seek(cursor, key);
+                endContacts(previous, cursor, next);
+                cursor = next;
+                // Read once, so the events of this contact agree with how it is cached and later ended
+                boolean triggerA = registered && colliderA.isTrigger();
+                boolean triggerB = registered && colliderB.isTrigger();
+                boolean persisted = registered && previous.matches(cursor, key, colliderA, colliderB, triggerA, triggerB);
+                if (cursor < previous.size() && previous.getKey(cursor) == key) {
+                    if (!persisted) {
+                        // The proxy ids now belong to other colliders, one was unregistered by an earlier callback,
+                        // or one switched between trigger and solid
+                        endContacts(previous, cursor, cursor + 1);
+                    }
+                    cursor++;
                 }
 
-                // Check for collision
-                CollisionResult result = checkCollision(colliderA, colliderB);
-
-                if (result.isColliding()) {
-                    // Create a collision object
-                    Collision collision = new Collision(objA, objB, colliderA, colliderB, result);
-                    collisions.add(collision);
-
-                    // Handle the collision based on collider types and response settings
-                    handleCollision(collision);
+                if (!registered) {
+                    continue;
                 }
+
+                GameObject objA = proxyObjects[i];
+                GameObject objB = proxyObjects[j];
+                currentContacts.add(key, objA, objB, colliderA, colliderB, triggerA, triggerB);
+                // Handle the collision based on collider types and response settings
+                handleCollision(objA, objB, colliderA, colliderB, triggerA, triggerB, contacts.getResult(c), persisted);
             }
         }
+        endContacts(previous, cursor, previous.size());
     }
 
     /**
-     * Check if two layers can collide with each other
+     * Tell the objects of a range of last frame's contacts that they no longer touch
      */
-    private boolean canLayersCollide(int layer1, int layer2) {
-        CollisionLayer l1 = getLayer(layer1);
-        CollisionLayer l2 = getLayer(layer2);
-
-        if (l1 == null || l2 == null) {
-            return false;
+    private void endContacts(ContactCache cache, int from, int to) {
+        for (int c = from; c < to; c++) {
+            GameObject objA = cache.getObjectA(c);
+            GameObject objB = cache.getObjectB(c);
+            if (cache.isTrigger(c)) {
+                if (cache.isTriggerA(c) && objA instanceof Collidable) {
+                    ((Collidable) objA).onTriggerExit(objB);
+                }
+                if (cache.isTriggerB(c) && objB instanceof Collidable) {
+                    ((Collidable) objB).onTriggerExit(objA);
+                }
+            } else {
+                if (objA instanceof Collidable) {
+                    ((Collidable) objA).onCollisionExit(objB);
+                }
+                if (objB instanceof Collidable) {
+                    ((Collidable) objB).onCollisionExit(objA);
+                }
+            }
         }
-
-        return l1.canCollideWith(layer2);
     }
 
     /**
      * Check for collision between two colliders
+     * @param result Filled in with the details of the collision
+     * @return True if they collide
      */
-    private CollisionResult checkCollision(Collider a, Collider b) {
+    private boolean checkCollision(Collider a, Collider b, CollisionResult result) {
         // Find the appropriate handler for these collider types
         CollisionHandler handler = findCollisionHandler(a.getClass(), b.getClass());
 
         if (handler != null) {
             // Use the specialized handler
-            return handler.checkCollision(a, b);
+            CollisionResult handled = handler.checkCollision(a, b);
+            if (handled == null || !handled.isColliding()) {
+                return false;
+            }
+            result.set(handled);
+            return true;
         } else {
             // Use the default handler based on collider types
             if (a instanceof BoxCollider && b instanceof BoxCollider) {
-                return checkBoxToBoxCollision((BoxCollider) a, (BoxCollider) b);
+                return checkBoxToBoxCollision((BoxCollider) a, (BoxCollider) b, result);
             } else if (a instanceof CircleCollider && b instanceof CircleCollider) {
-                return checkCircleToCircleCollision((CircleCollider) a, (CircleCollider) b);
+                return checkCircleToCircleCollision((CircleCollider) a, (CircleCollider) b, result);
             } else if (a instanceof BoxCollider && b instanceof CircleCollider) {
-                return checkBoxToCircleCollision((BoxCollider) a, (CircleCollider) b);
+                return checkBoxToCircleCollision((BoxCollider) a, (CircleCollider) b, result);
             } else if (a instanceof CircleCollider && b instanceof BoxCollider) {
-                CollisionResult result = checkBoxToCircleCollision((BoxCollider) b, (CircleCollider) a);
+                if (!checkBoxToCircleCollision((BoxCollider) b, (CircleCollider) a, result)) {
+                    return false;
+                }
                 result.flipDirection(); // Flip the direction since we swapped the order
-                return result;
+                return true;
             }
 
             // Unsupported collision types
-            return new CollisionResult(false);
+            return false;
         }
     }
 
     /**
-     * Handle a collision between two objects
+     * Check whether two colliders that do not overlap now met during this update because one of
+     * them is a bullet, by sweeping A's motion relative to B against B's current position
+     * @param sweep Scratch test of the calling thread
+     * @param result Filled in with the normal from A to B and the contact at the time of impact
+     * @return True if they met
      */
-    private void handleCollision(Collision collision) {
-        GameObject objA = collision.getObjectA();
-        GameObject objB = collision.getObjectB();
-        Collider colliderA = collision.getColliderA();
-        Collider colliderB = collision.getColliderB();
-        CollisionResult result = collision.getResult();
+    private boolean checkSweptCollision(int i, int j, Collider a, Collider b, SweepTest sweep, CollisionResult result) {
+        float moveX = proxyMoveX[i] - proxyMoveX[j];
+        float moveY = proxyMoveY[i] - proxyMoveY[j];
+        if (moveX == 0 && moveY == 0) {
+            return false;
+        }
+
+        // Centre and half extents of A at the end of the motion
+        float centerX;
+        float centerY;
+        float extentX;
+        float extentY;
+        if (a instanceof CircleCollider) {
+            CircleCollider circle = (CircleCollider) a;
+            float radius = circle.getRadius();
+            centerX = circle.getX() + radius;
+            centerY = circle.getY() + radius;
+            extentX = radius;
+            extentY = radius;
+            if (b instanceof CircleCollider) {
+                CircleCollider other = (CircleCollider) b;
+                if (!sweep.circleCircle(centerX - moveX, centerY - moveY, radius, moveX, moveY,
+                        other.getX() + other.getRadius(), other.getY() + other.getRadius(), other.getRadius())) {
+                    return false;
+                }
+            } else if (b instanceof BoxCollider) {
+                BoxCollider box = (BoxCollider) b;
+                if (!sweep.circleBox(centerX - moveX, centerY - moveY, radius, moveX, moveY,
+                        box.getX(), box.getY(), box.getX() + box.getWidth(), box.getY() + box.getHeight())) {
+                    return false;
+                }
+            } else {
+                return false;
+            }
+        } else if (a instanceof BoxCollider) {
+            BoxCollider box = (BoxCollider) a;
+            extentX = box.getWidth() / 2;
+            extentY = box.getHeight() / 2;
+            centerX = box.getX() + extentX;
+            centerY = box.getY() + extentY;
+            if (b instanceof BoxCollider) {
+                BoxCollider other = (BoxCollider) b;
+                if (!sweep.boxBox(box.getX() - moveX, box.getY() - moveY, box.getWidth(), box.getHeight(), moveX, moveY,
+                        other.getX(), other.getY(), other.getX() + other.getWidth(), other.getY() + other.getHeight())) {
+                    return false;
+                }
+            } else if (b instanceof CircleCollider) {
+                // Relative to the box the circle moves the other way; sweep it and flip the normal
+                CircleCollider other = (CircleCollider) b;
+                float radius = other.getRadius();
+                if (!sweep.circleBox(other.getX() + radius + moveX, other.getY() + radius + moveY, radius, -moveX, -moveY,
+                        box.getX(), box.getY(), box.getX() + box.getWidth(), box.getY() + box.getHeight())) {
+                    return false;
+                }
+                sweep.normalX = -sweep.normalX;
+                sweep.normalY = -sweep.normalY;
+            } else {
+                return false;
+            }
+        } else {
+            return false;
+        }
 
+        // Depth is how far A would have pushed into B by the end of the motion
+        float remaining = 1 - sweep.time;
+        float depth = remaining * (moveX * sweep.normalX + moveY * sweep.normalY);
+        float impactX = centerX - moveX * remaining;
+        float impactY = centerY - moveY * remaining;
+        result.set(sweep.normalX, sweep.normalY, depth,
+                impactX + sweep.normalX * extentX, impactY + sweep.normalY * extentY);
+        return true;
+    }
+
+    /**
+     * Handle a collision between two objects.
+     * The result is reused next frame, so callbacks must copy what they want to keep.
+     * @param triggerA Whether collider A is a trigger for this contact
+     * @param triggerB Whether collider B is a trigger for this contact
+     * @param persisted Whether the objects already touched last frame
+     */
+    private void handleCollision(GameObject objA, GameObject objB, Collider colliderA, Collider colliderB,
+                                 boolean triggerA, boolean triggerB, CollisionResult result, boolean persisted) {
         // Skip if either collider is a trigger
-        if (colliderA.isTrigger() || colliderB.isTrigger()) {
+        if (triggerA || triggerB) {
             // Handle trigger events
-            if (colliderA.isTrigger()) {
+            if (triggerA) {
                 if (objA instanceof Collidable) {
-                    ((Collidable) objA).onTriggerEnter(objB, result);
+                    notifyTrigger((Collidable) objA, objB, result, persisted);
                 }
             }
-            if (colliderB.isTrigger()) {
+            if (triggerB) {
                 if (objB instanceof Collidable) {
-                    ((Collidable) objB).onTriggerEnter(objA, result);
+                    notifyTrigger((Collidable) objB, objA, result, persisted);
                 }
             }
             return;
@@ -299,30 +929,43 @@ public class CollisionSystem {
 
         // Calculate response
         if (responseStrength > 0 && result.isColliding()) {
-            resolveCollision(collision);
+            resolveCollision(objA, objB, colliderA, colliderB, result);
         }
 
         // Notify objects of collision
         if (objA instanceof Collidable) {
-            ((Collidable) objA).onCollision(objB, result);
+            notifyCollision((Collidable) objA, objB, result, persisted);
         }
 
         if (objB instanceof Collidable) {
             // Flip the direction for the second object
-            CollisionResult flippedResult = new CollisionResult(result);
+            flippedResult.set(result);
             flippedResult.flipDirection();
-            ((Collidable) objB).onCollision(objA, flippedResult);
+            notifyCollision((Collidable) objB, objA, flippedResult, persisted);
+        }
+    }
+
+    private static void notifyCollision(Collidable target, GameObject other, CollisionResult result, boolean persisted) {
+        if (persisted) {
+            target.onCollisionStay(other, result);
+        } else {
+            target.onCollision(other, result);
+        }
+    }
+
+    private static void notifyTrigger(Collidable target, GameObject other, CollisionResult result, boolean persisted) {
+        if (persisted) {
+            target.onTriggerStay(other, result);
+        } else {
+            target.onTriggerEnter(other, result);
         }
     }
 
     /**
      * Resolve a collision by moving objects apart
      */
-    private void resolveCollision(Collision collision) {
-        GameObject objA = collision.getObjectA();
-        GameObject objB = collision.getObjectB();
-        CollisionResult result = collision.getResult();
-
+    private void resolveCollision(GameObject objA, GameObject objB, Collider colliderA, Collider colliderB,
+                                  CollisionResult result) {
         if (!result.isColliding() || result.getDepth() <= 0) {
             return;
         }
@@ -330,8 +973,8 @@ public class CollisionSystem {
         // Calculate response weights based on mass or if the object is static
         float massA = 1.0f;
         float massB = 1.0f;
-        boolean isAStatic = isStatic(objA);
-        boolean isBStatic = isStatic(objB);
+        boolean isAStatic = isStatic(objA) || isStaticCollider(colliderA);
+        boolean isBStatic = isStatic(objB) || isStaticCollider(colliderB);
 
         if (objA instanceof PhysicsObject) {
             massA = ((PhysicsObject) objA).getMass();
@@ -352,19 +995,21 @@ public class CollisionSystem {
         float ratioB = isBStatic ? 0 : (massA / totalMass);
 
         // Apply the movement - scale by responseStrength
-        Vector2f mtv = result.getNormal().mul(result.getDepth() * responseStrength);
+        float scale = result.getDepth() * responseStrength;
+        float mtvX = result.getNormal().x * scale;
+        float mtvY = result.getNormal().y * scale;
 
         if (!isAStatic && objA instanceof PhysicsObject) {
             ((PhysicsObject) objA).applyImpulse(
-                    mtv.x * -ratioA,
-                    mtv.y * -ratioA
+                    mtvX * -ratioA,
+                    mtvY * -ratioA
             );
         }
 
         if (!isBStatic && objB instanceof PhysicsObject) {
             ((PhysicsObject) objB).applyImpulse(
-                    mtv.x * ratioB,
-                    mtv.y * ratioB
+                    mtvX * ratioB,
+                    mtvY * ratioB
             );
         }
     }
@@ -384,26 +1029,47 @@ public class CollisionSystem {
     }
 
     /**
-     * Find a collision handler for two collider types
+     * Check if a collider was registered as static
+     */
+    private boolean isStaticCollider(Collider collider) {
+        return collider.proxy >= 0 && proxyStatic[collider.proxy];
+    }
+
+    /**
+     * Find a collision handler for two collider types, remembering the answer per type pair
      */
     private CollisionHandler findCollisionHandler(Class<? extends Collider> type1, Class<? extends Collider> type2) {
+        if (collisionHandlers.isEmpty()) {
+            return null;
+        }
+
+        Map<Class<?>, CollisionHandler> byType2 = handlerCache.get(type1);
+        if (byType2 == null) {
+            byType2 = new HashMap<>();
+            handlerCache.put(type1, byType2);
+        }
+        // Misses are cached as null values
+        if (byType2.containsKey(type2)) {
+            return byType2.get(type2);
+        }
+
         // Try direct match
         CollisionPair directPair = new CollisionPair(type1, type2);
         CollisionHandler handler = collisionHandlers.get(directPair);
 
-        if (handler != null) {
-            return handler;
+        if (handler == null) {
+            // Try reversed match
+            CollisionPair reversedPair = new CollisionPair(type2, type1);
+            handler = collisionHandlers.get(reversedPair);
         }
-
-        // Try reversed match
-        CollisionPair reversedPair = new CollisionPair(type2, type1);
-        return collisionHandlers.get(reversedPair);
+        byType2.put(type2, handler);
+        return handler;
     }
 
     /**
      * Check for collision between two box colliders
      */
-    private CollisionResult checkBoxToBoxCollision(BoxCollider a, BoxCollider b) {
+    private boolean checkBoxToBoxCollision(BoxCollider a, BoxCollider b, CollisionResult result) {
         // Get box properties
         float ax = a.getX();
         float ay = a.getY();
@@ -421,52 +1087,37 @@ public class CollisionSystem {
 
         // No collision if there's no overlap in either axis
         if (xOverlap <= 0 || yOverlap <= 0) {
-            return new CollisionResult(false);
+            return false;
         }
 
         // Determine the separation direction (minimum penetration direction)
-        Vector2f normal;
+        float normalX = 0;
+        float normalY = 0;
         float depth;
+        float centerAx = ax + aWidth / 2;
+        float centerAy = ay + aHeight / 2;
+        float centerBx = bx + bWidth / 2;
+        float centerBy = by + bHeight / 2;
 
         if (xOverlap < yOverlap) {
             depth = xOverlap;
-
-            // Calculate the normal direction (which way to push out)
-            float centerA = ax + aWidth / 2;
-            float centerB = bx + bWidth / 2;
-
-            if (centerA < centerB) {
-                normal = new Vector2f(-1, 0); // Push A to the left
-            } else {
-                normal = new Vector2f(1, 0);  // Push A to the right
-            }
+            // Push A to the left or right
+            normalX = centerAx < centerBx ? -1 : 1;
         } else {
             depth = yOverlap;
-
-            // Calculate the normal direction (which way to push out)
-            float centerA = ay + aHeight / 2;
-            float centerB = by + bHeight / 2;
-
-            if (centerA < centerB) {
-                normal = new Vector2f(0, -1); // Push A upward
-            } else {
-                normal = new Vector2f(0, 1);  // Push A downward
-            }
+            // Push A upward or downward
+            normalY = centerAy < centerBy ? -1 : 1;
         }
 
-        // Create the collision result
-        CollisionResult result = new CollisionResult(true);
-        result.setNormal(normal);
-        result.setDepth(depth);
-        result.setContactPoint(calculateContactPoint(a, b, normal));
-
-        return result;
+        // The contact point is estimated as the midpoint between the centers
+        result.set(normalX, normalY, depth, (centerAx + centerBx) / 2, (centerAy + centerBy) / 2);
+        return true;
     }
 
     /**
      * Check for collision between two circle colliders
      */
-    private CollisionResult checkCircleToCircleCollision(CircleCollider a, CircleCollider b) {
+    private boolean checkCircleToCircleCollision(CircleCollider a, CircleCollider b, CollisionResult result) {
         // Get circle properties
         float ax = a.getX() + a.getRadius();
         float ay = a.getY() + a.getRadius();
@@ -484,42 +1135,37 @@ public class CollisionSystem {
 
         // No collision if distance is greater than sum of radii
         if (distanceSquared >= radiusSum * radiusSum) {
-            return new CollisionResult(false);
+            return false;
         }
 
         // Calculate actual distance
         float distance = (float) Math.sqrt(distanceSquared);
 
         // Create normal and contact point
-        Vector2f normal;
+        float normalX;
+        float normalY;
         if (distance > 0) {
-            normal = new Vector2f(dx / distance, dy / distance);
+            normalX = dx / distance;
+            normalY = dy / distance;
         } else {
             // Circles are at the same position, pick an arbitrary direction
-            normal = new Vector2f(1, 0);
+            normalX = 1;
+            normalY = 0;
         }
 
         float depth = radiusSum - distance;
 
         // Calculate contact point (halfway between perimeters)
-        Vector2f contactPoint = new Vector2f(
-                ax + normal.x * aRadius - normal.x * depth / 2,
-                ay + normal.y * aRadius - normal.y * depth / 2
-        );
-
-        // Create collision result
-        CollisionResult result = new CollisionResult(true);
-        result.setNormal(normal);
-        result.setDepth(depth);
-        result.setContactPoint(contactPoint);
-
-        return result;
+        result.set(normalX, normalY, depth,
+                ax + normalX * aRadius - normalX * depth / 2,
+                ay + normalY * aRadius - normalY * depth / 2);
+        return true;
     }
 
     /**
      * Check for collision between a box and a circle collider
      */
-    private CollisionResult checkBoxToCircleCollision(BoxCollider box, CircleCollider circle) {
+    private boolean checkBoxToCircleCollision(BoxCollider box, CircleCollider circle, CollisionResult result) {
         // Get box properties
         float boxLeft = box.getX();
         float boxTop = box.getY();
@@ -542,16 +1188,18 @@ public class CollisionSystem {
 
         // No collision if distance is greater than radius
         if (distanceSquared > radius * radius) {
-            return new CollisionResult(false);
+            return false;
         }
 
         // Calculate normal and depth
-        Vector2f normal;
+        float normalX;
+        float normalY;
         float depth;
 
         if (distanceSquared > 0) {
             float distance = (float) Math.sqrt(distanceSquared);
-            normal = new Vector2f(dx / distance, dy / distance);
+            normalX = dx / distance;
+            normalY = dy / distance;
             depth = radius - distance;
         } else {
             // Circle center is inside the box, find the closest edge
@@ -562,65 +1210,27 @@ public class CollisionSystem {
 
             // Find the smallest distance
             if (left <= right && left <= top && left <= bottom) {
-                normal = new Vector2f(-1, 0);
+                normalX = -1;
+                normalY = 0;
                 depth = left + radius;
             } else if (right <= left && right <= top && right <= bottom) {
-                normal = new Vector2f(1, 0);
+                normalX = 1;
+                normalY = 0;
                 depth = right + radius;
             } else if (top <= left && top <= right && top <= bottom) {
-                normal = new Vector2f(0, -1);
+                normalX = 0;
+                normalY = -1;
                 depth = top + radius;
             } else {
-                normal = new Vector2f(0, 1);
+                normalX = 0;
+                normalY = 1;
                 depth = bottom + radius;
             }
         }
 
         // Calculate contact point
-        Vector2f contactPoint = new Vector2f(
-                circleX - normal.x * radius,
-                circleY - normal.y * radius
-        );
-
-        // Create collision result
-        CollisionResult result = new CollisionResult(true);
-        result.setNormal(normal);
-        result.setDepth(depth);
-        result.setContactPoint(contactPoint);
-
-        return result;
-    }
-
-    /**
-     * Calculate a contact point between two colliders
-     */
-    private Vector2f calculateContactPoint(Collider a, Collider b, Vector2f normal) {
-        // This is a simplified contact point calculation
-        // For more accurate physics, you might want a more sophisticated approach
-
-        if (a instanceof BoxCollider && b instanceof BoxCollider) {
-            BoxCollider boxA = (BoxCollider) a;
-            BoxCollider boxB = (BoxCollider) b;
-
-            // Calculate centers
-            float centerAx = boxA.getX() + boxA.getWidth() / 2;
-            float centerAy = boxA.getY() + boxA.getHeight() / 2;
-            float centerBx = boxB.getX() + boxB.getWidth() / 2;
-            float centerBy = boxB.getY() + boxB.getHeight() / 2;
-
-            // Calculate midpoint as a simple estimate
-            return new Vector2f(
-                    (centerAx + centerBx) / 2,
-                    (centerAy + centerBy) / 2
-            );
-        }
-
-        // For other collider combinations, calculate based on position and normal
-        // (This is a simplification)
-        return new Vector2f(
-                a.getPosition().x + normal.x * a.getBounds().getWidth() / 2,
-                a.getPosition().y + normal.y * a.getBounds().getHeight() / 2
-        );
+        result.set(normalX, normalY, depth, circleX - normalX * radius, circleY - normalY * radius);
+        return true;
     }
 
     /**
@@ -651,12 +1261,260 @@ public class CollisionSystem {
         this.responseStrength = Math.max(0, Math.min(1, responseStrength));
     }
 
+    /**
+     * Check whether bullet colliders are tested along their whole path each update
+     */
+    public boolean isContinuousDetection() {
+        return continuousDetection;
+    }
+
+    /**
+     * Set whether colliders flagged as bullets are tested along their whole path each update, so
+     * fast projectiles do not pass through thin colliders on long frames
+     */
+    public void setContinuousDetection(boolean continuousDetection) {
+        this.continuousDetection = continuousDetection;
+    }
+
+    /**
+     * Check whether the narrowphase is split across worker threads
+     */
+    public boolean isParallelNarrowphase() {
+        return parallelNarrowphase;
+    }
+
+    /**
+     * Set whether the narrowphase runs on worker threads when there are enough candidate pairs.
+     * Collision responses and callbacks still run on the updating thread, in the same order either way.
+     * While custom collision handlers are registered the narrowphase stays on the updating thread.
+     */
+    public void setParallelNarrowphase(boolean parallelNarrowphase) {
+        this.parallelNarrowphase = parallelNarrowphase;
+    }
+
+    public int getMinPairsPerBatch() {
+        return minPairsPerBatch;
+    }
+
+    /**
+     * Set how many candidate pairs each worker must have before the narrowphase is split
+     */
+    public void setMinPairsPerBatch(int minPairsPerBatch) {
+        if (minPairsPerBatch < 1) {
+            throw new IllegalArgumentException("A batch needs at least one pair");
+        }
+        this.minPairsPerBatch = minPairsPerBatch;
+    }
+
     /**
      * Cleanup resources
      */
     public void cleanup() {
+        for (Collider collider : colliders.values()) {
+            if (collider != null) {
+                releaseProxy(collider);
+            }
+        }
+        for (Collider collider : staticColliders.values()) {
+            if (collider != null) {
+                releaseProxy(collider);
+            }
+        }
         colliders.clear();
+        staticColliders.clear();
         collisionLayers.clear();
+        Arrays.fill(layersById, null);
+        Arrays.fill(layerMasks, 0);
         collisionHandlers.clear();
+        handlerCache.clear();
+        previousContacts.clear();
+        currentContacts.clear();
+        if (workerPool != null) {
+            workerPool.shutdown();
+            workerPool = null;
+        }
+    }
+
+    /**
+     * Runs the narrowphase over a range of the candidate pairs, with its own contact buffer and scratch
+     * state so batches can run on different threads
+     */
+    private final class NarrowphaseBatch implements Runnable {
+        final ContactBuffer contacts = new ContactBuffer();
+        final SweepTest sweepTest = new SweepTest();
+        int from;
+        int to;
+
+        @Override
+        public void run() {
+            contacts.clear();
+            for (int p = from; p < to; p++) {
+                int i = candidatePairs.getA(p);
+                int j = candidatePairs.getB(p);
+                Collider colliderA = proxyColliders[i];
+                Collider colliderB = proxyColliders[j];
+
+                // Inactive colliders stay in the broadphase but do not collide
+                if (!colliderA.isActive() || !colliderB.isActive()) {
+                    continue;
+                }
+
+                CollisionResult result = contacts.next();
+                if (checkCollision(colliderA, colliderB, result)
+                        || (continuousDetection && checkSweptCollision(i, j, colliderA, colliderB, sweepTest, result))) {
+                    contacts.commit(i, j, colliderA, colliderB);
+                }
+            }
+        }
+    }
+
+    /**
+     * Collects the objects of active colliders found by an area query
+     */
+    private final class AreaQuery implements Broadphase.QueryCallback {
+        Collection<? super GameObject> results;
+        int count;
+
+        @Override
+        public boolean report(int proxy) {
+            if (proxyColliders[proxy].isActive()) {
+                results.add(proxyObjects[proxy]);
+                count++;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Collects the active colliders on the query's layers whose shape overlaps a circle or box
+     */
+    private final class OverlapQuery implements Broadphase.QueryCallback {
+        HitBuffer hits;
+        long layerMask;
+        float centerX;
+        float centerY;
+        // Negative when the query is the box itself
+        float radius;
+        float minX;
+        float minY;
+        float maxX;
+        float maxY;
+
+        @Override
+        public boolean report(int proxy) {
+            Collider collider = proxyColliders[proxy];
+            if (collider.isActive() && (layerBit(collider) & layerMask) != 0 && overlaps(collider)) {
+                hits.add(proxyObjects[proxy], collider);
+            }
+            return true;
+        }
+
+        private boolean overlaps(Collider collider) {
+            if (collider instanceof CircleCollider) {
+                // The built-in checks place circles by their top-left corner
+                CircleCollider circle = (CircleCollider) collider;
+                float circleRadius = circle.getRadius();
+                float circleX = circle.getX() + circleRadius;
+                float circleY = circle.getY() + circleRadius;
+                if (radius >= 0) {
+                    float dx = circleX - centerX;
+                    float dy = circleY - centerY;
+                    float reach = radius + circleRadius;
+                    return dx * dx + dy * dy <= reach * reach;
+                }
+                return circleOverlapsBox(circleX, circleY, circleRadius, minX, minY, maxX, maxY);
+            }
+
+            computeBounds(collider);
+            if (radius >= 0) {
+                return circleOverlapsBox(centerX, centerY, radius, boundsMinX, boundsMinY, boundsMaxX, boundsMaxY);
+            }
+            return boundsMinX <= maxX && boundsMaxX >= minX && boundsMinY <= maxY && boundsMaxY >= minY;
+        }
+    }
+
+    private static boolean circleOverlapsBox(float centerX, float centerY, float radius,
+                                             float minX, float minY, float maxX, float maxY) {
+        float dx = centerX - Math.max(minX, Math.min(centerX, maxX));
+        float dy = centerY - Math.max(minY, Math.min(centerY, maxY));
+        return dx * dx + dy * dy <= radius * radius;
+    }
+
+    /**
+     * Collects the active colliders on the query's layers that a ray or moving circle hits, by time of impact
+     */
+    private final class ShapeCast implements Broadphase.QueryCallback, Broadphase.RaycastCallback {
+        final SweepTest sweep = new SweepTest();
+        HitBuffer hits;
+        long layerMask;
+        float originX;
+        float originY;
+        // Zero for rays
+        float radius;
+        float moveX;
+        float moveY;
+        float maxDistance;
+
+        @Override
+        public boolean report(int proxy) {
+            test(proxy);
+            return true;
+        }
+
+        @Override
+        public float report(int proxy, float distance) {
+            // Every hit is wanted, so keep the maximum distance
+            test(proxy);
+            return -1;
+        }
+
+        private void test(int proxy) {
+            Collider collider = proxyColliders[proxy];
+            if (!collider.isActive() || (layerBit(collider) & layerMask) == 0 || !sweep(collider)) {
+                return;
+            }
+
+            // The sweep's normal points into the shape; report the surface normal facing back
+            float impactX = originX + moveX * sweep.time;
+            float impactY = originY + moveY * sweep.time;
+            hits.add(proxyObjects[proxy], collider, sweep.time * maxDistance,
+                    impactX + sweep.normalX * radius, impactY + sweep.normalY * radius,
+                    -sweep.normalX, -sweep.normalY);
+        }
+
+        private boolean sweep(Collider collider) {
+            if (collider instanceof CircleCollider) {
+                CircleCollider circle = (CircleCollider) collider;
+                float circleRadius = circle.getRadius();
+                return sweep.circleCircle(originX, originY, radius, moveX, moveY,
+                        circle.getX() + circleRadius, circle.getY() + circleRadius, circleRadius);
+            }
+
+            computeBounds(collider);
+            if (radius == 0) {
+                // A ray is a sweep of a box with no size, which avoids the rounded corners
+                return sweep.boxBox(originX, originY, 0, 0, moveX, moveY, boundsMinX, boundsMinY, boundsMaxX, boundsMaxY);
+            }
+            return sweep.circleBox(originX, originY, radius, moveX, moveY, boundsMinX, boundsMinY, boundsMaxX, boundsMaxY);
+        }
+    }
+
+    /**
+     * Keeps the nearest active collider hit by a ray
+     */
+    private final class NearestRaycast implements Broadphase.RaycastCallback {
+        int nearest;
+        float nearestDistance;
+
+        @Override
+        public float report(int proxy, float distance) {
+            if (!proxyColliders[proxy].isActive() || distance >= nearestDistance) {
+                return -1;
+            }
+            nearest = proxy;
+            nearestDistance = distance;
+            // Only closer hits are of interest now
+            return distance;
+        }
     }
-}
\ No newline at end of file
+}
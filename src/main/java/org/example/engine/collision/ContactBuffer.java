@@ -0,0 +1,79 @@
+package org.example.engine.collision;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of narrowphase hits: the two proxies, their colliders and a pooled CollisionResult per hit.
+ * Results are reused from frame to frame, so steady-state collision allocates nothing.
+ * Colliders are kept alongside the proxies because callbacks may free a proxy id and reuse it
+ * before every hit of the frame has been dispatched.
+ */
+final class ContactBuffer {
+    private int[] proxyA = new int[64];
+    private int[] proxyB = new int[64];
+    private Collider[] collidersA = new Collider[64];
+    private Collider[] collidersB = new Collider[64];
+    private CollisionResult[] results = new CollisionResult[64];
+    private int size = 0;
+
+    /**
+     * Get the result to fill in for the next hit; it only counts once commit is called
+     */
+    CollisionResult next() {
+        if (size == results.length) {
+            proxyA = Arrays.copyOf(proxyA, size * 2);
+            proxyB = Arrays.copyOf(proxyB, size * 2);
+            collidersA = Arrays.copyOf(collidersA, size * 2);
+            collidersB = Arrays.copyOf(collidersB, size * 2);
+            results = Arrays.copyOf(results, size * 2);
+        }
+        CollisionResult result = results[size];
+        if (result == null) {
+            result = new CollisionResult(false);
+            results[size] = result;
+        }
+        return result;
+    }
+
+    /**
+     * Keep the result returned by the last call to next as a hit between two proxies
+     */
+    void commit(int a, int b, Collider colliderA, Collider colliderB) {
+        proxyA[size] = a;
+        proxyB[size] = b;
+        collidersA[size] = colliderA;
+        collidersB[size] = colliderB;
+        size++;
+    }
+
+    int getProxyA(int contact) {
+        return proxyA[contact];
+    }
+
+    int getProxyB(int contact) {
+        return proxyB[contact];
+    }
+
+    Collider getColliderA(int contact) {
+        return collidersA[contact];
+    }
+
+    Collider getColliderB(int contact) {
+        return collidersB[contact];
+    }
+
+    CollisionResult getResult(int contact) {
+        return results[contact];
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        // Do not keep unregistered colliders reachable
+        Arrays.fill(collidersA, 0, size, null);
+        Arrays.fill(collidersB, 0, size, null);
+        size = 0;
+    }
+}
@@ -0,0 +1,120 @@
+package org.example.engine.collision;
+
+import org.example.engine.GameObject;
+
+import java.util.Arrays;
+
+/**
+ * The contacts of one frame, sorted by packed proxy pair, so the next frame can tell which
+ * contacts began, persisted or ended by merging the two sorted lists.
+ * Colliders are kept alongside the key because proxy ids are reused after unregistering, and their
+ * trigger flags because a contact that started as a trigger must also end as one.
+ */
+final class ContactCache {
+    private long[] keys = new long[64];
+    private GameObject[] objectsA = new GameObject[64];
+    private GameObject[] objectsB = new GameObject[64];
+    private Collider[] collidersA = new Collider[64];
+    private Collider[] collidersB = new Collider[64];
+    private boolean[] triggersA = new boolean[64];
+    private boolean[] triggersB = new boolean[64];
+    private int size = 0;
+
+    /**
+     * Pack a proxy pair into a key; the smaller proxy must come first
+     */
+    static long key(int proxyA, int proxyB) {
+        return ((long) proxyA << 32) | (proxyB & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Add a contact; keys must be added in increasing order
+     */
+    void add(long key, GameObject objectA, GameObject objectB, Collider colliderA, Collider colliderB,
+             boolean triggerA, boolean triggerB) {
+        if (size == keys.length) {
+            int capacity = size * 2;
+            keys = Arrays.copyOf(keys, capacity);
+            objectsA = Arrays.copyOf(objectsA, capacity);
+            objectsB = Arrays.copyOf(objectsB, capacity);
+            collidersA = Arrays.copyOf(collidersA, capacity);
+            collidersB = Arrays.copyOf(collidersB, capacity);
+            triggersA = Arrays.copyOf(triggersA, capacity);
+            triggersB = Arrays.copyOf(triggersB, capacity);
+        }
+        keys[size] = key;
+        objectsA[size] = objectA;
+        objectsB[size] = objectB;
+        collidersA[size] = colliderA;
+        collidersB[size] = colliderB;
+        triggersA[size] = triggerA;
+        triggersB[size] = triggerB;
+        size++;
+    }
+
+    /**
+     * Find the first contact with a key of at least the given one, starting the search at an index
+     */
+    int seek(int from, long key) {
+        while (from < size && keys[from] < key) {
+            from++;
+        }
+        return from;
+    }
+
+    /**
+     * Check if a contact is between the same two colliders, neither of which switched between trigger and solid
+     */
+    boolean matches(int contact, long key, Collider colliderA, Collider colliderB, boolean triggerA, boolean triggerB) {
+        return contact < size && keys[contact] == key && collidersA[contact] == colliderA && collidersB[contact] == colliderB
+                && triggersA[contact] == triggerA && triggersB[contact] == triggerB;
+    }
+
+    long getKey(int contact) {
+        return keys[contact];
+    }
+
+    GameObject getObjectA(int contact) {
+        return objectsA[contact];
+    }
+
+    GameObject getObjectB(int contact) {
+        return objectsB[contact];
+    }
+
+    Collider getColliderA(int contact) {
+        return collidersA[contact];
+    }
+
+    Collider getColliderB(int contact) {
+        return collidersB[contact];
+    }
+
+    /**
+     * Check if either collider was a trigger when the contact was made
+     */
+    boolean isTrigger(int contact) {
+        return triggersA[contact] || triggersB[contact];
+    }
+
+    boolean isTriggerA(int contact) {
+        return triggersA[contact];
+    }
+
+    boolean isTriggerB(int contact) {
+        return triggersB[contact];
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        // Do not keep removed objects reachable
+        Arrays.fill(objectsA, 0, size, null);
+        Arrays.fill(objectsB, 0, size, null);
+        Arrays.fill(collidersA, 0, size, null);
+        Arrays.fill(collidersB, 0, size, null);
+        size = 0;
+    }
+}
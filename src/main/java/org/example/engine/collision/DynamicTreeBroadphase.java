@@ -0,0 +1,198 @@
+package org.example.engine.collision;
+
+import java.util.Arrays;
+
+/**
+ * Broadphase built on two bounding volume trees: one for moving colliders, whose leaves are
+ * fattened by a margin so small movements do not restructure the tree, and one for static
+ * colliders such as terrain. Only moving colliders look for pairs, in both trees, so two static
+ * colliders are never tested against each other.
+ * <p>
+ * Area queries and raycasts descend the same trees and only report colliders whose exact bounds match.
+ */
+public class DynamicTreeBroadphase implements Broadphase {
+    private static final float DEFAULT_MARGIN = 8.0f;
+
+    // Exact bounds; the trees hold the fattened ones
+    private final ProxyStore proxies = new ProxyStore();
+    private final AabbTree dynamicTree = new AabbTree();
+    private final AabbTree staticTree = new AabbTree();
+    private int[] leaves = new int[64];
+    private final float margin;
+
+    // Reused callbacks that check exact bounds before passing proxies on
+    private final PairCollector pairCollector = new PairCollector();
+    private final ExactQuery exactQuery = new ExactQuery();
+    private final ExactRaycast exactRaycast = new ExactRaycast();
+
+    public DynamicTreeBroadphase() {
+        this(DEFAULT_MARGIN);
+    }
+
+    /**
+     * Create a broadphase whose moving colliders can drift this far before their leaf is reinserted
+     */
+    public DynamicTreeBroadphase(float margin) {
+        if (margin < 0) {
+            throw new IllegalArgumentException("Margin cannot be negative");
+        }
+        this.margin = margin;
+    }
+
+    public float getMargin() {
+        return margin;
+    }
+
+    @Override
+    public void add(int proxy, float minX, float minY, float maxX, float maxY, boolean isStatic) {
+        proxies.add(proxy, minX, minY, maxX, maxY, isStatic);
+        if (proxy >= leaves.length) {
+            leaves = Arrays.copyOf(leaves, Math.max(proxy + 1, leaves.length * 2));
+        }
+        // Static colliders do not move, so their boxes need no margin
+        leaves[proxy] = isStatic
+                ? staticTree.createLeaf(proxy, minX, minY, maxX, maxY, 0)
+                : dynamicTree.createLeaf(proxy, minX, minY, maxX, maxY, margin);
+    }
+
+    @Override
+    public void setFilter(int proxy, long category, long mask) {
+        proxies.category[proxy] = category;
+        proxies.mask[proxy] = mask;
+    }
+
+    @Override
+    public void update(int proxy, float minX, float minY, float maxX, float maxY) {
+        proxies.set(proxy, minX, minY, maxX, maxY);
+        if (proxies.isStatic[proxy]) {
+            staticTree.moveLeaf(leaves[proxy], minX, minY, maxX, maxY, 0);
+        } else {
+            dynamicTree.moveLeaf(leaves[proxy], minX, minY, maxX, maxY, margin);
+        }
+    }
+
+    @Override
+    public void remove(int proxy) {
+        if (!proxies.contains(proxy)) {
+            return;
+        }
+        if (proxies.isStatic[proxy]) {
+            staticTree.destroyLeaf(leaves[proxy]);
+        } else {
+            dynamicTree.destroyLeaf(leaves[proxy]);
+        }
+        proxies.remove(proxy);
+    }
+
+    @Override
+    public void clear() {
+        proxies.clear();
+        dynamicTree.clear();
+        staticTree.clear();
+    }
+
+    @Override
+    public void findPairs(PairBuffer pairs) {
+        PairCollector collector = pairCollector;
+        collector.pairs = pairs;
+        int[] live = proxies.live;
+        for (int i = 0; i < proxies.liveCount; i++) {
+            int proxy = live[i];
+            if (proxies.isStatic[proxy]) {
+                continue;
+            }
+            float minX = proxies.minX[proxy];
+            float minY = proxies.minY[proxy];
+            float maxX = proxies.maxX[proxy];
+            float maxY = proxies.maxY[proxy];
+            collector.proxy = proxy;
+            // Moving pairs are found from both sides, so only the lower id reports them
+            collector.lowerOnly = true;
+            dynamicTree.query(minX, minY, maxX, maxY, collector);
+            collector.lowerOnly = false;
+            staticTree.query(minX, minY, maxX, maxY, collector);
+        }
+        collector.pairs = null;
+    }
+
+    @Override
+    public void query(float minX, float minY, float maxX, float maxY, QueryCallback callback) {
+        ExactQuery query = exactQuery;
+        query.callback = callback;
+        query.minX = minX;
+        query.minY = minY;
+        query.maxX = maxX;
+        query.maxY = maxY;
+        if (dynamicTree.query(minX, minY, maxX, maxY, query)) {
+            staticTree.query(minX, minY, maxX, maxY, query);
+        }
+        query.callback = null;
+    }
+
+    @Override
+    public void raycast(float originX, float originY, float directionX, float directionY, float maxDistance,
+                        RaycastCallback callback) {
+        ExactRaycast raycast = exactRaycast;
+        raycast.callback = callback;
+        raycast.originX = originX;
+        raycast.originY = originY;
+        raycast.directionX = directionX;
+        raycast.directionY = directionY;
+        raycast.maxDistance = maxDistance;
+        float remaining = dynamicTree.raycast(originX, originY, directionX, directionY, maxDistance, raycast);
+        if (remaining > 0) {
+            staticTree.raycast(originX, originY, directionX, directionY, remaining, raycast);
+        }
+        raycast.callback = null;
+    }
+
+    private final class PairCollector implements QueryCallback {
+        PairBuffer pairs;
+        int proxy;
+        boolean lowerOnly;
+
+        @Override
+        public boolean report(int other) {
+            if (other != proxy && (!lowerOnly || proxy < other) && proxies.canPair(proxy, other)) {
+                pairs.add(proxy, other);
+            }
+            return true;
+        }
+    }
+
+    private final class ExactQuery implements QueryCallback {
+        QueryCallback callback;
+        float minX;
+        float minY;
+        float maxX;
+        float maxY;
+
+        @Override
+        public boolean report(int proxy) {
+            return !proxies.overlaps(proxy, minX, minY, maxX, maxY) || callback.report(proxy);
+        }
+    }
+
+    private final class ExactRaycast implements RaycastCallback {
+        RaycastCallback callback;
+        float originX;
+        float originY;
+        float directionX;
+        float directionY;
+        float maxDistance;
+
+        @Override
+        public float report(int proxy, float fatDistance) {
+            float distance = ProxyStore.rayDistance(originX, originY, directionX, directionY,
+                    proxies.minX[proxy], proxies.minY[proxy], proxies.maxX[proxy], proxies.maxY[proxy], maxDistance);
+            if (distance < 0) {
+                return -1;
+            }
+            float result = callback.report(proxy, distance);
+            if (result > 0) {
+                maxDistance = result;
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package org.example.engine.collision;
+
+import org.example.engine.GameObject;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of hits filled in by the CollisionSystem's raycast, overlap and sweep queries.
+ * Keep one per caller and pass it to every query; it is cleared at the start of each query and
+ * grows only when a query finds more hits than ever before, so steady-state queries allocate nothing.
+ * <p>
+ * Ray and sweep hits are sorted by distance, nearest first, and carry the surface normal at the hit
+ * point. Overlap hits have no distance, point or normal.
+ */
+public final class HitBuffer {
+    private GameObject[] objects = new GameObject[16];
+    private Collider[] colliders = new Collider[16];
+    private float[] distances = new float[16];
+    // Point on the hit surface, and its normal facing back towards the query
+    private float[] pointX = new float[16];
+    private float[] pointY = new float[16];
+    private float[] normalX = new float[16];
+    private float[] normalY = new float[16];
+    private int size = 0;
+
+    public GameObject getObject(int hit) {
+        return objects[hit];
+    }
+
+    public Collider getCollider(int hit) {
+        return colliders[hit];
+    }
+
+    /**
+     * Get the distance travelled along the query's direction before the hit
+     */
+    public float getDistance(int hit) {
+        return distances[hit];
+    }
+
+    public float getPointX(int hit) {
+        return pointX[hit];
+    }
+
+    public float getPointY(int hit) {
+        return pointY[hit];
+    }
+
+    public float getNormalX(int hit) {
+        return normalX[hit];
+    }
+
+    public float getNormalY(int hit) {
+        return normalY[hit];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Forget all hits, and the objects they refer to
+     */
+    public void clear() {
+        Arrays.fill(objects, 0, size, null);
+        Arrays.fill(colliders, 0, size, null);
+        size = 0;
+    }
+
+    /**
+     * Add a hit without a distance
+     */
+    void add(GameObject object, Collider collider) {
+        add(object, collider, 0, 0, 0, 0, 0);
+    }
+
+    /**
+     * Add a hit, keeping the hits sorted by distance
+     */
+    void add(GameObject object, Collider collider, float distance,
+             float hitPointX, float hitPointY, float hitNormalX, float hitNormalY) {
+        if (size == objects.length) {
+            int capacity = size * 2;
+            objects = Arrays.copyOf(objects, capacity);
+            colliders = Arrays.copyOf(colliders, capacity);
+            distances = Arrays.copyOf(distances, capacity);
+            pointX = Arrays.copyOf(pointX, capacity);
+            pointY = Arrays.copyOf(pointY, capacity);
+            normalX = Arrays.copyOf(normalX, capacity);
+            normalY = Arrays.copyOf(normalY, capacity);
+        }
+
+        // Queries find few hits, so shifting the farther ones up is cheaper than sorting afterwards
+        int index = size;
+        while (index > 0 && distances[index - 1] > distance) {
+            objects[index] = objects[index - 1];
+            colliders[index] = colliders[index - 1];
+            distances[index] = distances[index - 1];
+            pointX[index] = pointX[index - 1];
+            pointY[index] = pointY[index - 1];
+            normalX[index] = normalX[index - 1];
+            normalY[index] = normalY[index - 1];
+            index--;
+        }
+        objects[index] = object;
+        colliders[index] = collider;
+        distances[index] = distance;
+        pointX[index] = hitPointX;
+        pointY[index] = hitPointY;
+        normalX[index] = hitNormalX;
+        normalY[index] = hitNormalY;
+        size++;
+    }
+}
@@ -0,0 +1,52 @@
+package org.example.engine.collision;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of collider index pairs, packed into longs so it can be sorted without allocating
+ */
+public class PairBuffer {
+    private long[] pairs = new long[256];
+    private int size = 0;
+
+    /**
+     * Add a pair; the smaller index is always stored first
+     */
+    public void add(int a, int b) {
+        if (size == pairs.length) {
+            pairs = Arrays.copyOf(pairs, size * 2);
+        }
+        int low = Math.min(a, b);
+        int high = Math.max(a, b);
+        pairs[size++] = ((long) low << 32) | (high & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Get the first (smaller) index of a pair
+     */
+    public int getA(int pair) {
+        return (int) (pairs[pair] >>> 32);
+    }
+
+    /**
+     * Get the second (larger) index of a pair
+     */
+    public int getB(int pair) {
+        return (int) pairs[pair];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Sort the pairs by first index, then second, so they come out in the order of an all-pairs loop
+     */
+    public void sort() {
+        Arrays.sort(pairs, 0, size);
+    }
+}
@@ -0,0 +1,152 @@
+package org.example.engine.collision;
+
+import java.util.Arrays;
+
+/**
+ * Bounds of broadphase proxies indexed by proxy id, plus a dense list of the tracked ids
+ */
+final class ProxyStore {
+    float[] minX = new float[64];
+    float[] minY = new float[64];
+    float[] maxX = new float[64];
+    float[] maxY = new float[64];
+    boolean[] isStatic = new boolean[64];
+    // Collision filter: a pair is reported if the category of one shares a bit with the mask of the other
+    long[] category = new long[64];
+    long[] mask = new long[64];
+    // Dense list of tracked proxies and each proxy's position in it (-1 if untracked)
+    int[] live = new int[64];
+    int[] livePosition = new int[64];
+    int liveCount = 0;
+
+    ProxyStore() {
+        Arrays.fill(livePosition, -1);
+    }
+
+    void add(int proxy, float minX, float minY, float maxX, float maxY, boolean isStatic) {
+        ensureCapacity(proxy + 1);
+        if (livePosition[proxy] >= 0) {
+            throw new IllegalArgumentException("Proxy already tracked: " + proxy);
+        }
+        if (liveCount == live.length) {
+            live = Arrays.copyOf(live, liveCount * 2);
+        }
+        livePosition[proxy] = liveCount;
+        live[liveCount++] = proxy;
+        this.isStatic[proxy] = isStatic;
+        this.category[proxy] = -1L;
+        this.mask[proxy] = -1L;
+        set(proxy, minX, minY, maxX, maxY);
+    }
+
+    void set(int proxy, float minX, float minY, float maxX, float maxY) {
+        this.minX[proxy] = minX;
+        this.minY[proxy] = minY;
+        this.maxX[proxy] = maxX;
+        this.maxY[proxy] = maxY;
+    }
+
+    /**
+     * Stop tracking a proxy
+     * @return False if it was not tracked
+     */
+    boolean remove(int proxy) {
+        if (!contains(proxy)) {
+            return false;
+        }
+        // Swap the last tracked proxy into the hole
+        int position = livePosition[proxy];
+        int last = live[--liveCount];
+        live[position] = last;
+        livePosition[last] = position;
+        livePosition[proxy] = -1;
+        return true;
+    }
+
+    boolean contains(int proxy) {
+        return proxy >= 0 && proxy < livePosition.length && livePosition[proxy] >= 0;
+    }
+
+    boolean overlaps(int a, int b) {
+        return minX[a] <= maxX[b] && maxX[a] >= minX[b] && minY[a] <= maxY[b] && maxY[a] >= minY[b];
+    }
+
+    boolean overlaps(int proxy, float minX, float minY, float maxX, float maxY) {
+        return this.minX[proxy] <= maxX && this.maxX[proxy] >= minX && this.minY[proxy] <= maxY && this.maxY[proxy] >= minY;
+    }
+
+    /**
+     * Check whether a pair passes the filter; static colliders never collide with each other
+     */
+    boolean accepts(int a, int b) {
+        return (category[a] & mask[b]) != 0 && !(isStatic[a] && isStatic[b]);
+    }
+
+    /**
+     * Check whether a pair should be reported
+     */
+    boolean canPair(int a, int b) {
+        return accepts(a, b) && overlaps(a, b);
+    }
+
+    /**
+     * Get the distance along a ray at which it enters a box
+     * @param directionX Ray direction, unit length
+     * @return The distance, 0 if the origin is inside, or -1 if the box is missed within maxDistance
+     */
+    static float rayDistance(float originX, float originY, float directionX, float directionY,
+                             float minX, float minY, float maxX, float maxY, float maxDistance) {
+        float near = 0;
+        float far = maxDistance;
+        if (directionX != 0) {
+            float inverse = 1.0f / directionX;
+            float t1 = (minX - originX) * inverse;
+            float t2 = (maxX - originX) * inverse;
+            near = Math.max(near, Math.min(t1, t2));
+            far = Math.min(far, Math.max(t1, t2));
+        } else if (originX < minX || originX > maxX) {
+            return -1;
+        }
+        if (directionY != 0) {
+            float inverse = 1.0f / directionY;
+            float t1 = (minY - originY) * inverse;
+            float t2 = (maxY - originY) * inverse;
+            near = Math.max(near, Math.min(t1, t2));
+            far = Math.min(far, Math.max(t1, t2));
+        } else if (originY < minY || originY > maxY) {
+            return -1;
+        }
+        return near <= far ? near : -1;
+    }
+
+    void clear() {
+        for (int i = 0; i < liveCount; i++) {
+            livePosition[live[i]] = -1;
+        }
+        liveCount = 0;
+    }
+
+    /**
+     * Get the number of proxy ids the arrays can hold
+     */
+    int capacity() {
+        return minX.length;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= minX.length) {
+            return;
+        }
+        int oldCapacity = minX.length;
+        int newCapacity = Math.max(capacity, oldCapacity * 2);
+        minX = Arrays.copyOf(minX, newCapacity);
+        minY = Arrays.copyOf(minY, newCapacity);
+        maxX = Arrays.copyOf(maxX, newCapacity);
+        maxY = Arrays.copyOf(maxY, newCapacity);
+        isStatic = Arrays.copyOf(isStatic, newCapacity);
+        category = Arrays.copyOf(category, newCapacity);
+        mask = Arrays.copyOf(mask, newCapacity);
+        livePosition = Arrays.copyOf(livePosition, newCapacity);
+        Arrays.fill(livePosition, oldCapacity, newCapacity, -1);
+    }
+}
@@ -0,0 +1,419 @@
+package org.example.engine.collision;
+
+import java.util.Arrays;
+
+/**
+ * Broadphase that files every collider's bounds into the cells of a uniform grid and only pairs
+ * colliders that share a cell. A pair sharing several cells is reported once: only by the cell
+ * holding the top-left corner of the two boxes' overlap.
+ * <p>
+ * The grid is rebuilt on every call to findPairs, and by queries when bounds changed since; all
+ * storage is reused between calls. Raycasts walk only the cells along the ray.
+ */
+public class SpatialHashBroadphase implements Broadphase {
+    private static final int NONE = -1;
+    // Colliders covering more cells than this are paired through a brute-force list instead
+    private static final int MAX_CELLS_PER_COLLIDER = 64;
+
+    private final ProxyStore proxies = new ProxyStore();
+    private float cellSize;
+    private float inverseCellSize;
+
+    // Cell table: open addressing from cell key to the first entry of the cell
+    private long[] cellKeys = new long[1024];
+    private int[] cellHeads = new int[1024];
+    private int[] usedCells = new int[512];
+    private int usedCount = 0;
+    private boolean[] cellUsed = new boolean[1024];
+
+    // Entries: one per (collider, cell), linked per cell
+    private int[] entryColliders = new int[1024];
+    private int[] entryNext = new int[1024];
+    private int entryCount = 0;
+
+    // Colliders too large for the grid
+    private int[] largeColliders = new int[16];
+    private int largeCount = 0;
+    private boolean[] isLarge = new boolean[256];
+
+    // Cell range holding every grid collider, which bounds how far a ray is walked
+    private int gridMinX;
+    private int gridMinY;
+    private int gridMaxX;
+    private int gridMaxY;
+    // Whether bounds changed since the grid was built
+    private boolean dirty = true;
+    // Stamp of the last query that reported each proxy, so proxies spanning several cells are reported once
+    private int[] visited = new int[256];
+    private int queryStamp = 0;
+
+    /**
+     * Create a broadphase with the given cell size, ideally around the size of a typical collider
+     */
+    public SpatialHashBroadphase(float cellSize) {
+        setCellSize(cellSize);
+    }
+
+    public float getCellSize() {
+        return cellSize;
+    }
+
+    public void setCellSize(float cellSize) {
+        if (cellSize <= 0) {
+            throw new IllegalArgumentException("Cell size must be positive");
+        }
+        this.cellSize = cellSize;
+        this.inverseCellSize = 1.0f / cellSize;
+        this.dirty = true;
+    }
+
+    @Override
+    public void add(int proxy, float minX, float minY, float maxX, float maxY, boolean isStatic) {
+        proxies.add(proxy, minX, minY, maxX, maxY, isStatic);
+        dirty = true;
+    }
+
+    @Override
+    public void setFilter(int proxy, long category, long mask) {
+        proxies.category[proxy] = category;
+        proxies.mask[proxy] = mask;
+    }
+
+    @Override
+    public void update(int proxy, float minX, float minY, float maxX, float maxY) {
+        proxies.set(proxy, minX, minY, maxX, maxY);
+        dirty = true;
+    }
+
+    @Override
+    public void remove(int proxy) {
+        proxies.remove(proxy);
+        dirty = true;
+    }
+
+    @Override
+    public void clear() {
+        proxies.clear();
+        dirty = true;
+    }
+
+    @Override
+    public void findPairs(PairBuffer pairs) {
+        buildGrid();
+        float[] minX = proxies.minX;
+        float[] minY = proxies.minY;
+        int[] live = proxies.live;
+        int count = proxies.liveCount;
+
+        // Pairs within each cell
+        for (int u = 0; u < usedCount; u++) {
+            int slot = usedCells[u];
+            long cell = cellKeys[slot];
+            int cellX = (int) (cell >> 32);
+            int cellY = (int) cell;
+            for (int e = cellHeads[slot]; e != NONE; e = entryNext[e]) {
+                int a = entryColliders[e];
+                for (int f = entryNext[e]; f != NONE; f = entryNext[f]) {
+                    int b = entryColliders[f];
+                    if (!proxies.canPair(a, b)) {
+                        continue;
+                    }
+                    // Report the pair only from the cell holding the corner of the overlap
+                    if (cellOf(Math.max(minX[a], minX[b])) == cellX && cellOf(Math.max(minY[a], minY[b])) == cellY) {
+                        pairs.add(a, b);
+                    }
+                }
+            }
+        }
+
+        // Large colliders are tested against everything; pairs of two large colliders only once
+        for (int l = 0; l < largeCount; l++) {
+            int a = largeColliders[l];
+            for (int i = 0; i < count; i++) {
+                int b = live[i];
+                if (b == a || (isLarge[b] && b < a)) {
+                    continue;
+                }
+                if (proxies.canPair(a, b)) {
+                    pairs.add(a, b);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void query(float minX, float minY, float maxX, float maxY, QueryCallback callback) {
+        if (dirty) {
+            buildGrid();
+        }
+        int stamp = nextQueryStamp();
+
+        // Only the cells covered by both the area and the grid can hold overlapping colliders
+        int cellMinX = Math.max(cellOf(minX), gridMinX);
+        int cellMinY = Math.max(cellOf(minY), gridMinY);
+        int cellMaxX = Math.min(cellOf(maxX), gridMaxX);
+        int cellMaxY = Math.min(cellOf(maxY), gridMaxY);
+        for (int cy = cellMinY; cy <= cellMaxY; cy++) {
+            for (int cx = cellMinX; cx <= cellMaxX; cx++) {
+                int slot = findCell(key(cx, cy));
+                if (slot == NONE) {
+                    continue;
+                }
+                for (int e = cellHeads[slot]; e != NONE; e = entryNext[e]) {
+                    int proxy = entryColliders[e];
+                    if (visited[proxy] == stamp) {
+                        continue;
+                    }
+                    visited[proxy] = stamp;
+                    if (proxies.overlaps(proxy, minX, minY, maxX, maxY) && !callback.report(proxy)) {
+                        return;
+                    }
+                }
+            }
+        }
+
+        for (int l = 0; l < largeCount; l++) {
+            int proxy = largeColliders[l];
+            if (proxies.overlaps(proxy, minX, minY, maxX, maxY) && !callback.report(proxy)) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void raycast(float originX, float originY, float directionX, float directionY, float maxDistance,
+                        RaycastCallback callback) {
+        if (dirty) {
+            buildGrid();
+        }
+        int stamp = nextQueryStamp();
+
+        for (int l = 0; l < largeCount; l++) {
+            float result = reportRayHit(largeColliders[l], originX, originY, directionX, directionY, maxDistance, callback);
+            if (result == 0) {
+                return;
+            }
+            if (result > 0) {
+                maxDistance = result;
+            }
+        }
+        if (usedCount == 0) {
+            return;
+        }
+
+        // Walk the cells the ray passes through, in order
+        int cellX = cellOf(originX);
+        int cellY = cellOf(originY);
+        int stepX = directionX > 0 ? 1 : directionX < 0 ? -1 : 0;
+        int stepY = directionY > 0 ? 1 : directionY < 0 ? -1 : 0;
+        float nextX = stepX == 0 ? Float.POSITIVE_INFINITY
+                : ((cellX + (stepX > 0 ? 1 : 0)) * cellSize - originX) / directionX;
+        float nextY = stepY == 0 ? Float.POSITIVE_INFINITY
+                : ((cellY + (stepY > 0 ? 1 : 0)) * cellSize - originY) / directionY;
+        float deltaX = stepX == 0 ? Float.POSITIVE_INFINITY : cellSize / Math.abs(directionX);
+        float deltaY = stepY == 0 ? Float.POSITIVE_INFINITY : cellSize / Math.abs(directionY);
+        float distance = 0;
+
+        while (distance <= maxDistance) {
+            // Stop once the ray has left the grid and is moving away from it
+            if ((cellX < gridMinX && stepX <= 0) || (cellX > gridMaxX && stepX >= 0)
+                    || (cellY < gridMinY && stepY <= 0) || (cellY > gridMaxY && stepY >= 0)) {
+                return;
+            }
+
+            int slot = findCell(key(cellX, cellY));
+            if (slot != NONE) {
+                for (int e = cellHeads[slot]; e != NONE; e = entryNext[e]) {
+                    int proxy = entryColliders[e];
+                    if (visited[proxy] == stamp) {
+                        continue;
+                    }
+                    visited[proxy] = stamp;
+                    float result = reportRayHit(proxy, originX, originY, directionX, directionY, maxDistance, callback);
+                    if (result == 0) {
+                        return;
+                    }
+                    if (result > 0) {
+                        maxDistance = result;
+                    }
+                }
+            }
+
+            if (nextX < nextY) {
+                distance = nextX;
+                nextX += deltaX;
+                cellX += stepX;
+            } else {
+                distance = nextY;
+                nextY += deltaY;
+                cellY += stepY;
+            }
+        }
+    }
+
+    /**
+     * Report a proxy to a ray callback if the ray hits its bounds
+     * @return The callback's result, or -1 if the ray misses
+     */
+    private float reportRayHit(int proxy, float originX, float originY, float directionX, float directionY,
+                               float maxDistance, RaycastCallback callback) {
+        float distance = ProxyStore.rayDistance(originX, originY, directionX, directionY,
+                proxies.minX[proxy], proxies.minY[proxy], proxies.maxX[proxy], proxies.maxY[proxy], maxDistance);
+        return distance < 0 ? -1 : callback.report(proxy, distance);
+    }
+
+    /**
+     * File every tracked proxy into the grid, or into the large list
+     */
+    private void buildGrid() {
+        resetGrid();
+        if (isLarge.length < proxies.capacity()) {
+            isLarge = new boolean[proxies.capacity()];
+        }
+        float[] minX = proxies.minX;
+        float[] minY = proxies.minY;
+        float[] maxX = proxies.maxX;
+        float[] maxY = proxies.maxY;
+        int[] live = proxies.live;
+        int count = proxies.liveCount;
+        gridMinX = Integer.MAX_VALUE;
+        gridMinY = Integer.MAX_VALUE;
+        gridMaxX = Integer.MIN_VALUE;
+        gridMaxY = Integer.MIN_VALUE;
+
+        for (int i = 0; i < count; i++) {
+            int proxy = live[i];
+            int cellMinX = cellOf(minX[proxy]);
+            int cellMinY = cellOf(minY[proxy]);
+            int cellMaxX = cellOf(maxX[proxy]);
+            int cellMaxY = cellOf(maxY[proxy]);
+            long cells = (long) (cellMaxX - cellMinX + 1) * (cellMaxY - cellMinY + 1);
+            if (cells > MAX_CELLS_PER_COLLIDER) {
+                if (largeCount == largeColliders.length) {
+                    largeColliders = Arrays.copyOf(largeColliders, largeCount * 2);
+                }
+                largeColliders[largeCount++] = proxy;
+                isLarge[proxy] = true;
+                continue;
+            }
+
+            gridMinX = Math.min(gridMinX, cellMinX);
+            gridMinY = Math.min(gridMinY, cellMinY);
+            gridMaxX = Math.max(gridMaxX, cellMaxX);
+            gridMaxY = Math.max(gridMaxY, cellMaxY);
+            for (int cy = cellMinY; cy <= cellMaxY; cy++) {
+                for (int cx = cellMinX; cx <= cellMaxX; cx++) {
+                    addEntry(key(cx, cy), proxy);
+                }
+            }
+        }
+        dirty = false;
+    }
+
+    private int nextQueryStamp() {
+        if (visited.length < proxies.capacity()) {
+            visited = Arrays.copyOf(visited, proxies.capacity());
+        }
+        if (++queryStamp == 0) {
+            // Wrapped around: old stamps could match again
+            Arrays.fill(visited, 0);
+            queryStamp = 1;
+        }
+        return queryStamp;
+    }
+
+    private int cellOf(float coordinate) {
+        return (int) Math.floor(coordinate * inverseCellSize);
+    }
+
+    private static long key(int cellX, int cellY) {
+        return ((long) cellX << 32) | (cellY & 0xFFFFFFFFL);
+    }
+
+    private void resetGrid() {
+        for (int u = 0; u < usedCount; u++) {
+            cellUsed[usedCells[u]] = false;
+        }
+        usedCount = 0;
+        entryCount = 0;
+        for (int l = 0; l < largeCount; l++) {
+            isLarge[largeColliders[l]] = false;
+        }
+        largeCount = 0;
+    }
+
+    private void addEntry(long cell, int collider) {
+        if (entryCount == entryColliders.length) {
+            entryColliders = Arrays.copyOf(entryColliders, entryCount * 2);
+            entryNext = Arrays.copyOf(entryNext, entryCount * 2);
+        }
+        int slot = findOrAddCell(cell);
+        entryColliders[entryCount] = collider;
+        entryNext[entryCount] = cellHeads[slot];
+        cellHeads[slot] = entryCount;
+        entryCount++;
+    }
+
+    private int findCell(long cell) {
+        int mask = cellKeys.length - 1;
+        long mixed = cell * 0x9E3779B97F4A7C15L;
+        int slot = (int) (mixed ^ (mixed >>> 32)) & mask;
+        while (cellUsed[slot]) {
+            if (cellKeys[slot] == cell) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return NONE;
+    }
+
+    private int findOrAddCell(long cell) {
+        // Keep the table at most half full
+        if ((usedCount + 1) * 2 > cellKeys.length) {
+            growTable();
+        }
+
+        int mask = cellKeys.length - 1;
+        long mixed = cell * 0x9E3779B97F4A7C15L;
+        int slot = (int) (mixed ^ (mixed >>> 32)) & mask;
+        while (cellUsed[slot]) {
+            if (cellKeys[slot] == cell) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        cellUsed[slot] = true;
+        cellKeys[slot] = cell;
+        cellHeads[slot] = NONE;
+        if (usedCount == usedCells.length) {
+            usedCells = Arrays.copyOf(usedCells, usedCount * 2);
+        }
+        usedCells[usedCount++] = slot;
+        return slot;
+    }
+
+    private void growTable() {
+        long[] oldKeys = cellKeys;
+        int[] oldHeads = cellHeads;
+        int[] oldUsed = Arrays.copyOf(usedCells, usedCount);
+        int size = oldKeys.length * 2;
+
+        cellKeys = new long[size];
+        cellHeads = new int[size];
+        cellUsed = new boolean[size];
+        int mask = size - 1;
+        for (int u = 0; u < oldUsed.length; u++) {
+            int oldSlot = oldUsed[u];
+            long mixed = oldKeys[oldSlot] * 0x9E3779B97F4A7C15L;
+            int slot = (int) (mixed ^ (mixed >>> 32)) & mask;
+            while (cellUsed[slot]) {
+                slot = (slot + 1) & mask;
+            }
+            cellUsed[slot] = true;
+            cellKeys[slot] = oldKeys[oldSlot];
+            cellHeads[slot] = oldHeads[oldSlot];
+            usedCells[u] = slot;
+        }
+    }
+}
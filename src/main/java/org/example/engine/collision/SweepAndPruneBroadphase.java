@@ -0,0 +1,189 @@
+package org.example.engine.collision;
+
+import java.util.Arrays;
+
+/**
+ * Broadphase that keeps the left and right edges of every collider in one array sorted along X,
+ * then sweeps it: a collider can only overlap colliders whose interval is open when it starts.
+ * <p>
+ * The endpoint array persists between calls and is re-sorted by insertion sort. Colliders move
+ * little from one frame to the next, so the array is nearly sorted and this is close to linear.
+ * Works best when colliders are spread along X; a crowd stacked in one column degrades to all pairs.
+ * Area queries walk the sorted array up to the right edge of the area; raycasts test every collider.
+ */
+public class SweepAndPruneBroadphase implements Broadphase {
+    private final ProxyStore proxies = new ProxyStore();
+
+    // Endpoints sorted by value; data is the proxy id shifted left by one, with the low bit set for right edges
+    private float[] endpointValues = new float[128];
+    private int[] endpointData = new int[128];
+    private int endpointCount = 0;
+    // Whether bounds changed since the endpoints were last sorted
+    private boolean dirty = false;
+
+    // Colliders whose interval contains the sweep position
+    private int[] active = new int[64];
+    private int[] activePosition = new int[64];
+    private int activeCount = 0;
+
+    @Override
+    public void add(int proxy, float minX, float minY, float maxX, float maxY, boolean isStatic) {
+        proxies.add(proxy, minX, minY, maxX, maxY, isStatic);
+        if (endpointCount + 2 > endpointData.length) {
+            endpointValues = Arrays.copyOf(endpointValues, endpointData.length * 2);
+            endpointData = Arrays.copyOf(endpointData, endpointData.length * 2);
+        }
+        // Appended unsorted; the next sort moves them into place
+        endpointValues[endpointCount] = minX;
+        endpointData[endpointCount++] = proxy << 1;
+        endpointValues[endpointCount] = maxX;
+        endpointData[endpointCount++] = (proxy << 1) | 1;
+        dirty = true;
+    }
+
+    @Override
+    public void setFilter(int proxy, long category, long mask) {
+        proxies.category[proxy] = category;
+        proxies.mask[proxy] = mask;
+    }
+
+    @Override
+    public void update(int proxy, float minX, float minY, float maxX, float maxY) {
+        proxies.set(proxy, minX, minY, maxX, maxY);
+        dirty = true;
+    }
+
+    @Override
+    public void remove(int proxy) {
+        if (!proxies.remove(proxy)) {
+            return;
+        }
+        // Close the gaps while keeping the remaining endpoints in order
+        int kept = 0;
+        for (int i = 0; i < endpointCount; i++) {
+            if (endpointData[i] >> 1 != proxy) {
+                endpointValues[kept] = endpointValues[i];
+                endpointData[kept++] = endpointData[i];
+            }
+        }
+        endpointCount = kept;
+    }
+
+    @Override
+    public void clear() {
+        proxies.clear();
+        endpointCount = 0;
+    }
+
+    @Override
+    public void findPairs(PairBuffer pairs) {
+        sortIfDirty();
+
+        if (activePosition.length < proxies.capacity()) {
+            activePosition = new int[proxies.capacity()];
+        }
+        float[] minY = proxies.minY;
+        float[] maxY = proxies.maxY;
+        activeCount = 0;
+
+        for (int i = 0; i < endpointCount; i++) {
+            int data = endpointData[i];
+            int proxy = data >> 1;
+            if ((data & 1) != 0) {
+                // Right edge: swap the last active collider into its place
+                int position = activePosition[proxy];
+                int last = active[--activeCount];
+                active[position] = last;
+                activePosition[last] = position;
+                continue;
+            }
+
+            // Left edge: every open interval overlaps along X, so only Y is left to test
+            float top = minY[proxy];
+            float bottom = maxY[proxy];
+            for (int a = 0; a < activeCount; a++) {
+                int other = active[a];
+                if (top <= maxY[other] && bottom >= minY[other] && proxies.accepts(proxy, other)) {
+                    pairs.add(proxy, other);
+                }
+            }
+
+            if (activeCount == active.length) {
+                active = Arrays.copyOf(active, activeCount * 2);
+            }
+            activePosition[proxy] = activeCount;
+            active[activeCount++] = proxy;
+        }
+    }
+
+    @Override
+    public void query(float minX, float minY, float maxX, float maxY, QueryCallback callback) {
+        sortIfDirty();
+        // Every collider overlapping the area starts left of its right edge
+        for (int i = 0; i < endpointCount && endpointValues[i] <= maxX; i++) {
+            int data = endpointData[i];
+            if ((data & 1) == 0 && proxies.overlaps(data >> 1, minX, minY, maxX, maxY)) {
+                if (!callback.report(data >> 1)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void raycast(float originX, float originY, float directionX, float directionY, float maxDistance,
+                        RaycastCallback callback) {
+        int[] live = proxies.live;
+        for (int i = 0; i < proxies.liveCount; i++) {
+            int proxy = live[i];
+            float distance = ProxyStore.rayDistance(originX, originY, directionX, directionY,
+                    proxies.minX[proxy], proxies.minY[proxy], proxies.maxX[proxy], proxies.maxY[proxy], maxDistance);
+            if (distance < 0) {
+                continue;
+            }
+            float result = callback.report(proxy, distance);
+            if (result == 0) {
+                return;
+            }
+            if (result > 0) {
+                maxDistance = result;
+            }
+        }
+    }
+
+    private void sortIfDirty() {
+        if (dirty) {
+            refreshEndpoints();
+            sortEndpoints();
+            dirty = false;
+        }
+    }
+
+    private void refreshEndpoints() {
+        float[] minX = proxies.minX;
+        float[] maxX = proxies.maxX;
+        for (int i = 0; i < endpointCount; i++) {
+            int data = endpointData[i];
+            endpointValues[i] = (data & 1) != 0 ? maxX[data >> 1] : minX[data >> 1];
+        }
+    }
+
+    /**
+     * Insertion sort by value; at equal values left edges go first so touching colliders are paired
+     */
+    private void sortEndpoints() {
+        for (int i = 1; i < endpointCount; i++) {
+            float value = endpointValues[i];
+            int data = endpointData[i];
+            int j = i - 1;
+            while (j >= 0 && (endpointValues[j] > value
+                    || (endpointValues[j] == value && (endpointData[j] & 1) > (data & 1)))) {
+                endpointValues[j + 1] = endpointValues[j];
+                endpointData[j + 1] = endpointData[j];
+                j--;
+            }
+            endpointValues[j + 1] = value;
+            endpointData[j + 1] = data;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package org.example.engine.collision;
+
+/**
+ * Time-of-impact tests for a shape moving along a straight line past a resting shape.
+ * A hit fills in the time as a fraction of the motion and the normal at impact, pointing from
+ * the moving shape into the resting one. Shapes that already overlap at the start do not count as a hit.
+ * Results are kept in fields so the tests allocate nothing; use one instance per thread.
+ */
+final class SweepTest {
+    float time;
+    float normalX;
+    float normalY;
+
+    /**
+     * Sweep a circle against another circle
+     * @param centerX Center of the moving circle at the start of the motion
+     * @param moveX Motion of the moving circle
+     */
+    boolean circleCircle(float centerX, float centerY, float radius, float moveX, float moveY,
+                         float otherX, float otherY, float otherRadius) {
+        return rayCircle(centerX, centerY, moveX, moveY, otherX, otherY, radius + otherRadius);
+    }
+
+    /**
+     * Sweep a circle against a box, including its rounded corners
+     */
+    boolean circleBox(float centerX, float centerY, float radius, float moveX, float moveY,
+                      float minX, float minY, float maxX, float maxY) {
+        // The circle's center hits the box grown by the radius
+        if (!rayBox(centerX, centerY, moveX, moveY, minX - radius, minY - radius, maxX + radius, maxY + radius)) {
+            return false;
+        }
+
+        // Near a corner the grown box is round: test the circle around the corner instead
+        float hitX = centerX + moveX * time;
+        float hitY = centerY + moveY * time;
+        boolean left = hitX < minX;
+        boolean right = hitX > maxX;
+        boolean above = hitY < minY;
+        boolean below = hitY > maxY;
+        if ((left || right) && (above || below)) {
+            return rayCircle(centerX, centerY, moveX, moveY, left ? minX : maxX, above ? minY : maxY, radius);
+        }
+        return true;
+    }
+
+    /**
+     * Sweep a box against another box
+     * @param minX Top-left corner of the moving box at the start of the motion
+     */
+    boolean boxBox(float minX, float minY, float width, float height, float moveX, float moveY,
+                   float otherMinX, float otherMinY, float otherMaxX, float otherMaxY) {
+        // The corner of the moving box hits the other box grown by the moving box's size
+        return rayBox(minX, minY, moveX, moveY, otherMinX - width, otherMinY - height, otherMaxX, otherMaxY);
+    }
+
+    /**
+     * Intersect the segment from a point along a motion with a box
+     */
+    private boolean rayBox(float originX, float originY, float moveX, float moveY,
+                           float minX, float minY, float maxX, float maxY) {
+        float near = 0;
+        float far = 1;
+        float hitNormalX = 0;
+        float hitNormalY = 0;
+
+        if (moveX != 0) {
+            float t1 = (minX - originX) / moveX;
+            float t2 = (maxX - originX) / moveX;
+            float enter = Math.min(t1, t2);
+            if (enter > near) {
+                near = enter;
+                hitNormalX = moveX > 0 ? 1 : -1;
+            }
+            far = Math.min(far, Math.max(t1, t2));
+        } else if (originX < minX || originX > maxX) {
+            return false;
+        }
+
+        if (moveY != 0) {
+            float t1 = (minY - originY) / moveY;
+            float t2 = (maxY - originY) / moveY;
+            float enter = Math.min(t1, t2);
+            if (enter > near) {
+                near = enter;
+                hitNormalX = 0;
+                hitNormalY = moveY > 0 ? 1 : -1;
+            }
+            far = Math.min(far, Math.max(t1, t2));
+        } else if (originY < minY || originY > maxY) {
+            return false;
+        }
+
+        // No entering side means the point started inside
+        if (near > far || (hitNormalX == 0 && hitNormalY == 0)) {
+            return false;
+        }
+        time = near;
+        normalX = hitNormalX;
+        normalY = hitNormalY;
+        return true;
+    }
+
+    /**
+     * Intersect the segment from a point along a motion with a circle
+     */
+    private boolean rayCircle(float originX, float originY, float moveX, float moveY,
+                              float centerX, float centerY, float radius) {
+        float offsetX = originX - centerX;
+        float offsetY = originY - centerY;
+        float c = offsetX * offsetX + offsetY * offsetY - radius * radius;
+        float a = moveX * moveX + moveY * moveY;
+        if (c <= 0 || a == 0) {
+            return false;
+        }
+
+        float b = offsetX * moveX + offsetY * moveY;
+        float discriminant = b * b - a * c;
+        if (b >= 0 || discriminant < 0) {
+            // Moving away, or passing by
+            return false;
+        }
+        float t = (-b - (float) Math.sqrt(discriminant)) / a;
+        if (t > 1) {
+            return false;
+        }
+
+        time = t;
+        normalX = (centerX - (originX + moveX * t)) / radius;
+        normalY = (centerY - (originY + moveY * t)) / radius;
+        return true;
+    }
+}
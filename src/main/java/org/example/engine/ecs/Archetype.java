@@ -0,0 +1,253 @@
+package org.example.engine.ecs;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Groups all entities that share exactly the same set of component types.
+ * Entities are packed into fixed-size chunks of contiguous arrays so systems
+ * can iterate them without probing every entity in the world.
+ * Active entities are kept in the rows before {@link #activeCount()}, inactive ones after it.
+ */
+public class Archetype {
+    // Number of entity slots in each chunk
+    public static final int CHUNK_CAPACITY = 256;
+
+    private final ComponentMask componentMask;
+    private final int[] typeIds;
+    // Column of each component type id, -1 if the type is not part of this archetype
+    private final int[] columnByType;
+    private final List<Chunk> chunks = new ArrayList<>();
+    private int size = 0;
+    private int activeCount = 0;
+
+    /**
+     * A fixed-capacity block of entities and their components, stored column by column
+     */
+    public static class Chunk {
+        private final Entity[] entities = new Entity[CHUNK_CAPACITY];
+        // Slot index of each entity, for systems working on slot-indexed stores
+        private final int[] indices = new int[CHUNK_CAPACITY];
+        private final Component[][] columns;
+        private int size = 0;
+
+        private Chunk(int columnCount) {
+            columns = new Component[columnCount][CHUNK_CAPACITY];
+        }
+
+        /**
+         * Get the entity array of this chunk; only the first {@link #size()} slots are valid
+         */
+        public Entity[] getEntities() {
+            return entities;
+        }
+
+        /**
+         * Get the entity slot indices of this chunk, parallel to {@link #getEntities()}
+         */
+        public int[] getIndices() {
+            return indices;
+        }
+
+        /**
+         * Get the number of entities stored in this chunk
+         */
+        public int size() {
+            return size;
+        }
+    }
+
+    Archetype(ComponentMask componentMask) {
+        this.componentMask = new ComponentMask(componentMask);
+
+        int count = 0;
+        int maxId = -1;
+        for (int id = componentMask.nextSetBit(0); id >= 0; id = componentMask.nextSetBit(id + 1)) {
+            count++;
+            maxId = id;
+        }
+
+        typeIds = new int[count];
+        columnByType = new int[maxId + 1];
+        Arrays.fill(columnByType, -1);
+
+        int column = 0;
+        for (int id = componentMask.nextSetBit(0); id >= 0; id = componentMask.nextSetBit(id + 1)) {
+            typeIds[column] = id;
+            columnByType[id] = column++;
+        }
+    }
+
+    /**
+     * Get the component mask shared by every entity in this archetype
+     * @return The mask, must not be modified by callers
+     */
+    public ComponentMask getComponentMask() {
+        return componentMask;
+    }
+
+    /**
+     * Check if this archetype contains all component types of a mask
+     * @param required The required component types
+     * @return True if every type is part of this archetype
+     */
+    public boolean hasAll(ComponentMask required) {
+        return componentMask.containsAll(required);
+    }
+
+    /**
+     * Get the chunks of this archetype
+     */
+    public List<Chunk> getChunks() {
+        return chunks;
+    }
+
+    /**
+     * Get a component column from a chunk of this archetype
+     * @param chunk The chunk to read from
+     * @param componentClass The component type of the column
+     * @param <T> Component type
+     * @return The column array, or null if the type is not part of this archetype
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends Component> T[] getColumn(Chunk chunk, Class<T> componentClass) {
+        int typeId = ComponentType.getId(componentClass);
+        if (typeId >= columnByType.length || columnByType[typeId] < 0) {
+            return null;
+        }
+        return (T[]) chunk.columns[columnByType[typeId]];
+    }
+
+    /**
+     * Get the total number of entities in this archetype
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get the number of active entities, which occupy the first rows of the archetype
+     */
+    public int activeCount() {
+        return activeCount;
+    }
+
+    /**
+     * Append an entity, allocating a new chunk if needed
+     */
+    void add(Entity entity) {
+        int row = size;
+        int chunkIndex = row / CHUNK_CAPACITY;
+        if (chunkIndex == chunks.size()) {
+            chunks.add(new Chunk(typeIds.length));
+        }
+
+        Chunk chunk = chunks.get(chunkIndex);
+        int slot = row % CHUNK_CAPACITY;
+        chunk.entities[slot] = entity;
+        chunk.indices[slot] = entity.getIndex();
+        for (int column = 0; column < typeIds.length; column++) {
+            chunk.columns[column][slot] = entity.getComponent(typeIds[column]);
+        }
+        chunk.size++;
+        size++;
+
+        entity.archetype = this;
+        entity.archetypeRow = row;
+
+        if (entity.isActive()) {
+            swapRows(row, activeCount);
+            activeCount++;
+        }
+    }
+
+    /**
+     * Remove an entity by moving the last entity of its partition into its slot
+     */
+    void remove(Entity entity) {
+        int row = entity.archetypeRow;
+        if (row < activeCount) {
+            // Move to the first inactive row so the active block stays contiguous
+            activeCount--;
+            swapRows(row, activeCount);
+            row = activeCount;
+        }
+
+        int lastRow = size - 1;
+        swapRows(row, lastRow);
+
+        // Clear the vacated slot so removed entities can be collected
+        Chunk lastChunk = chunks.get(lastRow / CHUNK_CAPACITY);
+        int lastSlot = lastRow % CHUNK_CAPACITY;
+        lastChunk.entities[lastSlot] = null;
+        for (Component[] column : lastChunk.columns) {
+            column[lastSlot] = null;
+        }
+        lastChunk.size--;
+        size--;
+
+        if (lastChunk.size == 0) {
+            chunks.remove(chunks.size() - 1);
+        }
+
+        entity.archetype = null;
+        entity.archetypeRow = -1;
+    }
+
+    /**
+     * Move an entity across the active/inactive boundary after its active flag changed
+     */
+    void updateActive(Entity entity) {
+        int row = entity.archetypeRow;
+        if (entity.isActive() && row >= activeCount) {
+            swapRows(row, activeCount);
+            activeCount++;
+        } else if (!entity.isActive() && row < activeCount) {
+            activeCount--;
+            swapRows(row, activeCount);
+        }
+    }
+
+    /**
+     * Refresh the stored component of an entity after it was replaced by one of the same type
+     */
+    void replace(Entity entity, Component component) {
+        int typeId = ComponentType.getId(component.getClass());
+        if (typeId < columnByType.length && columnByType[typeId] >= 0) {
+            int row = entity.archetypeRow;
+            chunks.get(row / CHUNK_CAPACITY).columns[columnByType[typeId]][row % CHUNK_CAPACITY] = component;
+        }
+    }
+
+    /**
+     * Exchange two rows, including their component columns
+     */
+    private void swapRows(int rowA, int rowB) {
+        if (rowA == rowB) {
+            return;
+        }
+
+        Chunk chunkA = chunks.get(rowA / CHUNK_CAPACITY);
+        Chunk chunkB = chunks.get(rowB / CHUNK_CAPACITY);
+        int slotA = rowA % CHUNK_CAPACITY;
+        int slotB = rowB % CHUNK_CAPACITY;
+
+        Entity entityA = chunkA.entities[slotA];
+        Entity entityB = chunkB.entities[slotB];
+        chunkA.entities[slotA] = entityB;
+        chunkB.entities[slotB] = entityA;
+        entityA.archetypeRow = rowB;
+        entityB.archetypeRow = rowA;
+
+        int index = chunkA.indices[slotA];
+        chunkA.indices[slotA] = chunkB.indices[slotB];
+        chunkB.indices[slotB] = index;
+
+        for (int column = 0; column < typeIds.length; column++) {
+            Component component = chunkA.columns[column][slotA];
+            chunkA.columns[column][slotA] = chunkB.columns[column][slotB];
+            chunkB.columns[column][slotB] = component;
+        }
+    }
+}
@@ -1,20 +1,55 @@
 package org.example.engine.ecs;
 
-import java.util.UUID;
 /**
  * Base class for all entity components
  */
 public abstract class Component {
-    protected UUID entityId;
+    // Generational handle of the owning entity, see EntityHandle
+    protected long entityId = EntityHandle.NONE;
+    // Change tick of the last modification, see ECSManager.getChangeTick()
+    private int changeTick = 0;
 
-    public void setEntityId(UUID entityId) {
+    public void setEntityId(long entityId) {
         this.entityId = entityId;
     }
 
-    public UUID getEntityId() {
+    public long getEntityId() {
         return entityId;
     }
 
+    /**
+     * Record that this component was modified at the current change tick
+     */
+    public void markChanged() {
+        changeTick = ECSManager.getInstance().getChangeTick();
+    }
+
+    /**
+     * Record that a field used as a ComponentIndex key was modified, so indexes over it are updated
+     */
+    protected void keyChanged() {
+        markChanged();
+        if (entityId != EntityHandle.NONE) {
+            ECSManager.getInstance().reindex(this);
+        }
+    }
+
+    /**
+     * Get the change tick of the last modification
+     */
+    public int getChangeTick() {
+        return changeTick;
+    }
+
+    /**
+     * Check if this component was modified after a given tick
+     * @param tick The tick to compare with, e.g. System.getLastRunTick()
+     * @return True if the last modification is newer than the tick
+     */
+    public boolean isChangedSince(int tick) {
+        return getChangeTick() > tick;
+    }
+
     /**
      * Called when the component is added to an entity
      */
@@ -0,0 +1,173 @@
+package org.example.engine.ecs;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Secondary index from a key derived from a component to the entities carrying it.
+ * Created with ECSManager.createIndex and kept up to date as components are added and removed;
+ * components whose key field changes after being added must call {@link Component#keyChanged()}.
+ * @param <K> Key type
+ * @param <T> Indexed component type
+ */
+public class ComponentIndex<K, T extends Component> {
+    private final Class<T> componentType;
+    private final Function<? super T, ? extends K> keyFunction;
+    private final Map<K, Bucket> bucketsByKey = new HashMap<>();
+    // Where every indexed component sits, to remove it in constant time when it is detached or its key changes
+    private final Map<Component, Entry> entries = new IdentityHashMap<>();
+    // Keeps the index up to date; registered with the ECSManager by createIndex
+    final ComponentObserver<T> observer = new ComponentObserver<T>() {
+        @Override
+        public void componentAttached(Entity entity, T component) {
+            add(entity, component);
+        }
+
+        @Override
+        public void componentDetached(Entity entity, T component) {
+            remove(component);
+        }
+
+        @Override
+        public void componentKeyChanged(Entity entity, T component) {
+            update(component);
+        }
+    };
+
+    ComponentIndex(Class<T> componentType, Function<? super T, ? extends K> keyFunction) {
+        this.componentType = componentType;
+        this.keyFunction = keyFunction;
+    }
+
+    public Class<T> getComponentType() {
+        return componentType;
+    }
+
+    /**
+     * Get the first entity indexed under a key
+     * @param key The key to look up
+     * @return The entity, or null if none has this key
+     */
+    public Entity getFirst(K key) {
+        Bucket bucket = bucketsByKey.get(key);
+        return bucket != null ? bucket.entities.get(0) : null;
+    }
+
+    /**
+     * Get all entities indexed under a key, in no particular order
+     * @param key The key to look up
+     * @return Read-only list, empty if none has this key
+     */
+    public List<Entity> getAll(K key) {
+        Bucket bucket = bucketsByKey.get(key);
+        return bucket != null ? Collections.unmodifiableList(bucket.entities) : Collections.emptyList();
+    }
+
+    /**
+     * Get the number of distinct keys
+     */
+    public int keyCount() {
+        return bucketsByKey.size();
+    }
+
+    void add(Entity entity, Component component) {
+        Entry entry = new Entry(entity);
+        entries.put(component, entry);
+        link(entry, component);
+    }
+
+    void remove(Component component) {
+        Entry entry = entries.remove(component);
+        if (entry != null) {
+            unlink(entry);
+        }
+    }
+
+    /**
+     * Re-read the key of an indexed component after it changed
+     */
+    void update(Component component) {
+        Entry entry = entries.get(component);
+        if (entry != null) {
+            unlink(entry);
+            link(entry, component);
+        }
+    }
+
+    /**
+     * Append an entry to the bucket of its component's current key
+     */
+    private void link(Entry entry, Component component) {
+        K key = keyFunction.apply(componentType.cast(component));
+        if (key == null) {
+            // Components with a null key are tracked but not indexed
+            return;
+        }
+
+        Bucket bucket = bucketsByKey.computeIfAbsent(key, Bucket::new);
+        entry.bucket = bucket;
+        entry.position = bucket.entities.size();
+        bucket.entities.add(entry.entity);
+        bucket.entries.add(entry);
+    }
+
+    /**
+     * Take an entry out of its bucket by moving the bucket's last entry into its place
+     */
+    private void unlink(Entry entry) {
+        Bucket bucket = entry.bucket;
+        if (bucket == null) {
+            return;
+        }
+
+        int last = bucket.entities.size() - 1;
+        if (entry.position != last) {
+            Entry moved = bucket.entries.get(last);
+            moved.position = entry.position;
+            bucket.entities.set(entry.position, moved.entity);
+            bucket.entries.set(entry.position, moved);
+        }
+        bucket.entities.remove(last);
+        bucket.entries.remove(last);
+        if (bucket.entities.isEmpty()) {
+            bucketsByKey.remove(bucket.key);
+        }
+        entry.bucket = null;
+    }
+
+    void clear() {
+        bucketsByKey.clear();
+        entries.clear();
+    }
+
+    /**
+     * Entities under one key, with the entries pointing back at their positions
+     */
+    private final class Bucket {
+        final K key;
+        final List<Entity> entities = new ArrayList<>(1);
+        final List<Entry> entries = new ArrayList<>(1);
+
+        Bucket(K key) {
+            this.key = key;
+        }
+    }
+
+    /**
+     * Owner of an indexed component and its position in the bucket of its key
+     */
+    private final class Entry {
+        final Entity entity;
+        Bucket bucket;
+        int position;
+
+        Entry(Entity entity) {
+            this.entity = entity;
+        }
+    }
+}
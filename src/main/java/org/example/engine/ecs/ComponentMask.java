@@ -0,0 +1,165 @@
+package org.example.engine.ecs;
+
+import java.util.Arrays;
+
+/**
+ * Bitset of component type ids, used as entity and archetype signature
+ */
+public final class ComponentMask {
+    private long[] words;
+
+    public ComponentMask() {
+        this.words = new long[1];
+    }
+
+    /**
+     * Copy constructor
+     */
+    public ComponentMask(ComponentMask other) {
+        this.words = Arrays.copyOf(other.words, other.words.length);
+    }
+
+    /**
+     * Create a mask containing the given component types
+     * @param componentClasses The component classes to include
+     * @return The new mask
+     */
+    @SafeVarargs
+    public static ComponentMask of(Class<? extends Component>... componentClasses) {
+        ComponentMask mask = new ComponentMask();
+        for (Class<? extends Component> componentClass : componentClasses) {
+            mask.set(ComponentType.getId(componentClass));
+        }
+        return mask;
+    }
+
+    /**
+     * Set the bit of a component type id
+     */
+    public void set(int typeId) {
+        int word = typeId >>> 6;
+        if (word >= words.length) {
+            words = Arrays.copyOf(words, Math.max(word + 1, words.length * 2));
+        }
+        words[word] |= 1L << typeId;
+    }
+
+    /**
+     * Clear the bit of a component type id
+     */
+    public void clear(int typeId) {
+        int word = typeId >>> 6;
+        if (word < words.length) {
+            words[word] &= ~(1L << typeId);
+        }
+    }
+
+    /**
+     * Check the bit of a component type id
+     */
+    public boolean get(int typeId) {
+        int word = typeId >>> 6;
+        return word < words.length && (words[word] & (1L << typeId)) != 0;
+    }
+
+    /**
+     * Set every bit that is set in another mask
+     */
+    public void or(ComponentMask other) {
+        if (other.words.length > words.length) {
+            words = Arrays.copyOf(words, other.words.length);
+        }
+        for (int i = 0; i < other.words.length; i++) {
+            words[i] |= other.words[i];
+        }
+    }
+
+    /**
+     * Check if this mask contains every bit of another mask
+     * @param other The required bits
+     * @return True if all bits of other are set in this mask
+     */
+    public boolean containsAll(ComponentMask other) {
+        long[] otherWords = other.words;
+        for (int i = 0; i < otherWords.length; i++) {
+            long required = otherWords[i];
+            if (required != 0 && (i >= words.length || (words[i] & required) != required)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Check if this mask shares at least one bit with another mask
+     */
+    public boolean intersects(ComponentMask other) {
+        int length = Math.min(words.length, other.words.length);
+        for (int i = 0; i < length; i++) {
+            if ((words[i] & other.words[i]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Check if no bit is set
+     */
+    public boolean isEmpty() {
+        for (long word : words) {
+            if (word != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Get the index of the next set bit at or after the given index, or -1 if there is none
+     */
+    public int nextSetBit(int fromIndex) {
+        int word = fromIndex >>> 6;
+        if (word >= words.length) {
+            return -1;
+        }
+
+        long bits = words[word] & (-1L << fromIndex);
+        while (true) {
+            if (bits != 0) {
+                return (word << 6) + Long.numberOfTrailingZeros(bits);
+            }
+            if (++word == words.length) {
+                return -1;
+            }
+            bits = words[word];
+        }
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (!(obj instanceof ComponentMask)) return false;
+
+        // Trailing zero words do not change the mask
+        long[] otherWords = ((ComponentMask) obj).words;
+        int length = Math.max(words.length, otherWords.length);
+        for (int i = 0; i < length; i++) {
+            long a = i < words.length ? words[i] : 0;
+            long b = i < otherWords.length ? otherWords[i] : 0;
+            if (a != b) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        long hash = 0;
+        for (int i = 0; i < words.length; i++) {
+            hash ^= words[i] * (i + 1);
+        }
+        return (int) (hash ^ (hash >>> 32));
+    }
+}
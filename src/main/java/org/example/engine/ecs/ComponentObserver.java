@@ -0,0 +1,32 @@
+package org.example.engine.ecs;
+
+/**
+ * Receives the components of one type as they are attached to and detached from managed entities.
+ * Registered with ECSManager.addObserver, usually by a system in its onAdded hook; ComponentIndex
+ * is kept up to date the same way.
+ * @param <T> Observed component type
+ */
+public interface ComponentObserver<T extends Component> {
+    /**
+     * Called when a component is attached to a managed entity, or for each existing one when the observer is added
+     * @param entity The entity owning the component
+     * @param component The attached component
+     */
+    void componentAttached(Entity entity, T component);
+
+    /**
+     * Called when a component is detached from a managed entity, or when the entity is removed
+     * @param entity The entity owning the component
+     * @param component The detached component
+     */
+    void componentDetached(Entity entity, T component);
+
+    /**
+     * Called when an attached component calls {@link Component#keyChanged()}
+     * @param entity The entity owning the component
+     * @param component The changed component
+     */
+    default void componentKeyChanged(Entity entity, T component) {
+        // Override in implementations if needed
+    }
+}
@@ -0,0 +1,38 @@
+package org.example.engine.ecs;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Registry that assigns every component class a dense integer id.
+ * Ids index component arrays and bits of a {@link ComponentMask}.
+ */
+public final class ComponentType {
+    private static final AtomicInteger nextId = new AtomicInteger();
+
+    private static final ClassValue<Integer> ids = new ClassValue<>() {
+        @Override
+        protected Integer computeValue(Class<?> type) {
+            return nextId.getAndIncrement();
+        }
+    };
+
+    private ComponentType() {
+        // Static registry
+    }
+
+    /**
+     * Get the id of a component class, registering it on first use
+     * @param componentClass The component class
+     * @return Dense id of the component type
+     */
+    public static int getId(Class<? extends Component> componentClass) {
+        return ids.get(componentClass);
+    }
+
+    /**
+     * Get the number of component types registered so far
+     */
+    public static int getCount() {
+        return nextId.get();
+    }
+}
@@ -1,14 +1,75 @@
 package org.example.engine.ecs;
 
+import org.example.engine.ecs.components.MovementComponent;
+import org.example.engine.ecs.components.NetworkComponent;
+import org.example.engine.ecs.components.PlayerComponent;
+import org.example.engine.ecs.components.TileComponent;
+import org.example.engine.ecs.components.TransformComponent;
+
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap; /**
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.function.ObjIntConsumer; /**
  * Main ECS manager that coordinates entities and systems
  */
 public class ECSManager {
-    private final Map<UUID, Entity> entities = new ConcurrentHashMap<>();
+    // Entity table indexed by handle slot; generations invalidate stale handles
+    private Entity[] slots = new Entity[1024];
+    private int[] generations = new int[1024];
+    private int[] freeSlots = new int[64];
+    private int freeCount = 0;
+    private int slotCount = 0;
+    private int entityCount = 0;
+    // Slot-indexed transform and movement data
+    private final TransformStore transformStore = new TransformStore(1024);
+    // Grid of entities with a TransformComponent, refiled lazily from the transform change ticks
+    private SpatialHash spatialHash = new SpatialHash(64.0f, 1024);
+    private volatile int spatialRefreshTick = 0;
+
     private final List<System> systems = new ArrayList<>();
     private final Map<String, Entity> entitiesByName = new HashMap<>();
 
+    // Observers, including the secondary indexes, by ComponentType id; told when components are attached and detached
+    private final List<List<ComponentObserver<?>>> observersByType = new ArrayList<>();
+    // UUIDs are only used for network identity
+    private final ComponentIndex<UUID, NetworkComponent> networkIdIndex =
+            createIndex(NetworkComponent.class, NetworkComponent::getNetworkId);
+    // Only local players get a key, so the index holds at most the local player entity
+    private final ComponentIndex<Boolean, PlayerComponent> localPlayerIndex =
+            createIndex(PlayerComponent.class, player -> player.isLocalPlayer() ? Boolean.TRUE : null);
+    private final ComponentIndex<Integer, TileComponent> tileIdIndex =
+            createIndex(TileComponent.class, TileComponent::getTileId);
+    // World-wide components that belong to no entity, by ComponentType id
+    private Component[] singletons = new Component[16];
+
+    // Archetype storage: entities grouped by their exact component set
+    private final Map<ComponentMask, Archetype> archetypes = new HashMap<>();
+    private final List<Entity> pendingMoves = new ArrayList<>();
+    private boolean iterating = false;
+    // Advanced at every sync point; components are stamped with it when modified
+    private int changeTick = 1;
+    // Blend factor between the previous and current update for the frame being rendered
+    private float interpolationAlpha = 1.0f;
+    // Change tick just before the latest update started
+    private int stepStartTick = 0;
+    // Structural changes recorded outside of systems, applied at the next sync point
+    private final EntityCommandBuffer commandBuffer = new EntityCommandBuffer();
+    private final Collection<Entity> entityView = new EntityView();
+
+    // Recycled prefab instances and their components, by ComponentType id
+    private static final int MAX_POOL_SIZE = 4096;
+    private final ObjectPool<Entity> entityPool = new ObjectPool<>(MAX_POOL_SIZE);
+    private final List<ObjectPool<Component>> componentPools = new ArrayList<>();
+
+    // Parallel scheduling of systems with declared component access
+    private final SystemScheduler scheduler = new SystemScheduler();
+    private boolean parallelScheduling = false;
+    private ForkJoinPool workerPool;
+
+    // Per-system instrumentation; about ten seconds of frames at 60 FPS
+    private final SystemProfiler profiler = new SystemProfiler(600);
+    private boolean profilingEnabled = false;
+
     private static ECSManager instance;
 
     private ECSManager() {
@@ -27,16 +88,88 @@ public class ECSManager {
      * @param entity The entity to add
      * @return The added entity
      */
-    public Entity addEntity(Entity entity) {
-        entities.put(entity.getId(), entity);
+    public synchronized Entity addEntity(Entity entity) {
+        if (entity.manager == this) {
+            return entity;
+        }
+
+        attach(entity);
+        scheduleMove(entity);
+        return entity;
+    }
+
+    /**
+     * Give an entity a handle and register its components, without placing it in an archetype
+     */
+    private void attach(Entity entity) {
+        entity.id = allocateHandle(entity);
+        entity.manager = this;
+        entityCount++;
+        for (Component component : entity.getAllComponents()) {
+            component.setEntityId(entity.id);
+            registerComponent(entity, component);
+        }
 
         if (entity.getName() != null && !entity.getName().isEmpty()) {
             entitiesByName.put(entity.getName(), entity);
         }
+    }
 
+    /**
+     * Build an entity from a prefab using pooled components, without adding it to the manager.
+     * Use it with {@link EntityCommandBuffer#spawn(Entity)} to spawn prefabs from systems.
+     * @param prefab The prefab to instantiate
+     * @return The new, unmanaged entity
+     */
+    public synchronized Entity newInstance(Prefab prefab) {
+        Entity entity = entityPool.obtain();
+        if (entity == null) {
+            entity = new Entity();
+        }
+        entity.setName(prefab.getName());
+        entity.prefab = prefab;
+
+        for (Prefab.Entry<?> entry : prefab.getEntries()) {
+            entity.addComponent(entry.create(getComponentPool(entry.typeId)));
+        }
         return entity;
     }
 
+    /**
+     * Create and add an entity from a prefab
+     * @param prefab The prefab to instantiate
+     * @return The new entity
+     */
+    public Entity instantiate(Prefab prefab) {
+        return addEntity(newInstance(prefab));
+    }
+
+    /**
+     * Create and add many entities from a prefab, placing them directly in the prefab's archetype
+     * @param prefab The prefab to instantiate
+     * @param count Number of entities to create
+     * @param initializer Called with each entity and its index before it is added, may be null
+     */
+    public synchronized void instantiate(Prefab prefab, int count, ObjIntConsumer<Entity> initializer) {
+        // Look the archetype up once for the whole batch
+        Archetype archetype = iterating ? null : getOrCreateArchetype(prefab.getComponentMask());
+
+        for (int i = 0; i < count; i++) {
+            Entity entity = newInstance(prefab);
+            if (initializer != null) {
+                initializer.accept(entity, i);
+            }
+            attach(entity);
+
+            if (archetype != null && archetype.getComponentMask().equals(entity.getComponentMask())) {
+                archetype.add(entity);
+            } else {
+                // Deferred, or the initializer changed the component set
+                scheduleMove(entity);
+            }
+        }
+    }
+
     /**
      * Create and add a new entity
      * @return The new entity
@@ -58,22 +191,318 @@ public class ECSManager {
 
     /**
      * Remove an entity from the manager
-     * @param entityId The ID of the entity to remove
+     * @param entityId The handle of the entity to remove
+     */
+    public void removeEntity(long entityId) {
+        Entity entity = getEntity(entityId);
+        if (entity != null) {
+            removeEntity(entity);
+        }
+    }
+
+    /**
+     * Remove an entity from the manager
+     * @param entity The entity to remove
      */
-    public void removeEntity(UUID entityId) {
-        Entity entity = entities.remove(entityId);
-        if (entity != null && entity.getName() != null) {
+    public synchronized void removeEntity(Entity entity) {
+        if (entity.manager != this) {
+            return;
+        }
+
+        if (entity.getName() != null && entitiesByName.get(entity.getName()) == entity) {
             entitiesByName.remove(entity.getName());
         }
+        for (Component component : entity.getAllComponents()) {
+            unregisterComponent(entity, component);
+        }
+
+        freeHandle(entity.id);
+        entity.id = EntityHandle.NONE;
+        entity.manager = null;
+        entityCount--;
+        scheduleMove(entity);
     }
 
     /**
-     * Get an entity by ID
-     * @param entityId The ID of the entity to get
+     * Get an entity by handle
+     * @param entityId The handle of the entity to get
+     * @return The entity or null if not found or already destroyed
+     */
+    public Entity getEntity(long entityId) {
+        int index = EntityHandle.index(entityId);
+        if (index < 0 || index >= slotCount) {
+            return null;
+        }
+
+        Entity entity = slots[index];
+        return entity != null && entity.id == entityId ? entity : null;
+    }
+
+    /**
+     * Get an entity by the network id of its NetworkComponent
+     * @param networkId The network UUID
      * @return The entity or null if not found
      */
-    public Entity getEntity(UUID entityId) {
-        return entities.get(entityId);
+    public Entity getEntityByNetworkId(UUID networkId) {
+        return networkIdIndex.getFirst(networkId);
+    }
+
+    /**
+     * Get the entity whose PlayerComponent is flagged as the local player
+     * @return The entity or null if there is no local player
+     */
+    public Entity getLocalPlayerEntity() {
+        return localPlayerIndex.getFirst(Boolean.TRUE);
+    }
+
+    /**
+     * Get all entities with a TileComponent of a given tile id
+     * @param tileId The tile id
+     * @return Read-only list of the entities, empty if none
+     */
+    public List<Entity> getEntitiesByTileId(int tileId) {
+        return tileIdIndex.getAll(tileId);
+    }
+
+    /**
+     * Create a secondary index over a component field.
+     * The index is filled with the components already attached and kept up to date from then on.
+     * Components must call Component.keyChanged() when the indexed field changes after being attached.
+     * @param componentClass The component type to index
+     * @param keyFunction Extracts the key; components with a null key are not indexed
+     * @return The new index
+     */
+    public synchronized <K, T extends Component> ComponentIndex<K, T> createIndex(
+            Class<T> componentClass, Function<? super T, ? extends K> keyFunction) {
+        ComponentIndex<K, T> index = new ComponentIndex<>(componentClass, keyFunction);
+        addObserver(componentClass, index.observer);
+        return index;
+    }
+
+    /**
+     * Stop maintaining a secondary index created with createIndex
+     * @param index The index to remove
+     */
+    public synchronized void removeIndex(ComponentIndex<?, ?> index) {
+        removeObserver(index.getComponentType(), index.observer);
+        index.clear();
+    }
+
+    /**
+     * Tell an observer about every component of a type attached from now on, and about the ones already attached
+     * @param componentClass The component type to observe
+     * @param observer The observer
+     */
+    public synchronized <T extends Component> void addObserver(Class<T> componentClass, ComponentObserver<? super T> observer) {
+        int typeId = ComponentType.getId(componentClass);
+        while (observersByType.size() <= typeId) {
+            observersByType.add(null);
+        }
+        if (observersByType.get(typeId) == null) {
+            observersByType.set(typeId, new ArrayList<>(1));
+        }
+        observersByType.get(typeId).add(observer);
+
+        for (int i = 0; i < slotCount; i++) {
+            Entity entity = slots[i];
+            if (entity != null) {
+                T component = entity.getComponent(componentClass);
+                if (component != null) {
+                    observer.componentAttached(entity, component);
+                }
+            }
+        }
+    }
+
+    /**
+     * Stop telling an observer about a component type; it is not told about the components still attached
+     * @param componentClass The observed component type
+     * @param observer The observer to remove
+     */
+    public synchronized void removeObserver(Class<? extends Component> componentClass, ComponentObserver<?> observer) {
+        int typeId = ComponentType.getId(componentClass);
+        if (typeId < observersByType.size() && observersByType.get(typeId) != null) {
+            observersByType.get(typeId).remove(observer);
+        }
+    }
+
+    /**
+     * Tell the observers of a component's type that one of its key fields changed
+     */
+    synchronized void reindex(Component component) {
+        List<ComponentObserver<Component>> observers = getObservers(component);
+        if (observers != null) {
+            Entity entity = getEntity(component.getEntityId());
+            for (ComponentObserver<Component> observer : observers) {
+                observer.componentKeyChanged(entity, component);
+            }
+        }
+    }
+
+    /**
+     * Find the entities whose position lies within a circle
+     * @param x Circle centre x
+     * @param y Circle centre y
+     * @param radius Circle radius
+     * @param componentMask Components the entities must have, or null for any entity with a transform
+     * @return New list of the matching active entities
+     */
+    public List<Entity> queryRadius(float x, float y, float radius, ComponentMask componentMask) {
+        List<Entity> result = new ArrayList<>();
+        queryRadius(x, y, radius, componentMask, result);
+        return result;
+    }
+
+    /**
+     * Find the entities whose position lies within a circle, without allocating
+     * @param result Collection the matching active entities are added to
+     * @return Number of entities added
+     */
+    public int queryRadius(float x, float y, float radius, ComponentMask componentMask, Collection<? super Entity> result) {
+        return querySpatialHash(x - radius, y - radius, x + radius, y + radius, x, y, radius * radius, componentMask, result);
+    }
+
+    /**
+     * Find the entities whose position lies within a rectangle
+     * @param minX Left edge
+     * @param minY Top edge
+     * @param maxX Right edge
+     * @param maxY Bottom edge
+     * @param componentMask Components the entities must have, or null for any entity with a transform
+     * @return New list of the matching active entities
+     */
+    public List<Entity> queryRect(float minX, float minY, float maxX, float maxY, ComponentMask componentMask) {
+        List<Entity> result = new ArrayList<>();
+        queryRect(minX, minY, maxX, maxY, componentMask, result);
+        return result;
+    }
+
+    /**
+     * Find the entities whose position lies within a rectangle, without allocating
+     * @param result Collection the matching active entities are added to
+     * @return Number of entities added
+     */
+    public int queryRect(float minX, float minY, float maxX, float maxY, ComponentMask componentMask,
+                         Collection<? super Entity> result) {
+        return querySpatialHash(minX, minY, maxX, maxY, 0, 0, -1, componentMask, result);
+    }
+
+    /**
+     * Set the cell size of the spatial index, ideally around the typical query radius
+     * @param cellSize Cell edge length in world units
+     */
+    public synchronized void setSpatialCellSize(float cellSize) {
+        SpatialHash rebuilt = new SpatialHash(cellSize, slotCount);
+        float[] x = transformStore.getX();
+        float[] y = transformStore.getY();
+        for (int i = 0; i < slotCount; i++) {
+            if (spatialHash.contains(i)) {
+                rebuilt.insert(i, x[i], y[i]);
+            }
+        }
+        spatialHash = rebuilt;
+        spatialRefreshTick = changeTick;
+    }
+
+    public float getSpatialCellSize() {
+        return spatialHash.getCellSize();
+    }
+
+    private int querySpatialHash(float minX, float minY, float maxX, float maxY, float centerX, float centerY,
+                                 float radiusSquared, ComponentMask componentMask, Collection<? super Entity> result) {
+        if (spatialRefreshTick != changeTick) {
+            refreshSpatialHash();
+        }
+
+        SpatialHash hash = spatialHash;
+        float[] x = transformStore.getX();
+        float[] y = transformStore.getY();
+        int minCellX = hash.cellOf(minX);
+        int minCellY = hash.cellOf(minY);
+        int maxCellX = hash.cellOf(maxX);
+        int maxCellY = hash.cellOf(maxY);
+        int found = 0;
+
+        for (int cellY = minCellY; cellY <= maxCellY; cellY++) {
+            for (int cellX = minCellX; cellX <= maxCellX; cellX++) {
+                for (int slot = hash.firstInCell(cellX, cellY); slot >= 0; slot = hash.nextInCell(slot)) {
+                    float px = x[slot];
+                    float py = y[slot];
+                    if (radiusSquared >= 0) {
+                        float dx = px - centerX;
+                        float dy = py - centerY;
+                        if (dx * dx + dy * dy > radiusSquared) {
+                            continue;
+                        }
+                    } else if (px < minX || px > maxX || py < minY || py > maxY) {
+                        continue;
+                    }
+
+                    Entity entity = slots[slot];
+                    if (entity != null && entity.isActive()
+                            && (componentMask == null || entity.getComponentMask().containsAll(componentMask))) {
+                        result.add(entity);
+                        found++;
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Refile the entities whose transform changed since the last refresh.
+     * Entities are filed by their position as of the last sync point; runs at most once per change tick.
+     */
+    private synchronized void refreshSpatialHash() {
+        int tick = changeTick;
+        if (spatialRefreshTick != tick) {
+            spatialHash.refresh(transformStore, slotCount, spatialRefreshTick);
+            spatialRefreshTick = tick;
+        }
+    }
+
+    /**
+     * Set the world-wide instance of a component type, replacing any previous one.
+     * Singletons are not attached to an entity and not seen by systems.
+     * @param component The singleton component
+     */
+    public synchronized void setSingleton(Component component) {
+        int typeId = ComponentType.getId(component.getClass());
+        if (typeId >= singletons.length) {
+            singletons = Arrays.copyOf(singletons, Math.max(typeId + 1, singletons.length * 2));
+        }
+        singletons[typeId] = component;
+        component.markChanged();
+    }
+
+    /**
+     * Get the world-wide instance of a component type
+     * @param componentClass The component type
+     * @return The singleton or null if none was set
+     */
+    public <T extends Component> T getSingleton(Class<T> componentClass) {
+        int typeId = ComponentType.getId(componentClass);
+        Component[] current = singletons;
+        return typeId < current.length ? componentClass.cast(current[typeId]) : null;
+    }
+
+    /**
+     * Remove the world-wide instance of a component type
+     * @param componentClass The component type
+     */
+    public synchronized void removeSingleton(Class<? extends Component> componentClass) {
+        int typeId = ComponentType.getId(componentClass);
+        if (typeId < singletons.length) {
+            singletons[typeId] = null;
+        }
+    }
+
+    /**
+     * Get the number of entities in the manager
+     */
+    public int getEntityCount() {
+        return entityCount;
     }
 
     /**
@@ -86,11 +515,25 @@ public class ECSManager {
     }
 
     /**
-     * Get all entities in the manager
-     * @return List of all entities
+     * Get a live read-only view of all entities in the manager.
+     * Unlike {@link #getAllEntities()} nothing is copied, so it must not be held across structural changes.
+     */
+    public Collection<Entity> getEntities() {
+        return entityView;
+    }
+
+    /**
+     * Get a snapshot of all entities in the manager
+     * @return New list of all entities
      */
     public List<Entity> getAllEntities() {
-        return new ArrayList<>(entities.values());
+        List<Entity> result = new ArrayList<>(entityCount);
+        for (int i = 0; i < slotCount; i++) {
+            if (slots[i] != null) {
+                result.add(slots[i]);
+            }
+        }
+        return result;
     }
 
     /**
@@ -99,8 +542,20 @@ public class ECSManager {
      */
     public void addSystem(System system) {
         systems.add(system);
+        system.manager = this;
+
+        // Collect the archetypes that already exist for this system
+        system.matchingArchetypes.clear();
+        for (Archetype archetype : archetypes.values()) {
+            if (system.matches(archetype)) {
+                system.matchingArchetypes.add(archetype);
+            }
+        }
+
         // Sort systems by priority
         systems.sort((a, b) -> Integer.compare(a.getPriority(), b.getPriority()));
+        scheduler.invalidate();
+        system.onAdded(this);
     }
 
     /**
@@ -110,7 +565,18 @@ public class ECSManager {
      * @return True if the system was removed
      */
     public <T extends System> boolean removeSystem(Class<T> systemClass) {
-        return systems.removeIf(system -> system.getClass().equals(systemClass));
+        boolean removed = systems.removeIf(system -> {
+            if (system.getClass().equals(systemClass)) {
+                system.onRemoved(this);
+                system.manager = null;
+                return true;
+            }
+            return false;
+        });
+        if (removed) {
+            scheduler.invalidate();
+        }
+        return removed;
     }
 
     /**
@@ -134,27 +600,467 @@ public class ECSManager {
      * @param deltaTime Time since last frame
      */
     public void update(float deltaTime) {
+        // Positions before this step, so rendering can interpolate towards the new ones
+        transformStore.savePreviousPositions(slotCount);
+        stepStartTick = changeTick - 1;
+
+        if (parallelScheduling) {
+            scheduler.run(this, systems, getWorkerPool(), deltaTime);
+            return;
+        }
+
         for (System system : systems) {
-            if (system.isEnabled()) {
-                system.begin(deltaTime);
+            if (system.isEnabled() && !system.isRenderPhase()) {
+                beginStructuralDeferral();
+                try {
+                    runSystem(system, deltaTime);
+                } finally {
+                    endStructuralDeferral();
+                }
+            }
+        }
+    }
 
-                for (Entity entity : entities.values()) {
-                    if (system.matches(entity)) {
-                        system.processEntity(entity, deltaTime);
-                    }
+    /**
+     * Run the render-phase systems once for the current frame
+     * @param interpolationAlpha How far the frame is between the previous and the latest update, 0..1
+     */
+    public void render(float interpolationAlpha) {
+        this.interpolationAlpha = interpolationAlpha;
+
+        for (System system : systems) {
+            if (system.isEnabled() && system.isRenderPhase()) {
+                beginStructuralDeferral();
+                try {
+                    runSystem(system, 0.0f);
+                } finally {
+                    endStructuralDeferral();
                 }
+            }
+        }
+    }
+
+    /**
+     * Run one system over its matching entities
+     * @param system The system to run
+     * @param deltaTime Time since last frame
+     */
+    void runSystem(System system, float deltaTime) {
+        if (profilingEnabled) {
+            profiler.profile(system, deltaTime);
+        } else {
+            system.update(deltaTime);
+        }
+        system.lastRunTick = changeTick;
+    }
+
+    /**
+     * Start deferring archetype moves; called before systems run
+     */
+    void beginStructuralDeferral() {
+        iterating = true;
+    }
+
+    /**
+     * Stop deferring and apply all archetype moves and recorded commands; this is the sync point between systems
+     */
+    void endStructuralDeferral() {
+        iterating = false;
+        // Later changes, including those applied below, must look newer than the systems that just ran
+        changeTick++;
+        flushPendingMoves();
+        playbackCommands();
+    }
+
+    /**
+     * Get the current change tick. It advances after every system (or parallel stage),
+     * so a component changed after a system ran always has a newer tick than that system's last run.
+     */
+    public int getChangeTick() {
+        return changeTick;
+    }
+
+    /**
+     * Get how far the frame being rendered is between the previous and the latest update, 0..1
+     */
+    public float getInterpolationAlpha() {
+        return interpolationAlpha;
+    }
+
+    /**
+     * Get the change tick from just before the latest update started; components with a newer tick
+     * changed during that update or later, so their previous and current positions may differ
+     */
+    public int getStepStartTick() {
+        return stepStartTick;
+    }
+
+    /**
+     * Get the command buffer for structural changes made outside of systems during an update,
+     * e.g. from collision or network callbacks
+     */
+    public EntityCommandBuffer getCommandBuffer() {
+        return commandBuffer;
+    }
+
+    /**
+     * Apply the manager's command buffer, then those of the systems in priority order
+     */
+    private void playbackCommands() {
+        if (!commandBuffer.isEmpty()) {
+            commandBuffer.playback(this);
+        }
+        for (int i = 0; i < systems.size(); i++) {
+            EntityCommandBuffer buffer = systems.get(i).getCommandBuffer();
+            if (!buffer.isEmpty()) {
+                buffer.playback(this);
+            }
+        }
+    }
+
+    /**
+     * Enable or disable running systems concurrently.
+     * Only systems that declare their component access may share a stage with others.
+     * @param parallelScheduling True to run independent systems on the worker pool
+     */
+    public void setParallelScheduling(boolean parallelScheduling) {
+        this.parallelScheduling = parallelScheduling;
+    }
+
+    public boolean isParallelScheduling() {
+        return parallelScheduling;
+    }
+
+    /**
+     * Enable or disable per-system profiling. While disabled, systems run without any instrumentation.
+     * Samples recorded earlier are kept and collected again when profiling is re-enabled.
+     * @param enabled True to record a sample for every system run
+     */
+    public void setProfilingEnabled(boolean enabled) {
+        this.profilingEnabled = enabled;
+    }
+
+    public boolean isProfilingEnabled() {
+        return profilingEnabled;
+    }
+
+    /**
+     * Get the profiler holding the recorded samples
+     */
+    public SystemProfiler getProfiler() {
+        return profiler;
+    }
+
+    /**
+     * Get the pool used for parallel system work, creating it on first use
+     */
+    synchronized ForkJoinPool getWorkerPool() {
+        if (workerPool == null) {
+            // The updating thread works too, so leave one core for it
+            int parallelism = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+            workerPool = new ForkJoinPool(parallelism, pool -> {
+                java.util.concurrent.ForkJoinWorkerThread thread =
+                        ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                thread.setName("ecs-worker-" + thread.getPoolIndex());
+                thread.setDaemon(true);
+                return thread;
+            }, null, false);
+        }
+        return workerPool;
+    }
+
+    /**
+     * Called by an entity when a component of a new type was added
+     */
+    synchronized void onComponentAdded(Entity entity, Component component) {
+        registerComponent(entity, component);
+        scheduleMove(entity);
+    }
+
+    /**
+     * Called by an entity when a component was removed
+     */
+    synchronized void onComponentRemoved(Entity entity, Component component) {
+        unregisterComponent(entity, component);
+        scheduleMove(entity);
+    }
+
+    /**
+     * Called by an entity when its active flag changed
+     */
+    synchronized void onActiveChanged(Entity entity) {
+        if (iterating) {
+            scheduleMove(entity);
+        } else if (!entity.pendingMove && entity.archetype != null) {
+            entity.archetype.updateActive(entity);
+        }
+    }
+
+    /**
+     * Called by an entity when a component was replaced by another of the same type
+     */
+    synchronized void onComponentReplaced(Entity entity, Component previous, Component component) {
+        unregisterComponent(entity, previous);
+        registerComponent(entity, component);
+
+        if (entity.pendingMove) {
+            // The move will copy the current component anyway
+            return;
+        }
+        if (entity.archetype != null) {
+            entity.archetype.replace(entity, component);
+        }
+    }
+
+    /**
+     * Update lookup tables that depend on a newly attached component
+     */
+    private void registerComponent(Entity entity, Component component) {
+        // Newly attached components count as changed for every system
+        component.markChanged();
+        if (component instanceof TransformComponent) {
+            ((TransformComponent) component).bindStore(transformStore, entity.getIndex());
+            int slot = entity.getIndex();
+            spatialHash.insert(slot, transformStore.getX()[slot], transformStore.getY()[slot]);
+        } else if (component instanceof MovementComponent) {
+            ((MovementComponent) component).bindStore(transformStore, entity.getIndex());
+        }
 
-                system.end(deltaTime);
+        List<ComponentObserver<Component>> observers = getObservers(component);
+        if (observers != null) {
+            for (ComponentObserver<Component> observer : observers) {
+                observer.componentAttached(entity, component);
             }
         }
     }
 
+    /**
+     * Update lookup tables that depend on a detached component
+     */
+    private void unregisterComponent(Entity entity, Component component) {
+        if (component instanceof TransformComponent) {
+            ((TransformComponent) component).unbindStore();
+            spatialHash.remove(entity.getIndex());
+        } else if (component instanceof MovementComponent) {
+            ((MovementComponent) component).unbindStore();
+        }
+
+        List<ComponentObserver<Component>> observers = getObservers(component);
+        if (observers != null) {
+            for (ComponentObserver<Component> observer : observers) {
+                observer.componentDetached(entity, component);
+            }
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private List<ComponentObserver<Component>> getObservers(Component component) {
+        int typeId = ComponentType.getId(component.getClass());
+        // Observers are registered under the exact class of the components they are told about
+        return typeId < observersByType.size() ? (List) observersByType.get(typeId) : null;
+    }
+
+    /**
+     * Take a free slot (or a new one) and build the entity's handle from its generation
+     */
+    private long allocateHandle(Entity entity) {
+        int index;
+        if (freeCount > 0) {
+            index = freeSlots[--freeCount];
+        } else {
+            if (slotCount == slots.length) {
+                slots = Arrays.copyOf(slots, slotCount * 2);
+                generations = Arrays.copyOf(generations, slotCount * 2);
+                transformStore.ensureCapacity(slotCount * 2);
+            }
+            index = slotCount++;
+            // Generation 0 is reserved so that no live handle equals EntityHandle.NONE
+            generations[index] = 1;
+        }
+
+        slots[index] = entity;
+        return EntityHandle.pack(index, generations[index]);
+    }
+
+    /**
+     * Return a slot to the free list, bumping its generation so old handles go stale
+     */
+    private void freeHandle(long handle) {
+        int index = EntityHandle.index(handle);
+        slots[index] = null;
+        generations[index]++;
+        if (generations[index] == 0) {
+            generations[index] = 1;
+        }
+
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        }
+        freeSlots[freeCount++] = index;
+    }
+
+    /**
+     * Move an entity to the archetype matching its components, or defer it while systems iterate
+     */
+    private void scheduleMove(Entity entity) {
+        if (iterating) {
+            if (!entity.pendingMove) {
+                entity.pendingMove = true;
+                pendingMoves.add(entity);
+            }
+        } else {
+            moveToArchetype(entity);
+        }
+    }
+
+    /**
+     * Apply all archetype moves deferred during iteration
+     */
+    private synchronized void flushPendingMoves() {
+        for (int i = 0; i < pendingMoves.size(); i++) {
+            Entity entity = pendingMoves.get(i);
+            entity.pendingMove = false;
+            moveToArchetype(entity);
+        }
+        pendingMoves.clear();
+    }
+
+    /**
+     * Place an entity in the archetype of its current component set (none if it was removed)
+     */
+    private void moveToArchetype(Entity entity) {
+        if (entity.archetype != null) {
+            entity.archetype.remove(entity);
+        }
+        if (entity.manager == this) {
+            getOrCreateArchetype(entity.getComponentMask()).add(entity);
+        } else if (entity.prefab != null) {
+            recycle(entity);
+        }
+    }
+
+    /**
+     * Return a destroyed prefab instance and its components to the pools
+     */
+    private void recycle(Entity entity) {
+        ComponentMask mask = entity.getComponentMask();
+        for (int typeId = mask.nextSetBit(0); typeId >= 0; typeId = mask.nextSetBit(typeId + 1)) {
+            getComponentPool(typeId).release(entity.getComponent(typeId));
+        }
+        entity.reset();
+        entityPool.release(entity);
+    }
+
+    private ObjectPool<Component> getComponentPool(int typeId) {
+        while (componentPools.size() <= typeId) {
+            componentPools.add(new ObjectPool<>(MAX_POOL_SIZE));
+        }
+        return componentPools.get(typeId);
+    }
+
+    /**
+     * Find the archetype for a component set, registering it with matching systems when new
+     */
+    private Archetype getOrCreateArchetype(ComponentMask componentMask) {
+        Archetype archetype = archetypes.get(componentMask);
+        if (archetype == null) {
+            archetype = new Archetype(componentMask);
+            archetypes.put(archetype.getComponentMask(), archetype);
+
+            for (System system : systems) {
+                if (system.matches(archetype)) {
+                    system.matchingArchetypes.add(archetype);
+                }
+            }
+        }
+        return archetype;
+    }
+
+    /**
+     * Get the structure-of-arrays store backing the transform and movement components of managed entities
+     */
+    public TransformStore getTransformStore() {
+        return transformStore;
+    }
+
+    /**
+     * Get all archetypes currently known to the manager
+     * @return Read-only view of the archetypes
+     */
+    public Collection<Archetype> getArchetypes() {
+        return Collections.unmodifiableCollection(archetypes.values());
+    }
+
     /**
      * Clear all entities and systems
      */
     public void clear() {
-        entities.clear();
+        for (int i = 0; i < slotCount; i++) {
+            Entity entity = slots[i];
+            if (entity != null) {
+                for (Component component : entity.getAllComponents()) {
+                    unregisterComponent(entity, component);
+                }
+                freeHandle(entity.id);
+                entity.id = EntityHandle.NONE;
+                entity.manager = null;
+                entity.archetype = null;
+                entity.archetypeRow = -1;
+                entity.pendingMove = false;
+            }
+        }
+        entityCount = 0;
         entitiesByName.clear();
+        Arrays.fill(singletons, null);
+        archetypes.clear();
+        pendingMoves.clear();
+        commandBuffer.clear();
+        entityPool.clear();
+        componentPools.clear();
+        for (System system : systems) {
+            system.onRemoved(this);
+            system.manager = null;
+        }
         systems.clear();
+        scheduler.invalidate();
+    }
+
+    /**
+     * Read-only collection over the occupied entity slots
+     */
+    private class EntityView extends AbstractCollection<Entity> {
+        @Override
+        public Iterator<Entity> iterator() {
+            return new Iterator<>() {
+                private int next = advance(0);
+
+                private int advance(int from) {
+                    while (from < slotCount && slots[from] == null) {
+                        from++;
+                    }
+                    return from;
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return next < slotCount;
+                }
+
+                @Override
+                public Entity next() {
+                    if (next >= slotCount) {
+                        throw new NoSuchElementException();
+                    }
+                    Entity entity = slots[next];
+                    next = advance(next + 1);
+                    return entity;
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return entityCount;
+        }
     }
 }
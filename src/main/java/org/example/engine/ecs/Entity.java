@@ -1,34 +1,51 @@
 package org.example.engine.ecs;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
-import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Represents a game entity with a collection of components
  */
 public class Entity {
-    private final UUID id;
-    private final Map<Class<? extends Component>, Component> components = new ConcurrentHashMap<>();
+    // Generational handle, assigned by the ECSManager when the entity is added
+    long id = EntityHandle.NONE;
+    // Components indexed by their ComponentType id
+    private Component[] components = new Component[Math.max(8, ComponentType.getCount())];
+    private final ComponentMask componentMask = new ComponentMask();
     private boolean isActive = true;
     private String name;
 
+    // Storage bookkeeping, maintained by the owning ECSManager
+    ECSManager manager;
+    Archetype archetype;
+    int archetypeRow = -1;
+    boolean pendingMove = false;
+    // Prefab this entity was instantiated from; such entities are recycled when destroyed
+    Prefab prefab;
+
     public Entity() {
-        this.id = UUID.randomUUID();
     }
 
     public Entity(String name) {
-        this.id = UUID.randomUUID();
         this.name = name;
     }
 
-    public UUID getId() {
+    /**
+     * Get the generational handle of this entity
+     * @return The handle, or EntityHandle.NONE if the entity is not in a manager
+     */
+    public long getId() {
         return id;
     }
 
+    /**
+     * Get the storage slot index of this entity, or -1 if it is not in a manager
+     */
+    public int getIndex() {
+        return id != EntityHandle.NONE ? EntityHandle.index(id) : -1;
+    }
+
     public String getName() {
         return name;
     }
@@ -42,7 +59,14 @@ public class Entity {
     }
 
     public void setActive(boolean active) {
+        if (isActive == active) {
+            return;
+        }
         isActive = active;
+
+        if (manager != null) {
+            manager.onActiveChanged(this);
+        }
     }
 
     /**
@@ -52,9 +76,24 @@ public class Entity {
      * @return This entity (for chaining)
      */
     public <T extends Component> Entity addComponent(T component) {
+        int typeId = ComponentType.getId(component.getClass());
+        if (typeId >= components.length) {
+            components = Arrays.copyOf(components, Math.max(typeId + 1, components.length * 2));
+        }
+
         component.setEntityId(id);
-        components.put(component.getClass(), component);
+        Component previous = components[typeId];
+        components[typeId] = component;
+        componentMask.set(typeId);
         component.onAdd();
+
+        if (manager != null) {
+            if (previous == null) {
+                manager.onComponentAdded(this, component);
+            } else {
+                manager.onComponentReplaced(this, previous, component);
+            }
+        }
         return this;
     }
 
@@ -65,12 +104,33 @@ public class Entity {
      * @return True if the component was removed, false if it wasn't found
      */
     public <T extends Component> boolean removeComponent(Class<T> componentClass) {
-        Component component = components.remove(componentClass);
-        if (component != null) {
-            component.onRemove();
-            return true;
+        int typeId = ComponentType.getId(componentClass);
+        if (typeId >= components.length || components[typeId] == null) {
+            return false;
+        }
+
+        Component component = components[typeId];
+        components[typeId] = null;
+        componentMask.clear(typeId);
+        component.onRemove();
+
+        if (manager != null) {
+            manager.onComponentRemoved(this, component);
         }
-        return false;
+        return true;
+    }
+
+    /**
+     * Strip all components and state so a recycled entity can be reused; the components are not notified
+     */
+    void reset() {
+        for (int typeId = componentMask.nextSetBit(0); typeId >= 0; typeId = componentMask.nextSetBit(typeId + 1)) {
+            components[typeId] = null;
+            componentMask.clear(typeId);
+        }
+        isActive = true;
+        name = null;
+        prefab = null;
     }
 
     /**
@@ -81,7 +141,17 @@ public class Entity {
      */
     @SuppressWarnings("unchecked")
     public <T extends Component> T getComponent(Class<T> componentClass) {
-        return (T) components.get(componentClass);
+        int typeId = ComponentType.getId(componentClass);
+        return typeId < components.length ? (T) components[typeId] : null;
+    }
+
+    /**
+     * Get a component by its registered type id
+     * @param typeId The ComponentType id
+     * @return The component or null if not found
+     */
+    public Component getComponent(int typeId) {
+        return typeId < components.length ? components[typeId] : null;
     }
 
     /**
@@ -90,7 +160,7 @@ public class Entity {
      * @return True if the entity has the component
      */
     public boolean hasComponent(Class<? extends Component> componentClass) {
-        return components.containsKey(componentClass);
+        return componentMask.get(ComponentType.getId(componentClass));
     }
 
     /**
@@ -100,19 +170,32 @@ public class Entity {
      */
     public boolean hasAllComponents(Class<? extends Component>... componentClasses) {
         for (Class<? extends Component> componentClass : componentClasses) {
-            if (!components.containsKey(componentClass)) {
+            if (!hasComponent(componentClass)) {
                 return false;
             }
         }
         return true;
     }
 
+    /**
+     * Get the bitmask of component types attached to this entity
+     * @return Live mask, must not be modified by callers
+     */
+    public ComponentMask getComponentMask() {
+        return componentMask;
+    }
+
     /**
      * Get all components in this entity
      * @return List of all components
      */
     public List<Component> getAllComponents() {
-        return new ArrayList<>(components.values());
+        List<Component> result = new ArrayList<>();
+        for (Component component : components) {
+            if (component != null) {
+                result.add(component);
+            }
+        }
+        return result;
     }
 }
-
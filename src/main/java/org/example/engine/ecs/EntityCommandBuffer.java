@@ -0,0 +1,142 @@
+package org.example.engine.ecs;
+
+import java.util.Arrays;
+
+/**
+ * Records structural changes (spawning, destroying, adding and removing components)
+ * so they can be applied in one batch at a sync point instead of while systems iterate.
+ * Commands are applied in the order they were recorded. Recording is thread-safe.
+ */
+public class EntityCommandBuffer {
+    private static final byte SPAWN = 0;
+    private static final byte DESTROY = 1;
+    private static final byte ADD_COMPONENT = 2;
+    private static final byte REMOVE_COMPONENT = 3;
+
+    // Commands stored as parallel arrays to avoid one object per command
+    private byte[] ops = new byte[32];
+    private Entity[] targets = new Entity[32];
+    private Object[] arguments = new Object[32];
+    private int size = 0;
+
+    /**
+     * Record the creation of a new entity
+     * @return The entity, which can be filled with components before the buffer is applied
+     */
+    public Entity spawn() {
+        return spawn(new Entity());
+    }
+
+    /**
+     * Record the creation of a new named entity
+     * @param name Entity name
+     * @return The entity, which can be filled with components before the buffer is applied
+     */
+    public Entity spawn(String name) {
+        return spawn(new Entity(name));
+    }
+
+    /**
+     * Record adding an existing entity object to the manager
+     * @param entity The entity to add
+     * @return The same entity
+     */
+    public Entity spawn(Entity entity) {
+        record(SPAWN, entity, null);
+        return entity;
+    }
+
+    /**
+     * Record the removal of an entity
+     * @param entity The entity to remove
+     */
+    public void destroy(Entity entity) {
+        record(DESTROY, entity, null);
+    }
+
+    /**
+     * Record adding (or replacing) a component on an entity
+     * @param entity The target entity
+     * @param component The component to add
+     */
+    public void addComponent(Entity entity, Component component) {
+        record(ADD_COMPONENT, entity, component);
+    }
+
+    /**
+     * Record removing a component from an entity
+     * @param entity The target entity
+     * @param componentClass The component class to remove
+     */
+    public void removeComponent(Entity entity, Class<? extends Component> componentClass) {
+        record(REMOVE_COMPONENT, entity, componentClass);
+    }
+
+    /**
+     * Check if there are commands waiting to be applied
+     */
+    public synchronized boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Get the number of recorded commands
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Drop all recorded commands without applying them
+     */
+    public synchronized void clear() {
+        Arrays.fill(targets, 0, size, null);
+        Arrays.fill(arguments, 0, size, null);
+        size = 0;
+    }
+
+    /**
+     * Apply all recorded commands to a manager and empty the buffer
+     * @param manager The manager to apply the commands to
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized void playback(ECSManager manager) {
+        // Commands recorded while applying (e.g. from component callbacks) are applied in the same pass
+        for (int i = 0; i < size; i++) {
+            Entity entity = targets[i];
+            switch (ops[i]) {
+                case SPAWN:
+                    manager.addEntity(entity);
+                    break;
+                case DESTROY:
+                    manager.removeEntity(entity);
+                    break;
+                case ADD_COMPONENT:
+                    entity.addComponent((Component) arguments[i]);
+                    break;
+                case REMOVE_COMPONENT:
+                    entity.removeComponent((Class<? extends Component>) arguments[i]);
+                    break;
+                default:
+                    break;
+            }
+        }
+        clear();
+    }
+
+    private synchronized void record(byte op, Entity entity, Object argument) {
+        if (entity == null) {
+            throw new IllegalArgumentException("Command target entity cannot be null");
+        }
+
+        if (size == ops.length) {
+            ops = Arrays.copyOf(ops, size * 2);
+            targets = Arrays.copyOf(targets, size * 2);
+            arguments = Arrays.copyOf(arguments, size * 2);
+        }
+        ops[size] = op;
+        targets[size] = entity;
+        arguments[size] = argument;
+        size++;
+    }
+}
@@ -0,0 +1,43 @@
+package org.example.engine.ecs;
+
+/**
+ * Helpers for generational entity handles.
+ * A handle packs a slot index (low 32 bits) and the slot's generation (high 32 bits),
+ * so a handle to a destroyed entity never resolves to the entity that reuses its slot.
+ */
+public final class EntityHandle {
+    // Handle of an entity that is not registered with a manager
+    public static final long NONE = 0L;
+
+    private EntityHandle() {
+        // Static helpers
+    }
+
+    /**
+     * Pack a slot index and generation into a handle
+     */
+    public static long pack(int index, int generation) {
+        return ((long) generation << 32) | (index & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Get the slot index of a handle
+     */
+    public static int index(long handle) {
+        return (int) handle;
+    }
+
+    /**
+     * Get the generation of a handle
+     */
+    public static int generation(long handle) {
+        return (int) (handle >>> 32);
+    }
+
+    /**
+     * Format a handle for logging as index:generation
+     */
+    public static String toString(long handle) {
+        return index(handle) + ":" + generation(handle);
+    }
+}
@@ -0,0 +1,53 @@
+package org.example.engine.ecs;
+
+import java.util.Arrays;
+
+/**
+ * Bounded stack of reusable objects, used to recycle entities and components
+ * @param <T> Pooled type
+ */
+class ObjectPool<T> {
+    private final int maxSize;
+    private Object[] items = new Object[16];
+    private int size = 0;
+
+    ObjectPool(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Take an object from the pool
+     * @return A pooled object, or null if the pool is empty
+     */
+    @SuppressWarnings("unchecked")
+    T obtain() {
+        if (size == 0) {
+            return null;
+        }
+        T item = (T) items[--size];
+        items[size] = null;
+        return item;
+    }
+
+    /**
+     * Return an object to the pool; it is dropped if the pool is full
+     */
+    void release(T item) {
+        if (size == maxSize) {
+            return;
+        }
+        if (size == items.length) {
+            items = Arrays.copyOf(items, Math.min(maxSize, size * 2));
+        }
+        items[size++] = item;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        Arrays.fill(items, 0, size, null);
+        size = 0;
+    }
+}
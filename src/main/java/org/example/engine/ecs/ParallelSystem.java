@@ -0,0 +1,189 @@
+package org.example.engine.ecs;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * System whose matching entities are split into batches of chunks and processed on worker threads.
+ * Only use it when processEntity touches nothing but the entity's own components, or data
+ * owned by the worker index passed to {@link #processEntity(Entity, float, int)}.
+ * <p>
+ * Per-worker state can be prepared in {@link #beginWorker} and finished in {@link #endWorker},
+ * both called on the worker's thread; {@link #end} runs on the calling thread after every
+ * worker is done and is the place to merge per-worker results.
+ */
+public abstract class ParallelSystem extends System {
+    // Below this many entities per worker, splitting costs more than it saves
+    private int minEntitiesPerWorker = 1024;
+
+    // Work units reused across frames: a chunk and the number of active entities in it
+    private Archetype.Chunk[] unitChunks = new Archetype.Chunk[16];
+    private int[] unitCounts = new int[16];
+    private int unitCount = 0;
+    private final List<ForkJoinTask<?>> pendingTasks = new ArrayList<>();
+
+    @SafeVarargs
+    public ParallelSystem(int priority, Class<? extends Component>... componentTypes) {
+        super(priority, componentTypes);
+    }
+
+    /**
+     * Called on the worker thread before it processes its batch
+     * @param worker Index of the worker, from 0 to the number of workers used this frame
+     * @param deltaTime Time since last frame
+     */
+    protected void beginWorker(int worker, float deltaTime) {
+        // Override in subclasses if needed
+    }
+
+    /**
+     * Called on the worker thread after it processed its batch
+     * @param worker Index of the worker
+     * @param deltaTime Time since last frame
+     */
+    protected void endWorker(int worker, float deltaTime) {
+        // Override in subclasses if needed
+    }
+
+    /**
+     * Process a single entity on a worker
+     * @param entity The entity to process
+     * @param deltaTime Time since last frame
+     * @param worker Index of the worker processing the entity
+     */
+    protected void processEntity(Entity entity, float deltaTime, int worker) {
+        processEntity(entity, deltaTime);
+    }
+
+    /**
+     * Process the first entities of a chunk on a worker.
+     * Override to work on whole chunks at once, e.g. through slot-indexed stores.
+     * @param chunk The chunk to process
+     * @param count Number of leading (active) entities to process
+     * @param deltaTime Time since last frame
+     * @param worker Index of the worker processing the chunk
+     */
+    protected void processChunk(Archetype.Chunk chunk, int count, float deltaTime, int worker) {
+        Entity[] entities = chunk.getEntities();
+        for (int i = 0; i < count; i++) {
+            Entity entity = entities[i];
+            if (isProcessable(entity)) {
+                processEntity(entity, deltaTime, worker);
+            }
+        }
+    }
+
+    /**
+     * Get the maximum number of workers a frame can be split into
+     */
+    public int getMaxWorkers() {
+        return getWorkerPool().getParallelism() + 1;
+    }
+
+    public int getMinEntitiesPerWorker() {
+        return minEntitiesPerWorker;
+    }
+
+    public void setMinEntitiesPerWorker(int minEntitiesPerWorker) {
+        this.minEntitiesPerWorker = Math.max(1, minEntitiesPerWorker);
+    }
+
+    @Override
+    public void update(float deltaTime) {
+        begin(deltaTime);
+
+        int total = collectUnits();
+        int workers = Math.min(getMaxWorkers(), Math.max(1, total / minEntitiesPerWorker));
+
+        if (workers == 1) {
+            processUnits(0, unitCount, 0, deltaTime);
+        } else {
+            dispatch(total, workers, deltaTime);
+        }
+
+        Arrays.fill(unitChunks, 0, unitCount, null);
+        unitCount = 0;
+
+        end(deltaTime);
+    }
+
+    /**
+     * Gather the active part of every matching chunk
+     * @return Total number of entities to process
+     */
+    private int collectUnits() {
+        int total = 0;
+        for (Archetype archetype : matchingArchetypes) {
+            int remaining = archetype.activeCount();
+            for (Archetype.Chunk chunk : archetype.getChunks()) {
+                if (remaining <= 0) {
+                    break;
+                }
+                int count = Math.min(chunk.size(), remaining);
+                remaining -= count;
+
+                if (unitCount == unitChunks.length) {
+                    unitChunks = Arrays.copyOf(unitChunks, unitCount * 2);
+                    unitCounts = Arrays.copyOf(unitCounts, unitCount * 2);
+                }
+                unitChunks[unitCount] = chunk;
+                unitCounts[unitCount] = count;
+                unitCount++;
+                total += count;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Split the units into contiguous batches of similar size; the calling thread takes the last one
+     */
+    private void dispatch(int total, int workers, float deltaTime) {
+        ForkJoinPool pool = getWorkerPool();
+        int target = (total + workers - 1) / workers;
+        int start = 0;
+        int worker = 0;
+
+        try {
+            while (worker < workers - 1 && start < unitCount) {
+                int end = start;
+                int batchSize = 0;
+                while (end < unitCount && batchSize < target) {
+                    batchSize += unitCounts[end++];
+                }
+
+                final int from = start;
+                final int to = end;
+                final int index = worker;
+                pendingTasks.add(pool.submit(() -> processUnits(from, to, index, deltaTime)));
+
+                start = end;
+                worker++;
+            }
+
+            if (start < unitCount) {
+                processUnits(start, unitCount, worker, deltaTime);
+            }
+        } finally {
+            for (ForkJoinTask<?> task : pendingTasks) {
+                task.join();
+            }
+            pendingTasks.clear();
+        }
+    }
+
+    private void processUnits(int from, int to, int worker, float deltaTime) {
+        beginWorker(worker, deltaTime);
+        for (int unit = from; unit < to; unit++) {
+            processChunk(unitChunks[unit], unitCounts[unit], deltaTime, worker);
+        }
+        endWorker(worker, deltaTime);
+    }
+
+    private ForkJoinPool getWorkerPool() {
+        return manager != null ? manager.getWorkerPool() : ForkJoinPool.commonPool();
+    }
+}
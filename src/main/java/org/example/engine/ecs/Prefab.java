@@ -0,0 +1,91 @@
+package org.example.engine.ecs;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Template for entities that are spawned often, such as projectiles, particles or tiles.
+ * Its component set is fixed when it is built, so instances go straight into one archetype.
+ * Instances are built from pooled components and return to the pools when destroyed;
+ * code must therefore keep entity handles rather than Entity references to prefab instances.
+ */
+public class Prefab {
+    private final String name;
+    private final List<Entry<?>> entries = new ArrayList<>();
+    private final ComponentMask componentMask = new ComponentMask();
+
+    /**
+     * A component type of the prefab with its factory and the initializer run on every instance
+     */
+    static final class Entry<T extends Component> {
+        final int typeId;
+        final Supplier<T> factory;
+        final Consumer<T> initializer;
+
+        Entry(Class<T> type, Supplier<T> factory, Consumer<T> initializer) {
+            this.typeId = ComponentType.getId(type);
+            this.factory = factory;
+            this.initializer = initializer;
+        }
+
+        @SuppressWarnings("unchecked")
+        Component create(ObjectPool<Component> pool) {
+            Component component = pool != null ? pool.obtain() : null;
+            T instance = component != null ? (T) component : factory.get();
+            if (initializer != null) {
+                initializer.accept(instance);
+            }
+            return instance;
+        }
+    }
+
+    public Prefab(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Add a component type to the prefab.
+     * Pooled components keep the state of their previous owner, so the initializer must
+     * set every field the prefab relies on.
+     * @param type The component class
+     * @param factory Creates a component when the pool is empty
+     * @param initializer Resets a new or pooled component to the template state, may be null
+     * @param <T> Component type
+     * @return This prefab (for chaining)
+     */
+    public <T extends Component> Prefab with(Class<T> type, Supplier<T> factory, Consumer<T> initializer) {
+        int typeId = ComponentType.getId(type);
+        if (componentMask.get(typeId)) {
+            throw new IllegalArgumentException("Prefab " + name + " already has a " + type.getSimpleName());
+        }
+
+        entries.add(new Entry<>(type, factory, initializer));
+        componentMask.set(typeId);
+        return this;
+    }
+
+    /**
+     * Add a component type to the prefab without an initializer
+     */
+    public <T extends Component> Prefab with(Class<T> type, Supplier<T> factory) {
+        return with(type, factory, null);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Get the component set shared by all instances of this prefab
+     * @return The mask, must not be modified by callers
+     */
+    public ComponentMask getComponentMask() {
+        return componentMask;
+    }
+
+    List<Entry<?>> getEntries() {
+        return entries;
+    }
+}
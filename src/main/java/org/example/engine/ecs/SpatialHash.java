@@ -0,0 +1,243 @@
+package org.example.engine.ecs;
+
+import java.util.Arrays;
+
+/**
+ * Uniform grid of entity slots keyed by the cell of their position.
+ * Each occupied cell holds an intrusive doubly linked list through the slot arrays, so
+ * moving an entity between cells is O(1) and nothing is allocated after warm-up.
+ * Cells are found through an open-addressing table; empty cells stay in the table until it grows.
+ */
+final class SpatialHash {
+    private static final int NONE = -1;
+    // Marks a slot that is not in the hash
+    private static final int ABSENT = -2;
+
+    private final float cellSize;
+    private final float inverseCellSize;
+
+    // Per slot: cell key and links to the neighbours in that cell
+    private long[] slotCells = new long[0];
+    private int[] next = new int[0];
+    private int[] previous = new int[0];
+
+    // Cell table: keys and the first slot of each cell
+    private long[] cellKeys;
+    private int[] cellHeads;
+    private boolean[] cellUsed;
+    private int cellCount = 0;
+
+    SpatialHash(float cellSize, int capacity) {
+        if (cellSize <= 0) {
+            throw new IllegalArgumentException("Cell size must be positive");
+        }
+        this.cellSize = cellSize;
+        this.inverseCellSize = 1.0f / cellSize;
+        ensureCapacity(capacity);
+
+        cellKeys = new long[256];
+        cellHeads = new int[256];
+        cellUsed = new boolean[256];
+    }
+
+    float getCellSize() {
+        return cellSize;
+    }
+
+    /**
+     * Get the cell coordinate containing a world coordinate
+     */
+    int cellOf(float coordinate) {
+        return (int) Math.floor(coordinate * inverseCellSize);
+    }
+
+    boolean contains(int slot) {
+        return slot < next.length && previous[slot] != ABSENT;
+    }
+
+    /**
+     * Add a slot at a position, or move it there if it is already present
+     */
+    void insert(int slot, float x, float y) {
+        ensureCapacity(slot + 1);
+        if (previous[slot] != ABSENT) {
+            move(slot, x, y);
+            return;
+        }
+        link(slot, key(cellOf(x), cellOf(y)));
+    }
+
+    void remove(int slot) {
+        if (contains(slot)) {
+            unlink(slot);
+        }
+    }
+
+    /**
+     * Refile a slot after its position changed; does nothing if it stays in the same cell
+     */
+    void move(int slot, float x, float y) {
+        long cell = key(cellOf(x), cellOf(y));
+        if (cell != slotCells[slot]) {
+            unlink(slot);
+            link(slot, cell);
+        }
+    }
+
+    /**
+     * Refile every slot whose transform changed at or after a tick
+     * @param store Positions and change ticks of the slots
+     * @param slotCount Number of slots in use
+     * @param sinceTick Oldest change tick to look at
+     */
+    void refresh(TransformStore store, int slotCount, int sinceTick) {
+        float[] x = store.getX();
+        float[] y = store.getY();
+        int[] changeTicks = store.getChangeTicks();
+        int count = Math.min(slotCount, next.length);
+        for (int slot = 0; slot < count; slot++) {
+            if (changeTicks[slot] >= sinceTick && previous[slot] != ABSENT) {
+                move(slot, x[slot], y[slot]);
+            }
+        }
+    }
+
+    /**
+     * Get the first slot in a cell
+     * @return The slot, or -1 if the cell is empty
+     */
+    int firstInCell(int cellX, int cellY) {
+        int index = find(key(cellX, cellY));
+        return index >= 0 ? cellHeads[index] : NONE;
+    }
+
+    /**
+     * Get the slot after another one in the same cell
+     * @return The slot, or -1 at the end of the cell
+     */
+    int nextInCell(int slot) {
+        return next[slot];
+    }
+
+    void clear() {
+        Arrays.fill(previous, ABSENT);
+        Arrays.fill(cellUsed, false);
+        cellCount = 0;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= next.length) {
+            return;
+        }
+
+        int oldCapacity = next.length;
+        int newCapacity = Math.max(capacity, oldCapacity * 2);
+        slotCells = Arrays.copyOf(slotCells, newCapacity);
+        next = Arrays.copyOf(next, newCapacity);
+        previous = Arrays.copyOf(previous, newCapacity);
+        Arrays.fill(previous, oldCapacity, newCapacity, ABSENT);
+    }
+
+    private void link(int slot, long cell) {
+        int index = findOrAdd(cell);
+        int head = cellHeads[index];
+        slotCells[slot] = cell;
+        previous[slot] = NONE;
+        next[slot] = head;
+        if (head != NONE) {
+            previous[head] = slot;
+        }
+        cellHeads[index] = slot;
+    }
+
+    private void unlink(int slot) {
+        int before = previous[slot];
+        int after = next[slot];
+        if (before != NONE) {
+            next[before] = after;
+        } else {
+            cellHeads[find(slotCells[slot])] = after;
+        }
+        if (after != NONE) {
+            previous[after] = before;
+        }
+        previous[slot] = ABSENT;
+        next[slot] = NONE;
+    }
+
+    private static long key(int cellX, int cellY) {
+        return ((long) cellX << 32) | (cellY & 0xFFFFFFFFL);
+    }
+
+    private int hash(long key) {
+        long mixed = key * 0x9E3779B97F4A7C15L;
+        return (int) (mixed ^ (mixed >>> 32)) & (cellKeys.length - 1);
+    }
+
+    private int find(long key) {
+        int mask = cellKeys.length - 1;
+        for (int index = hash(key); cellUsed[index]; index = (index + 1) & mask) {
+            if (cellKeys[index] == key) {
+                return index;
+            }
+        }
+        return NONE;
+    }
+
+    private int findOrAdd(long key) {
+        int mask = cellKeys.length - 1;
+        int index = hash(key);
+        for (; cellUsed[index]; index = (index + 1) & mask) {
+            if (cellKeys[index] == key) {
+                return index;
+            }
+        }
+
+        // Keep the table at most half full
+        if ((cellCount + 1) * 2 > cellKeys.length) {
+            growTable();
+            return findOrAdd(key);
+        }
+        cellUsed[index] = true;
+        cellKeys[index] = key;
+        cellHeads[index] = NONE;
+        cellCount++;
+        return index;
+    }
+
+    private void growTable() {
+        long[] oldKeys = cellKeys;
+        int[] oldHeads = cellHeads;
+        boolean[] oldUsed = cellUsed;
+
+        // Empty cells are dropped; the table only doubles if the occupied cells need it
+        int occupied = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i] && oldHeads[i] != NONE) {
+                occupied++;
+            }
+        }
+        int size = oldKeys.length;
+        while ((occupied + 1) * 4 > size) {
+            size *= 2;
+        }
+
+        cellKeys = new long[size];
+        cellHeads = new int[size];
+        cellUsed = new boolean[size];
+        cellCount = 0;
+        int mask = size - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i] && oldHeads[i] != NONE) {
+                int index = hash(oldKeys[i]);
+                while (cellUsed[index]) {
+                    index = (index + 1) & mask;
+                }
+                cellUsed[index] = true;
+                cellKeys[index] = oldKeys[i];
+                cellHeads[index] = oldHeads[i];
+                cellCount++;
+            }
+        }
+    }
+}
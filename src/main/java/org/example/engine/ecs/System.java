@@ -1,19 +1,43 @@
 package org.example.engine.ecs;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 /**
  * System that processes entities with specific component requirements
  */
 public abstract class System {
     // The component types this system processes
     private final Class<? extends Component>[] componentTypes;
+    // Bitmask of the required component type ids
+    private final ComponentMask requiredMask;
     // Priority - lower numbers run first
     private final int priority;
     private boolean isEnabled = true;
+    // Archetypes whose component set satisfies this system, kept up to date by ECSManager
+    final List<Archetype> matchingArchetypes = new ArrayList<>();
+    // Manager this system was added to, set by ECSManager
+    ECSManager manager;
+    // Change tick at which this system last ran, set by ECSManager
+    int lastRunTick = 0;
+    // Profiler ring buffer of this system, created on its first profiled run
+    SystemProfiler.Samples profileSamples;
+    // Structural changes recorded during update, applied at the next sync point
+    private final EntityCommandBuffer commandBuffer = new EntityCommandBuffer();
+
+    // Declared component access, used by the parallel scheduler
+    private final ComponentMask readMask = new ComponentMask();
+    private final ComponentMask writeMask = new ComponentMask();
+    private boolean accessDeclared = false;
+    private boolean mainThreadOnly = false;
+    private boolean renderPhase = false;
 
     @SafeVarargs
     public System(int priority, Class<? extends Component>... componentTypes) {
         this.priority = priority;
         this.componentTypes = componentTypes;
+        this.requiredMask = ComponentMask.of(componentTypes);
     }
 
     public int getPriority() {
@@ -28,6 +52,112 @@ public abstract class System {
         this.isEnabled = enabled;
     }
 
+    /**
+     * Declare component types this system only reads.
+     * Systems that declare no access at all are treated as conflicting with every other system.
+     * @param types The component types read by this system
+     */
+    @SafeVarargs
+    protected final void reads(Class<? extends Component>... types) {
+        declareAccess();
+        for (Class<? extends Component> type : types) {
+            readMask.set(ComponentType.getId(type));
+        }
+    }
+
+    /**
+     * Declare component types this system modifies
+     * @param types The component types written by this system
+     */
+    @SafeVarargs
+    protected final void writes(Class<? extends Component>... types) {
+        declareAccess();
+        for (Class<? extends Component> type : types) {
+            writeMask.set(ComponentType.getId(type));
+        }
+    }
+
+    /**
+     * Keep this system on the thread calling ECSManager.update, e.g. because it issues GL calls
+     */
+    protected final void pinToMainThread() {
+        mainThreadOnly = true;
+    }
+
+    /**
+     * Run this system from ECSManager.render once per frame instead of in every update, on the calling thread
+     */
+    protected final void runInRenderPhase() {
+        renderPhase = true;
+        mainThreadOnly = true;
+    }
+
+    private void declareAccess() {
+        if (!accessDeclared) {
+            accessDeclared = true;
+            // Required components are always at least read
+            readMask.or(requiredMask);
+        }
+    }
+
+    public boolean isMainThreadOnly() {
+        return mainThreadOnly;
+    }
+
+    public boolean isRenderPhase() {
+        return renderPhase;
+    }
+
+    public boolean hasDeclaredAccess() {
+        return accessDeclared;
+    }
+
+    /**
+     * Check if this system and another one must not run at the same time
+     * @param other The other system
+     * @return True if either writes a component type the other reads or writes
+     */
+    public boolean conflictsWith(System other) {
+        if (!accessDeclared || !other.accessDeclared) {
+            return true;
+        }
+
+        return writeMask.intersects(other.writeMask)
+                || writeMask.intersects(other.readMask)
+                || readMask.intersects(other.writeMask);
+    }
+
+    /**
+     * Get the manager this system was added to, or null if it is not registered
+     */
+    protected final ECSManager getManager() {
+        return manager;
+    }
+
+    /**
+     * Get the change tick at which this system last ran; components with a newer tick changed since then
+     */
+    public int getLastRunTick() {
+        return lastRunTick;
+    }
+
+    /**
+     * Check if a component was modified since this system last ran
+     * @param component The component to check, may be null
+     * @return True if the component exists and changed since the last run
+     */
+    protected final boolean isChanged(Component component) {
+        return component != null && component.isChangedSince(lastRunTick);
+    }
+
+    /**
+     * Get the buffer for spawning, destroying and restructuring entities from this system.
+     * Its commands are applied by the ECSManager after the system (or its stage) has finished.
+     */
+    public EntityCommandBuffer getCommandBuffer() {
+        return commandBuffer;
+    }
+
     /**
      * Check if an entity matches the component requirements for this system
      * @param entity The entity to check
@@ -38,7 +168,90 @@ public abstract class System {
             return false;
         }
 
-        return entity.hasAllComponents(componentTypes);
+        return entity.getComponentMask().containsAll(requiredMask);
+    }
+
+    /**
+     * Check if an archetype contains every component type this system requires
+     * @param archetype The archetype to check
+     * @return True if entities of this archetype should be processed
+     */
+    public boolean matches(Archetype archetype) {
+        return archetype.hasAll(requiredMask);
+    }
+
+    /**
+     * Get the bitmask of component types this system requires
+     */
+    public ComponentMask getRequiredMask() {
+        return requiredMask;
+    }
+
+    /**
+     * Get the archetypes currently processed by this system
+     * @return Read-only list of matching archetypes
+     */
+    public List<Archetype> getMatchingArchetypes() {
+        return Collections.unmodifiableList(matchingArchetypes);
+    }
+
+    /**
+     * Get the number of active entities this system currently processes
+     */
+    public int getMatchCount() {
+        int count = 0;
+        for (Archetype archetype : matchingArchetypes) {
+            count += archetype.activeCount();
+        }
+        return count;
+    }
+
+    /**
+     * Run this system: begin, processEntity for every active matching entity, then end.
+     * Structural changes made during the run are applied by the ECSManager afterwards.
+     * @param deltaTime Time since last frame
+     */
+    public void update(float deltaTime) {
+        begin(deltaTime);
+
+        for (Archetype archetype : matchingArchetypes) {
+            // Only the active block of each archetype is visited
+            int remaining = archetype.activeCount();
+            for (Archetype.Chunk chunk : archetype.getChunks()) {
+                if (remaining <= 0) {
+                    break;
+                }
+                int count = Math.min(chunk.size(), remaining);
+                remaining -= count;
+                processChunk(chunk, count, deltaTime);
+            }
+        }
+
+        end(deltaTime);
+    }
+
+    /**
+     * Process the first entities of a chunk
+     * @param chunk The chunk to process
+     * @param count Number of leading (active) entities to process
+     * @param deltaTime Time since last frame
+     */
+    void processChunk(Archetype.Chunk chunk, int count, float deltaTime) {
+        Entity[] entities = chunk.getEntities();
+        for (int i = 0; i < count; i++) {
+            Entity entity = entities[i];
+            if (isProcessable(entity)) {
+                processEntity(entity, deltaTime);
+            }
+        }
+    }
+
+    /**
+     * Check if an entity from a matching chunk should still be processed in the current pass
+     */
+    protected static boolean isProcessable(Entity entity) {
+        // Skip entities removed, restructured or deactivated earlier in this pass
+        return entity.manager != null && !entity.pendingMove && entity.isActive();
     }
 
     /**
@@ -48,6 +261,22 @@ public abstract class System {
      */
     public abstract void processEntity(Entity entity, float deltaTime);
 
+    /**
+     * Called when the system is added to a manager, e.g. to register component observers with it
+     * @param manager The manager the system was added to
+     */
+    protected void onAdded(ECSManager manager) {
+        // Override in subclasses if needed
+    }
+
+    /**
+     * Called when the system is removed from its manager, to undo what onAdded registered
+     * @param manager The manager the system was removed from
+     */
+    protected void onRemoved(ECSManager manager) {
+        // Override in subclasses if needed
+    }
+
     /**
      * Called before processing all entities
      * @param deltaTime Time since last frame
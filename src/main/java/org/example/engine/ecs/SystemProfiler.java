@@ -0,0 +1,225 @@
+package org.example.engine.ecs;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records wall time, matched entity count and allocated bytes of every system run.
+ * Each system writes into its own ring buffer without locking; queries can run on any
+ * thread and see the most recent samples. Enable it with ECSManager.setProfilingEnabled.
+ */
+public class SystemProfiler {
+    private static final com.sun.management.ThreadMXBean THREAD_BEAN = findThreadBean();
+
+    private final int capacity;
+    private final Map<System, Samples> samplesBySystem = new ConcurrentHashMap<>();
+
+    /**
+     * Ring buffer of the last samples of one system; written by the thread running the system
+     */
+    static final class Samples {
+        private final long[] wallNanos;
+        private final int[] entityCounts;
+        private final long[] allocatedBytes;
+        // Total number of samples written; slots are published by advancing it
+        private final AtomicLong written = new AtomicLong();
+
+        Samples(int capacity) {
+            wallNanos = new long[capacity];
+            entityCounts = new int[capacity];
+            allocatedBytes = new long[capacity];
+        }
+
+        void record(long nanos, int entityCount, long bytes) {
+            long index = written.get();
+            int slot = (int) (index % wallNanos.length);
+            wallNanos[slot] = nanos;
+            entityCounts[slot] = entityCount;
+            allocatedBytes[slot] = bytes;
+            written.lazySet(index + 1);
+        }
+    }
+
+    /**
+     * Percentiles over the samples currently in a system's ring buffer
+     */
+    public static final class Snapshot {
+        private final String systemName;
+        private final int sampleCount;
+        private final long[] wallNanos;
+        private final long[] entityCounts;
+        private final long[] allocatedBytes;
+
+        private Snapshot(String systemName, int sampleCount, long[] wallNanos, long[] entityCounts, long[] allocatedBytes) {
+            this.systemName = systemName;
+            this.sampleCount = sampleCount;
+            this.wallNanos = wallNanos;
+            this.entityCounts = entityCounts;
+            this.allocatedBytes = allocatedBytes;
+        }
+
+        public String getSystemName() {
+            return systemName;
+        }
+
+        public int getSampleCount() {
+            return sampleCount;
+        }
+
+        /**
+         * Get a percentile of the wall time per run
+         * @param percentile Between 0 and 100
+         * @return Nanoseconds, or 0 without samples
+         */
+        public long getWallNanos(double percentile) {
+            return percentile(wallNanos, percentile);
+        }
+
+        /**
+         * Get a percentile of the number of entities matched per run
+         * @param percentile Between 0 and 100
+         */
+        public long getEntityCount(double percentile) {
+            return percentile(entityCounts, percentile);
+        }
+
+        /**
+         * Get a percentile of the bytes allocated per run by the thread running the system.
+         * Allocations on ParallelSystem workers are not included.
+         * @param percentile Between 0 and 100
+         * @return Bytes, or -1 if the JVM cannot measure thread allocations
+         */
+        public long getAllocatedBytes(double percentile) {
+            return THREAD_BEAN == null ? -1 : percentile(allocatedBytes, percentile);
+        }
+
+        public long getP50Nanos() {
+            return getWallNanos(50);
+        }
+
+        public long getP95Nanos() {
+            return getWallNanos(95);
+        }
+
+        public long getP99Nanos() {
+            return getWallNanos(99);
+        }
+
+        private static long percentile(long[] sorted, double percentile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            // Nearest-rank percentile
+            int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+            return sorted[Math.min(sorted.length - 1, Math.max(0, rank - 1))];
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: p50=%.3fms p95=%.3fms p99=%.3fms entities=%d alloc(p50)=%dB samples=%d",
+                    systemName, getP50Nanos() / 1e6, getP95Nanos() / 1e6, getP99Nanos() / 1e6,
+                    getEntityCount(50), getAllocatedBytes(50), sampleCount);
+        }
+    }
+
+    /**
+     * Create a profiler keeping the given number of samples per system
+     * @param capacity Ring buffer size, e.g. the number of frames to keep
+     */
+    public SystemProfiler(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Profiler capacity must be positive");
+        }
+        this.capacity = capacity;
+    }
+
+    /**
+     * Run a system and record a sample for it
+     */
+    void profile(System system, float deltaTime) {
+        Samples samples = system.profileSamples;
+        if (samples == null) {
+            samples = samplesBySystem.computeIfAbsent(system, s -> new Samples(capacity));
+            system.profileSamples = samples;
+        }
+
+        long allocatedBefore = currentThreadAllocatedBytes();
+        long start = java.lang.System.nanoTime();
+
+        system.update(deltaTime);
+
+        long nanos = java.lang.System.nanoTime() - start;
+        long allocated = currentThreadAllocatedBytes() - allocatedBefore;
+        samples.record(nanos, system.getMatchCount(), allocated);
+    }
+
+    /**
+     * Get the percentiles of one system
+     * @param system The system to query
+     * @return Snapshot of its recorded samples, empty if it never ran while profiling
+     */
+    public Snapshot getSnapshot(System system) {
+        Samples samples = samplesBySystem.get(system);
+        String name = system.getClass().getSimpleName();
+        if (name.isEmpty()) {
+            name = system.getClass().getName();
+        }
+        if (samples == null) {
+            return new Snapshot(name, 0, new long[0], new long[0], new long[0]);
+        }
+
+        int count = (int) Math.min(samples.written.get(), capacity);
+        long[] wallNanos = Arrays.copyOf(samples.wallNanos, count);
+        long[] entityCounts = new long[count];
+        for (int i = 0; i < count; i++) {
+            entityCounts[i] = samples.entityCounts[i];
+        }
+        long[] allocatedBytes = Arrays.copyOf(samples.allocatedBytes, count);
+
+        Arrays.sort(wallNanos);
+        Arrays.sort(entityCounts);
+        Arrays.sort(allocatedBytes);
+        return new Snapshot(name, count, wallNanos, entityCounts, allocatedBytes);
+    }
+
+    /**
+     * Get the percentiles of every system that was profiled
+     */
+    public List<Snapshot> getSnapshots() {
+        List<Snapshot> result = new ArrayList<>();
+        for (System system : samplesBySystem.keySet()) {
+            result.add(getSnapshot(system));
+        }
+        return result;
+    }
+
+    /**
+     * Drop all recorded samples
+     */
+    public void reset() {
+        for (System system : samplesBySystem.keySet()) {
+            system.profileSamples = null;
+        }
+        samplesBySystem.clear();
+    }
+
+    private static long currentThreadAllocatedBytes() {
+        return THREAD_BEAN != null ? THREAD_BEAN.getCurrentThreadAllocatedBytes() : 0;
+    }
+
+    private static com.sun.management.ThreadMXBean findThreadBean() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+            if (sunBean.isThreadAllocatedMemorySupported() && sunBean.isThreadAllocatedMemoryEnabled()) {
+                return sunBean;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,136 @@
+package org.example.engine.ecs;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Runs systems concurrently based on their declared component access.
+ * Systems are grouped into stages: a system is placed one stage after the last
+ * higher-priority system it conflicts with, so conflicting systems keep their
+ * priority order while independent ones share a stage and run on the worker pool.
+ * Structural changes are applied between stages.
+ */
+class SystemScheduler {
+    private final List<List<System>> stages = new ArrayList<>();
+    private final List<ForkJoinTask<?>> pendingTasks = new ArrayList<>();
+    private boolean dirty = true;
+
+    /**
+     * Force the stages to be rebuilt before the next run
+     */
+    void invalidate() {
+        dirty = true;
+    }
+
+    /**
+     * Get the current stages, rebuilding them if the system list changed
+     * @param systems Systems sorted by priority
+     */
+    List<List<System>> getStages(List<System> systems) {
+        if (dirty) {
+            rebuild(systems);
+        }
+        return stages;
+    }
+
+    private void rebuild(List<System> systems) {
+        stages.clear();
+        int[] levels = new int[systems.size()];
+
+        for (int i = 0; i < systems.size(); i++) {
+            System system = systems.get(i);
+            if (system.isRenderPhase()) {
+                // Run by ECSManager.render, not in updates
+                continue;
+            }
+            int level = 0;
+            for (int j = 0; j < i; j++) {
+                System other = systems.get(j);
+                if (!other.isRenderPhase() && system.conflictsWith(other)) {
+                    level = Math.max(level, levels[j] + 1);
+                }
+            }
+            levels[i] = level;
+
+            while (stages.size() <= level) {
+                stages.add(new ArrayList<>());
+            }
+            stages.get(level).add(system);
+        }
+
+        dirty = false;
+    }
+
+    /**
+     * Run all enabled systems stage by stage
+     * @param manager The manager owning the systems
+     * @param systems Systems sorted by priority
+     * @param pool Worker pool for systems that are not pinned to the main thread
+     * @param deltaTime Time since last frame
+     */
+    void run(ECSManager manager, List<System> systems, ForkJoinPool pool, float deltaTime) {
+        for (List<System> stage : getStages(systems)) {
+            int enabledCount = 0;
+            for (System system : stage) {
+                if (system.isEnabled()) {
+                    enabledCount++;
+                }
+            }
+            if (enabledCount == 0) {
+                continue;
+            }
+
+            manager.beginStructuralDeferral();
+            try {
+                if (enabledCount == 1) {
+                    // Nothing to overlap with, so skip the hand-off to the pool
+                    for (System system : stage) {
+                        if (system.isEnabled()) {
+                            manager.runSystem(system, deltaTime);
+                        }
+                    }
+                } else {
+                    runConcurrently(manager, stage, pool, deltaTime);
+                }
+            } finally {
+                manager.endStructuralDeferral();
+            }
+        }
+    }
+
+    private void runConcurrently(ECSManager manager, List<System> stage, ForkJoinPool pool, float deltaTime) {
+        try {
+            for (System system : stage) {
+                if (system.isEnabled() && !system.isMainThreadOnly()) {
+                    pendingTasks.add(pool.submit(() -> manager.runSystem(system, deltaTime)));
+                }
+            }
+
+            // Pinned systems run here, in priority order, while the pool works on the rest
+            for (System system : stage) {
+                if (system.isEnabled() && system.isMainThreadOnly()) {
+                    manager.runSystem(system, deltaTime);
+                }
+            }
+        } finally {
+            // Always wait for the workers before structural changes are applied
+            RuntimeException failure = null;
+            for (ForkJoinTask<?> task : pendingTasks) {
+                try {
+                    task.join();
+                } catch (RuntimeException e) {
+                    if (failure == null) {
+                        failure = e;
+                    }
+                }
+            }
+            pendingTasks.clear();
+
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+}
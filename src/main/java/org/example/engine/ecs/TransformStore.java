@@ -0,0 +1,150 @@
+package org.example.engine.ecs;
+
+import java.util.Arrays;
+
+/**
+ * Structure-of-arrays storage for transform and movement data, indexed by entity slot.
+ * TransformComponent and MovementComponent read and write through this store while their
+ * entity is in an ECSManager, so hot loops can work on primitive arrays instead of objects.
+ * <p>
+ * The arrays are only reallocated when new entity slots are created; systems should fetch
+ * them once per update and not hold them across structural changes.
+ */
+public class TransformStore {
+    // Packed movement flags
+    public static final int MOVE_UP = 1;
+    public static final int MOVE_DOWN = 1 << 1;
+    public static final int MOVE_LEFT = 1 << 2;
+    public static final int MOVE_RIGHT = 1 << 3;
+    public static final int MOVING = 1 << 4;
+    public static final int COLLISION = 1 << 5;
+    // Facing direction (0=down, 1=up, 2=right, 3=left) stored in two bits above the flags
+    public static final int DIRECTION_SHIFT = 6;
+    public static final int DIRECTION_MASK = 3 << DIRECTION_SHIFT;
+
+    private float[] x;
+    private float[] y;
+    // Position at the start of the current update, for render interpolation
+    private float[] previousX;
+    private float[] previousY;
+    private float[] z;
+    private float[] rotation;
+    private float[] scaleX;
+    private float[] scaleY;
+    private float[] speed;
+    private int[] flags;
+    // Change tick of the last transform modification of each slot
+    private int[] changeTicks;
+
+    TransformStore(int capacity) {
+        x = new float[capacity];
+        y = new float[capacity];
+        previousX = new float[capacity];
+        previousY = new float[capacity];
+        z = new float[capacity];
+        rotation = new float[capacity];
+        scaleX = new float[capacity];
+        scaleY = new float[capacity];
+        speed = new float[capacity];
+        flags = new int[capacity];
+        changeTicks = new int[capacity];
+    }
+
+    /**
+     * Grow the arrays so that every slot below the given capacity is valid
+     */
+    void ensureCapacity(int capacity) {
+        if (capacity <= x.length) {
+            return;
+        }
+
+        int newCapacity = Math.max(capacity, x.length * 2);
+        x = Arrays.copyOf(x, newCapacity);
+        y = Arrays.copyOf(y, newCapacity);
+        previousX = Arrays.copyOf(previousX, newCapacity);
+        previousY = Arrays.copyOf(previousY, newCapacity);
+        z = Arrays.copyOf(z, newCapacity);
+        rotation = Arrays.copyOf(rotation, newCapacity);
+        scaleX = Arrays.copyOf(scaleX, newCapacity);
+        scaleY = Arrays.copyOf(scaleY, newCapacity);
+        speed = Arrays.copyOf(speed, newCapacity);
+        flags = Arrays.copyOf(flags, newCapacity);
+        changeTicks = Arrays.copyOf(changeTicks, newCapacity);
+    }
+
+    /**
+     * Remember the current positions as the previous simulation state
+     * @param count Number of slots in use
+     */
+    void savePreviousPositions(int count) {
+        java.lang.System.arraycopy(x, 0, previousX, 0, count);
+        java.lang.System.arraycopy(y, 0, previousY, 0, count);
+    }
+
+    /**
+     * Get the number of slots the arrays can hold
+     */
+    public int capacity() {
+        return x.length;
+    }
+
+    public float[] getX() {
+        return x;
+    }
+
+    public float[] getY() {
+        return y;
+    }
+
+    /**
+     * Get the x positions at the start of the last update
+     */
+    public float[] getPreviousX() {
+        return previousX;
+    }
+
+    /**
+     * Get the y positions at the start of the last update
+     */
+    public float[] getPreviousY() {
+        return previousY;
+    }
+
+    public float[] getZ() {
+        return z;
+    }
+
+    public float[] getRotation() {
+        return rotation;
+    }
+
+    public float[] getScaleX() {
+        return scaleX;
+    }
+
+    public float[] getScaleY() {
+        return scaleY;
+    }
+
+    /**
+     * Get the movement speed of each slot, in pixels per second
+     */
+    public float[] getSpeed() {
+        return speed;
+    }
+
+    /**
+     * Get the packed movement flags of each slot, see the MOVE_* constants
+     */
+    public int[] getFlags() {
+        return flags;
+    }
+
+    /**
+     * Get the change tick of the last transform modification of each slot.
+     * Code writing the position arrays directly must stamp the slot with ECSManager.getChangeTick().
+     */
+    public int[] getChangeTicks() {
+        return changeTicks;
+    }
+}
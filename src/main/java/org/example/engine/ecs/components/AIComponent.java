@@ -28,6 +28,13 @@ public class AIComponent extends Component {
     private boolean hasTargetInSight = false;
     private org.joml.Vector2f lastKnownTargetPos = new org.joml.Vector2f();
 
+    // Scheduling state kept by AISystem
+    private double lastUpdateTime = -1;
+    private long lastUpdateFrame = -1;
+    private int updateInterval = 1;
+    // Ticket of the agent's current entry in the AISystem schedule, 0 when it has none
+    private long scheduleTicket = 0;
+
     public AIComponent(AIType aiType) {
         this.aiType = aiType;
     }
@@ -131,4 +138,54 @@ public class AIComponent extends Component {
     public void setLastKnownTargetPos(float x, float y) {
         this.lastKnownTargetPos.set(x, y);
     }
+
+    /**
+     * Get the AISystem clock time of the last update, or -1 if the agent was never updated
+     */
+    public double getLastUpdateTime() {
+        return lastUpdateTime;
+    }
+
+    public long getLastUpdateFrame() {
+        return lastUpdateFrame;
+    }
+
+    /**
+     * Record an update by AISystem
+     * @param time System clock time of the update
+     * @param frame System frame number of the update
+     * @param interval Number of frames until the agent is due again
+     */
+    public void markUpdated(double time, long frame, int interval) {
+        this.lastUpdateTime = time;
+        this.lastUpdateFrame = frame;
+        this.updateInterval = interval;
+    }
+
+    /**
+     * Get the number of frames between updates chosen at the last update
+     */
+    public int getUpdateInterval() {
+        return updateInterval;
+    }
+
+    public long getScheduleTicket() {
+        return scheduleTicket;
+    }
+
+    /**
+     * Set the ticket of the agent's entry in the AISystem schedule; entries with another ticket are stale
+     * @param scheduleTicket The ticket, or 0 to drop the agent from the schedule
+     */
+    public void setScheduleTicket(long scheduleTicket) {
+        this.scheduleTicket = scheduleTicket;
+    }
+
+    /**
+     * Check if the agent is due for an update
+     * @param frame Current AISystem frame number
+     */
+    public boolean isUpdateDue(long frame) {
+        return lastUpdateFrame < 0 || frame - lastUpdateFrame >= updateInterval;
+    }
 }
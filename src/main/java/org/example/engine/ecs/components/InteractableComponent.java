@@ -22,6 +22,7 @@ public class InteractableComponent extends Component {
 
     public void setInteractionRadius(float interactionRadius) {
         this.interactionRadius = interactionRadius;
+        keyChanged();
     }
 
     public boolean isInteractable() {
@@ -1,23 +1,21 @@
 package org.example.engine.ecs.components;
 
-import org.example.engine.ecs.Component; /**
+import org.example.engine.ecs.Component;
+import org.example.engine.ecs.TransformStore; /**
  * Component for movement control
  */
 public class MovementComponent extends Component {
+    // Speed and packed flags (see TransformStore.MOVE_*), held here only while not attached to a managed entity
     private float moveSpeed = 120.0f;
-    private boolean isMoving = false;
-    private int direction = 0; // 0=down, 1=up, 2=right, 3=left
-
-    // For input control
-    private boolean moveUp = false;
-    private boolean moveDown = false;
-    private boolean moveLeft = false;
-    private boolean moveRight = false;
+    private int flags = TransformStore.COLLISION;
 
     // For collision
     private float width = 16;
     private float height = 16;
-    private boolean collisionEnabled = true;
+
+    // Backing storage while attached to a managed entity
+    private TransformStore store;
+    private int slot = -1;
 
     public MovementComponent() {
     }
@@ -26,68 +24,126 @@ public class MovementComponent extends Component {
         this.moveSpeed = moveSpeed;
     }
 
+    /**
+     * Move the speed and flags into a store slot; called by the ECSManager when the entity is added
+     * @param store The store to use
+     * @param slot The entity slot index
+     */
+    public void bindStore(TransformStore store, int slot) {
+        store.getSpeed()[slot] = moveSpeed;
+        store.getFlags()[slot] = flags;
+        this.store = store;
+        this.slot = slot;
+    }
+
+    /**
+     * Copy the speed and flags back out of the store; called by the ECSManager when the entity is removed
+     */
+    public void unbindStore() {
+        if (store == null) {
+            return;
+        }
+        moveSpeed = store.getSpeed()[slot];
+        flags = store.getFlags()[slot];
+        store = null;
+        slot = -1;
+    }
+
+    private int getFlags() {
+        return store != null ? store.getFlags()[slot] : flags;
+    }
+
+    private void setFlags(int flags) {
+        if (getFlags() == flags) {
+            return;
+        }
+        if (store != null) {
+            store.getFlags()[slot] = flags;
+        } else {
+            this.flags = flags;
+        }
+        markChanged();
+    }
+
+    private boolean hasFlag(int flag) {
+        return (getFlags() & flag) != 0;
+    }
+
+    private void setFlag(int flag, boolean value) {
+        int current = getFlags();
+        setFlags(value ? current | flag : current & ~flag);
+    }
+
     public float getMoveSpeed() {
-        return moveSpeed;
+        return store != null ? store.getSpeed()[slot] : moveSpeed;
     }
 
     public void setMoveSpeed(float moveSpeed) {
-        this.moveSpeed = moveSpeed;
+        if (store != null) {
+            store.getSpeed()[slot] = moveSpeed;
+        } else {
+            this.moveSpeed = moveSpeed;
+        }
+        markChanged();
     }
 
     public boolean isMoving() {
-        return isMoving;
+        return hasFlag(TransformStore.MOVING);
     }
 
     public void setMoving(boolean moving) {
-        isMoving = moving;
+        setFlag(TransformStore.MOVING, moving);
     }
 
     public int getDirection() {
-        return direction;
+        return (getFlags() & TransformStore.DIRECTION_MASK) >>> TransformStore.DIRECTION_SHIFT;
     }
 
     public void setDirection(int direction) {
-        this.direction = direction;
+        int current = getFlags() & ~TransformStore.DIRECTION_MASK;
+        setFlags(current | ((direction << TransformStore.DIRECTION_SHIFT) & TransformStore.DIRECTION_MASK));
     }
 
     public boolean isMoveUp() {
-        return moveUp;
+        return hasFlag(TransformStore.MOVE_UP);
     }
 
     public void setMoveUp(boolean moveUp) {
-        this.moveUp = moveUp;
+        setFlag(TransformStore.MOVE_UP, moveUp);
         updateMovingState();
     }
 
     public boolean isMoveDown() {
-        return moveDown;
+        return hasFlag(TransformStore.MOVE_DOWN);
     }
 
     public void setMoveDown(boolean moveDown) {
-        this.moveDown = moveDown;
+        setFlag(TransformStore.MOVE_DOWN, moveDown);
         updateMovingState();
     }
 
     public boolean isMoveLeft() {
-        return moveLeft;
+        return hasFlag(TransformStore.MOVE_LEFT);
     }
 
     public void setMoveLeft(boolean moveLeft) {
-        this.moveLeft = moveLeft;
+        setFlag(TransformStore.MOVE_LEFT, moveLeft);
         updateMovingState();
     }
 
     public boolean isMoveRight() {
-        return moveRight;
+        return hasFlag(TransformStore.MOVE_RIGHT);
     }
 
     public void setMoveRight(boolean moveRight) {
-        this.moveRight = moveRight;
+        setFlag(TransformStore.MOVE_RIGHT, moveRight);
         updateMovingState();
     }
 
     private void updateMovingState() {
-        isMoving = moveUp || moveDown || moveLeft || moveRight;
+        int directions = TransformStore.MOVE_UP | TransformStore.MOVE_DOWN
+                | TransformStore.MOVE_LEFT | TransformStore.MOVE_RIGHT;
+        setFlag(TransformStore.MOVING, (getFlags() & directions) != 0);
     }
 
     public float getWidth() {
@@ -96,6 +152,7 @@ public class MovementComponent extends Component {
 
     public void setWidth(float width) {
         this.width = width;
+        markChanged();
     }
 
     public float getHeight() {
@@ -104,13 +161,14 @@ public class MovementComponent extends Component {
 
     public void setHeight(float height) {
         this.height = height;
+        markChanged();
     }
 
     public boolean isCollisionEnabled() {
-        return collisionEnabled;
+        return hasFlag(TransformStore.COLLISION);
     }
 
     public void setCollisionEnabled(boolean collisionEnabled) {
-        this.collisionEnabled = collisionEnabled;
+        setFlag(TransformStore.COLLISION, collisionEnabled);
     }
 }
@@ -10,6 +10,8 @@ public class NetworkComponent extends Component {
     private float syncTimer = 0f;
     private final float syncInterval = 0.05f; // 20 updates per second
     private boolean needsSync = false;
+    // Change tick of the last update sent, see ECSManager.getChangeTick()
+    private int lastSyncTick = 0;
 
     public NetworkComponent() {
         this.networkId = UUID.randomUUID();
@@ -25,6 +27,7 @@ public class NetworkComponent extends Component {
 
     public void setNetworkId(UUID networkId) {
         this.networkId = networkId;
+        keyChanged();
     }
 
     public float getSyncTimer() {
@@ -54,4 +57,12 @@ public class NetworkComponent extends Component {
     public void clearSyncFlag() {
         needsSync = false;
     }
+
+    public int getLastSyncTick() {
+        return lastSyncTick;
+    }
+
+    public void setLastSyncTick(int lastSyncTick) {
+        this.lastSyncTick = lastSyncTick;
+    }
 }
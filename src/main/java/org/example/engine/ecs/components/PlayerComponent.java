@@ -48,6 +48,7 @@ public class PlayerComponent extends Component {
 
     public void setLocalPlayer(boolean localPlayer) {
         isLocalPlayer = localPlayer;
+        keyChanged();
     }
 
     public int getHealth() {
@@ -20,6 +20,7 @@ public class SpriteComponent extends Component {
 
     public void setSprite(Sprite sprite) {
         this.sprite = sprite;
+        markChanged();
     }
 
     public int getColor() {
@@ -28,6 +29,7 @@ public class SpriteComponent extends Component {
 
     public void setColor(int color) {
         this.color = color;
+        markChanged();
     }
 
     public float getAlpha() {
@@ -36,6 +38,7 @@ public class SpriteComponent extends Component {
 
     public void setAlpha(float alpha) {
         this.alpha = alpha;
+        markChanged();
     }
 
     public String[] getPalette() {
@@ -47,5 +50,6 @@ public class SpriteComponent extends Component {
         if (sprite != null && palette != null) {
             sprite.setPaletteFromCodes(palette);
         }
+        markChanged();
     }
 }
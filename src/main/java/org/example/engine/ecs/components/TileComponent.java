@@ -18,6 +18,7 @@ public class TileComponent extends Component {
 
     public void setTileId(int tileId) {
         this.tileId = tileId;
+        keyChanged();
     }
 
     public boolean isWalkable() {
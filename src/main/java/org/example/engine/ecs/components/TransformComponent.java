@@ -2,6 +2,8 @@ package org.example.engine.ecs.components;
 
 
 import org.example.engine.ecs.Component;
+import org.example.engine.ecs.ECSManager;
+import org.example.engine.ecs.TransformStore;
 import org.example.engine.Animation;
 import org.example.engine.Light;
 import org.example.engine.Sprite;
@@ -9,13 +11,19 @@ import org.joml.Vector2f;
 import org.joml.Vector3f;
 
 /**
- * Component that stores transform data (position, rotation, scale)
+ * Component that stores transform data (position, rotation, scale).
+ * While its entity is in an ECSManager the values live in the manager's TransformStore;
+ * the vectors returned by getPosition and getScale are then snapshots, use the setters to change them.
  */
 public class TransformComponent extends Component {
     private Vector3f position = new Vector3f(0, 0, 0);
     private float rotation = 0.0f;
     private Vector2f scale = new Vector2f(1.0f, 1.0f);
 
+    // Backing storage while attached to a managed entity
+    private TransformStore store;
+    private int slot = -1;
+
     public TransformComponent() {
     }
 
@@ -27,36 +35,158 @@ public class TransformComponent extends Component {
         this.position.set(position);
     }
 
+    /**
+     * Move the values into a store slot; called by the ECSManager when the entity is added
+     * @param store The store to use
+     * @param slot The entity slot index
+     */
+    public void bindStore(TransformStore store, int slot) {
+        store.getX()[slot] = position.x;
+        store.getY()[slot] = position.y;
+        store.getPreviousX()[slot] = position.x;
+        store.getPreviousY()[slot] = position.y;
+        store.getZ()[slot] = position.z;
+        store.getRotation()[slot] = rotation;
+        store.getScaleX()[slot] = scale.x;
+        store.getScaleY()[slot] = scale.y;
+        this.store = store;
+        this.slot = slot;
+        markChanged();
+    }
+
+    /**
+     * Copy the values back out of the store; called by the ECSManager when the entity is removed
+     */
+    public void unbindStore() {
+        if (store == null) {
+            return;
+        }
+        position.set(store.getX()[slot], store.getY()[slot], store.getZ()[slot]);
+        rotation = store.getRotation()[slot];
+        scale.set(store.getScaleX()[slot], store.getScaleY()[slot]);
+        store = null;
+        slot = -1;
+    }
+
+    @Override
+    public void markChanged() {
+        if (store != null) {
+            store.getChangeTicks()[slot] = ECSManager.getInstance().getChangeTick();
+        } else {
+            super.markChanged();
+        }
+    }
+
+    @Override
+    public int getChangeTick() {
+        return store != null ? store.getChangeTicks()[slot] : super.getChangeTick();
+    }
+
     public Vector3f getPosition() {
+        if (store != null) {
+            position.set(store.getX()[slot], store.getY()[slot], store.getZ()[slot]);
+        }
         return position;
     }
 
+    public float getX() {
+        return store != null ? store.getX()[slot] : position.x;
+    }
+
+    public float getY() {
+        return store != null ? store.getY()[slot] : position.y;
+    }
+
+    /**
+     * Get the x position blended between the previous and the current simulation step
+     * @param alpha 0 for the previous step, 1 for the current one
+     */
+    public float getInterpolatedX(float alpha) {
+        if (store == null) {
+            return position.x;
+        }
+        float previous = store.getPreviousX()[slot];
+        return previous + (store.getX()[slot] - previous) * alpha;
+    }
+
+    /**
+     * Get the y position blended between the previous and the current simulation step
+     * @param alpha 0 for the previous step, 1 for the current one
+     */
+    public float getInterpolatedY(float alpha) {
+        if (store == null) {
+            return position.y;
+        }
+        float previous = store.getPreviousY()[slot];
+        return previous + (store.getY()[slot] - previous) * alpha;
+    }
+
+    public float getZ() {
+        return store != null ? store.getZ()[slot] : position.z;
+    }
+
     public void setPosition(float x, float y, float z) {
-        position.set(x, y, z);
+        if (store != null) {
+            store.getX()[slot] = x;
+            store.getY()[slot] = y;
+            store.getZ()[slot] = z;
+        } else {
+            position.set(x, y, z);
+        }
+        markChanged();
     }
 
     public void setPosition(Vector3f position) {
-        this.position.set(position);
+        setPosition(position.x, position.y, position.z);
+    }
+
+    /**
+     * Move the position on the x/y plane
+     * @param dx Offset on x
+     * @param dy Offset on y
+     */
+    public void translate(float dx, float dy) {
+        if (store != null) {
+            store.getX()[slot] += dx;
+            store.getY()[slot] += dy;
+        } else {
+            position.x += dx;
+            position.y += dy;
+        }
+        markChanged();
     }
 
     public float getRotation() {
-        return rotation;
+        return store != null ? store.getRotation()[slot] : rotation;
     }
 
     public void setRotation(float rotation) {
-        this.rotation = rotation;
+        if (store != null) {
+            store.getRotation()[slot] = rotation;
+        } else {
+            this.rotation = rotation;
+        }
+        markChanged();
     }
 
     public Vector2f getScale() {
+        if (store != null) {
+            scale.set(store.getScaleX()[slot], store.getScaleY()[slot]);
+        }
         return scale;
     }
 
     public void setScale(float scaleX, float scaleY) {
-        scale.set(scaleX, scaleY);
+        if (store != null) {
+            store.getScaleX()[slot] = scaleX;
+            store.getScaleY()[slot] = scaleY;
+        } else {
+            scale.set(scaleX, scaleY);
+        }
+        markChanged();
     }
 
     public void setScale(Vector2f scale) {
-        this.scale.set(scale);
+        setScale(scale.x, scale.y);
     }
 }
-
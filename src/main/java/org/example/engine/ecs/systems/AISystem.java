@@ -0,0 +1,532 @@
+package org.example.engine.ecs.systems;
+
+import org.example.engine.ecs.Archetype;
+import org.example.engine.ecs.ComponentMask;
+import org.example.engine.ecs.ComponentObserver;
+import org.example.engine.ecs.ECSManager;
+import org.example.engine.ecs.Entity;
+import org.example.engine.ecs.System;
+import org.example.engine.ecs.components.AIComponent;
+import org.example.engine.ecs.components.MovementComponent;
+import org.example.engine.ecs.components.PlayerComponent;
+import org.example.engine.ecs.components.TransformComponent;
+import org.example.engine.navigation.FlowField;
+import org.example.engine.navigation.FlowFieldService;
+import org.joml.Vector2f;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * System that runs AI behaviours within a per-frame time budget.
+ * Agents wait in a timing wheel under the frame they are next due, so a frame only touches the agents
+ * due in it; those the budget does not reach stay queued, oldest first, for the next frame. Agents far
+ * from every player are updated less often. Movement itself stays smooth because MovementSystem
+ * keeps applying the last chosen direction every frame.
+ */
+public class AISystem extends System {
+    // Distance within which a waypoint counts as reached
+    private static final float MIN_ARRIVE_DISTANCE = 4.0f;
+    // Number of agent updates between budget checks, so nanoTime is not called per agent
+    private static final int BUDGET_CHECK_INTERVAL = 8;
+
+    private final ComponentMask playerMask = ComponentMask.of(PlayerComponent.class, TransformComponent.class);
+    private final Random random = new Random();
+
+    private long budgetNanos = 1_000_000L;
+    private float fullRateDistance = 400.0f;
+    private int maxUpdateInterval = 8;
+
+    // Agents by the frame they are due in, modulo the wheel size, which exceeds maxUpdateInterval
+    private AgentQueue[] wheel = createWheel(maxUpdateInterval);
+    // Agents that are due but were not reached yet, in the order they became due
+    private final AgentQueue dueAgents = new AgentQueue();
+    private final AgentTracker agentTracker = new AgentTracker();
+    // Source of schedule tickets; an agent's entries are only valid while they carry its current ticket
+    private long nextTicket = 1;
+    private long frame = 0;
+    private double time = 0;
+
+    // Positions of living players and the flow fields towards them, refreshed every frame
+    private float[] playerPositions = new float[8];
+    private FlowField[] playerFields = new FlowField[4];
+    private int playerCount = 0;
+    private FlowFieldService flowFields;
+
+    // Scratch values of the agent being updated
+    private float nearestPlayerX;
+    private float nearestPlayerY;
+    private float nearestPlayerDistanceSquared;
+    private int nearestPlayer;
+
+    public AISystem() {
+        // Run after input and interaction but before movement applies the chosen directions
+        super(18, AIComponent.class, TransformComponent.class, MovementComponent.class);
+        reads(PlayerComponent.class);
+        writes(AIComponent.class, MovementComponent.class);
+    }
+
+    @Override
+    public void begin(float deltaTime) {
+        frame++;
+        time += deltaTime;
+        collectPlayers();
+        if (flowFields != null) {
+            // Fields of players that left or died were not requested this frame
+            flowFields.pruneUnused();
+        }
+    }
+
+    @Override
+    public void update(float deltaTime) {
+        begin(deltaTime);
+        wheel[(int) (frame & (wheel.length - 1))].drainInto(dueAgents);
+
+        long start = java.lang.System.nanoTime();
+        int updated = 0;
+        while (!dueAgents.isEmpty()) {
+            Entity entity = dueAgents.peekEntity();
+            AIComponent ai = dueAgents.peekAgent();
+            long ticket = dueAgents.peekTicket();
+            dueAgents.remove();
+            if (ai.getScheduleTicket() != ticket) {
+                // Detached or rescheduled since this entry was made
+                continue;
+            }
+
+            if (!matches(entity)) {
+                // Deactivated or missing a required component: look again later
+                schedule(entity, ai, maxUpdateInterval);
+                continue;
+            }
+            if (!isProcessable(entity)) {
+                // Restructured earlier in this pass
+                schedule(entity, ai, 1);
+                continue;
+            }
+
+            processEntity(entity, deltaTime);
+            schedule(entity, ai, ai.getUpdateInterval());
+            updated++;
+            if (updated % BUDGET_CHECK_INTERVAL == 0 && java.lang.System.nanoTime() - start > budgetNanos) {
+                break;
+            }
+        }
+
+        end(deltaTime);
+    }
+
+    @Override
+    protected void onAdded(ECSManager manager) {
+        manager.addObserver(AIComponent.class, agentTracker);
+    }
+
+    @Override
+    protected void onRemoved(ECSManager manager) {
+        manager.removeObserver(AIComponent.class, agentTracker);
+        for (AgentQueue bucket : wheel) {
+            bucket.clear();
+        }
+        dueAgents.clear();
+    }
+
+    /**
+     * Put an agent in the wheel bucket of the frame it is due in, replacing its earlier entries
+     * @param interval Frames from now, at most maxUpdateInterval
+     */
+    private void schedule(Entity entity, AIComponent ai, int interval) {
+        long ticket = nextTicket++;
+        ai.setScheduleTicket(ticket);
+        wheel[(int) ((frame + interval) & (wheel.length - 1))].add(entity, ai, ticket);
+    }
+
+    /**
+     * Create a wheel with a power-of-two number of buckets, more than the longest update interval
+     */
+    private static AgentQueue[] createWheel(int maxUpdateInterval) {
+        int size = Integer.highestOneBit(maxUpdateInterval) << 1;
+        AgentQueue[] buckets = new AgentQueue[size];
+        for (int i = 0; i < size; i++) {
+            buckets[i] = new AgentQueue();
+        }
+        return buckets;
+    }
+
+    @Override
+    public void processEntity(Entity entity, float deltaTime) {
+        AIComponent ai = entity.getComponent(AIComponent.class);
+        TransformComponent transform = entity.getComponent(TransformComponent.class);
+        MovementComponent movement = entity.getComponent(MovementComponent.class);
+
+        // Time since this agent last thought, which is more than one frame when it was skipped
+        float elapsed = ai.getLastUpdateTime() < 0 ? deltaTime : (float) (time - ai.getLastUpdateTime());
+        float x = transform.getX();
+        float y = transform.getY();
+        findNearestPlayer(x, y);
+
+        int interval = getUpdateInterval(nearestPlayerDistanceSquared);
+        ai.markUpdated(time, frame, interval);
+        ai.updateTimer(elapsed);
+
+        float detection = ai.getDetectionRadius();
+        boolean inSight = nearestPlayerDistanceSquared <= detection * detection;
+        ai.setTargetInSight(inSight);
+        if (inSight) {
+            ai.setLastKnownTargetPos(nearestPlayerX, nearestPlayerY);
+        }
+
+        if (movement.getMoveSpeed() != ai.getMoveSpeed()) {
+            movement.setMoveSpeed(ai.getMoveSpeed());
+        }
+        // Expected travel until the next update; closer targets than this count as reached
+        float deadZone = Math.max(MIN_ARRIVE_DISTANCE, ai.getMoveSpeed() * interval * deltaTime);
+
+        switch (ai.getAiType()) {
+            case PATROL:
+                patrol(ai, movement, x, y, deadZone);
+                break;
+
+            case FOLLOW:
+                if (inSight) {
+                    approach(ai, movement, x, y, deadZone);
+                } else {
+                    steer(movement, 0, 0, deadZone);
+                }
+                break;
+
+            case GUARD:
+                guard(ai, movement, x, y, inSight, deadZone);
+                break;
+
+            case WANDER:
+                if (ai.shouldAct()) {
+                    wander(movement);
+                }
+                break;
+
+            case FLEE:
+                if (inSight) {
+                    steer(movement, x - nearestPlayerX, y - nearestPlayerY, deadZone);
+                } else {
+                    steer(movement, 0, 0, deadZone);
+                }
+                break;
+
+            default:
+                break;
+        }
+    }
+
+    private void patrol(AIComponent ai, MovementComponent movement, float x, float y, float deadZone) {
+        Vector2f[] points = ai.getPatrolPoints();
+        if (points == null || points.length == 0) {
+            steer(movement, 0, 0, deadZone);
+            return;
+        }
+
+        int current = ai.getCurrentPatrolPoint() % points.length;
+        Vector2f target = points[current];
+        if (Math.abs(target.x - x) <= deadZone && Math.abs(target.y - y) <= deadZone) {
+            current = (current + 1) % points.length;
+            ai.setCurrentPatrolPoint(current);
+            target = points[current];
+        }
+        steer(movement, target.x - x, target.y - y, deadZone);
+    }
+
+    private void guard(AIComponent ai, MovementComponent movement, float x, float y, boolean inSight, float deadZone) {
+        if (inSight) {
+            approach(ai, movement, x, y, deadZone);
+            return;
+        }
+
+        // Return to the first patrol point, which serves as the guard post
+        Vector2f[] points = ai.getPatrolPoints();
+        if (points != null && points.length > 0) {
+            steer(movement, points[0].x - x, points[0].y - y, deadZone);
+        } else {
+            steer(movement, 0, 0, deadZone);
+        }
+    }
+
+    /**
+     * Move towards the nearest player until within attack radius, around obstacles if a flow field is set
+     */
+    private void approach(AIComponent ai, MovementComponent movement, float x, float y, float deadZone) {
+        float attack = ai.getAttackRadius();
+        if (nearestPlayerDistanceSquared <= attack * attack) {
+            steer(movement, 0, 0, deadZone);
+            return;
+        }
+
+        FlowField field = playerFields[nearestPlayer];
+        int direction = field != null ? field.getDirection(x, y) : FlowField.NONE;
+        if (direction != FlowField.NONE) {
+            steer(movement, FlowField.getDirectionX(direction), FlowField.getDirectionY(direction), 0);
+        } else {
+            // Same cell as the player, off the grid or no fields: head straight for it
+            steer(movement, nearestPlayerX - x, nearestPlayerY - y, deadZone);
+        }
+    }
+
+    private void wander(MovementComponent movement) {
+        // One in three actions is a pause; otherwise pick one of the eight directions
+        int choice = random.nextInt(12);
+        if (choice >= 8) {
+            steer(movement, 0, 0, 0);
+            return;
+        }
+        int dx = choice == 0 || choice == 4 || choice == 5 ? 1 : choice == 1 || choice == 6 || choice == 7 ? -1 : 0;
+        int dy = choice == 2 || choice == 4 || choice == 6 ? 1 : choice == 3 || choice == 5 || choice == 7 ? -1 : 0;
+        steer(movement, dx, dy, 0);
+    }
+
+    /**
+     * Set the movement flags towards a direction; axes within the dead zone are not moved along
+     */
+    private void steer(MovementComponent movement, float dx, float dy, float deadZone) {
+        movement.setMoveRight(dx > deadZone);
+        movement.setMoveLeft(dx < -deadZone);
+        movement.setMoveDown(dy > deadZone);
+        movement.setMoveUp(dy < -deadZone);
+
+        // Face along the dominant axis
+        if (movement.isMoving()) {
+            if (Math.abs(dx) > Math.abs(dy)) {
+                movement.setDirection(dx > 0 ? 2 : 3);
+            } else {
+                movement.setDirection(dy > 0 ? 0 : 1);
+            }
+        }
+    }
+
+    /**
+     * Get the number of frames between updates for an agent at a squared distance from the nearest player
+     */
+    private int getUpdateInterval(float distanceSquared) {
+        float fullRateSquared = fullRateDistance * fullRateDistance;
+        if (distanceSquared <= fullRateSquared) {
+            return 1;
+        }
+        // One extra frame per full-rate distance, capped
+        float distance = (float) Math.sqrt(distanceSquared);
+        return (int) Math.min(maxUpdateInterval, distance / fullRateDistance + 1);
+    }
+
+    private void findNearestPlayer(float x, float y) {
+        nearestPlayerDistanceSquared = Float.POSITIVE_INFINITY;
+        for (int i = 0; i < playerCount; i++) {
+            float px = playerPositions[i * 2];
+            float py = playerPositions[i * 2 + 1];
+            float dx = px - x;
+            float dy = py - y;
+            float distanceSquared = dx * dx + dy * dy;
+            if (distanceSquared < nearestPlayerDistanceSquared) {
+                nearestPlayer = i;
+                nearestPlayerDistanceSquared = distanceSquared;
+                nearestPlayerX = px;
+                nearestPlayerY = py;
+            }
+        }
+    }
+
+    private void collectPlayers() {
+        playerCount = 0;
+        for (Archetype archetype : getManager().getArchetypes()) {
+            if (!archetype.hasAll(playerMask)) {
+                continue;
+            }
+
+            int remaining = archetype.activeCount();
+            for (Archetype.Chunk chunk : archetype.getChunks()) {
+                if (remaining <= 0) {
+                    break;
+                }
+                int count = Math.min(chunk.size(), remaining);
+                remaining -= count;
+                Entity[] entities = chunk.getEntities();
+                for (int i = 0; i < count; i++) {
+                    PlayerComponent player = entities[i].getComponent(PlayerComponent.class);
+                    if (!player.isAlive()) {
+                        continue;
+                    }
+                    TransformComponent transform = entities[i].getComponent(TransformComponent.class);
+                    if (playerCount == playerFields.length) {
+                        playerPositions = Arrays.copyOf(playerPositions, playerFields.length * 4);
+                        playerFields = Arrays.copyOf(playerFields, playerFields.length * 2);
+                    }
+                    float px = transform.getX();
+                    float py = transform.getY();
+                    playerPositions[playerCount * 2] = px;
+                    playerPositions[playerCount * 2 + 1] = py;
+                    playerFields[playerCount] = flowFields != null ? flowFields.getField(entities[i].getId(), px, py) : null;
+                    playerCount++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Set the flow fields agents use to chase players around obstacles
+     * @param flowFields The service, or null to chase in a straight line
+     */
+    public void setFlowFields(FlowFieldService flowFields) {
+        this.flowFields = flowFields;
+    }
+
+    public FlowFieldService getFlowFields() {
+        return flowFields;
+    }
+
+    /**
+     * Set the wall time the system may spend per frame; agents left over are updated next frame
+     * @param budgetMillis Budget in milliseconds
+     */
+    public void setBudgetMillis(float budgetMillis) {
+        if (budgetMillis <= 0) {
+            throw new IllegalArgumentException("AI budget must be positive");
+        }
+        this.budgetNanos = (long) (budgetMillis * 1_000_000L);
+    }
+
+    public float getBudgetMillis() {
+        return budgetNanos / 1_000_000f;
+    }
+
+    /**
+     * Set the distance from the nearest player within which agents are updated every frame
+     */
+    public void setFullRateDistance(float fullRateDistance) {
+        if (fullRateDistance <= 0) {
+            throw new IllegalArgumentException("Full rate distance must be positive");
+        }
+        this.fullRateDistance = fullRateDistance;
+    }
+
+    public float getFullRateDistance() {
+        return fullRateDistance;
+    }
+
+    /**
+     * Set how many frames far agents (or all agents when there is no player) wait between updates
+     */
+    public void setMaxUpdateInterval(int maxUpdateInterval) {
+        if (maxUpdateInterval < 1) {
+            throw new IllegalArgumentException("Update interval must be at least 1");
+        }
+        this.maxUpdateInterval = maxUpdateInterval;
+        if (maxUpdateInterval >= wheel.length) {
+            // Agents waiting in the old wheel become due right away and are spread out again as they update
+            for (AgentQueue bucket : wheel) {
+                bucket.drainInto(dueAgents);
+            }
+            wheel = createWheel(maxUpdateInterval);
+        }
+    }
+
+    public int getMaxUpdateInterval() {
+        return maxUpdateInterval;
+    }
+
+    /**
+     * Schedules every AIComponent attached to a managed entity for the next frame, and drops detached ones
+     */
+    private final class AgentTracker implements ComponentObserver<AIComponent> {
+        @Override
+        public void componentAttached(Entity entity, AIComponent ai) {
+            schedule(entity, ai, 1);
+        }
+
+        @Override
+        public void componentDetached(Entity entity, AIComponent ai) {
+            // Its entries become stale and are dropped when they come up
+            ai.setScheduleTicket(0);
+        }
+    }
+
+    /**
+     * FIFO of agent entries: the entity, its AIComponent and the ticket the entry was made with
+     */
+    private static final class AgentQueue {
+        private Entity[] entities = new Entity[16];
+        private AIComponent[] agents = new AIComponent[16];
+        private long[] tickets = new long[16];
+        private int head = 0;
+        private int size = 0;
+
+        void add(Entity entity, AIComponent ai, long ticket) {
+            if (size == entities.length) {
+                grow();
+            }
+            int tail = (head + size) & (entities.length - 1);
+            entities[tail] = entity;
+            agents[tail] = ai;
+            tickets[tail] = ticket;
+            size++;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        Entity peekEntity() {
+            return entities[head];
+        }
+
+        AIComponent peekAgent() {
+            return agents[head];
+        }
+
+        long peekTicket() {
+            return tickets[head];
+        }
+
+        /**
+         * Drop the first entry
+         */
+        void remove() {
+            // Do not keep destroyed entities reachable
+            entities[head] = null;
+            agents[head] = null;
+            head = (head + 1) & (entities.length - 1);
+            size--;
+        }
+
+        /**
+         * Move the still valid entries to the end of another queue and empty this one
+         */
+        void drainInto(AgentQueue target) {
+            while (size > 0) {
+                if (agents[head].getScheduleTicket() == tickets[head]) {
+                    target.add(entities[head], agents[head], tickets[head]);
+                }
+                remove();
+            }
+            head = 0;
+        }
+
+        void clear() {
+            while (size > 0) {
+                remove();
+            }
+            head = 0;
+        }
+
+        private void grow() {
+            int capacity = entities.length * 2;
+            Entity[] newEntities = new Entity[capacity];
+            AIComponent[] newAgents = new AIComponent[capacity];
+            long[] newTickets = new long[capacity];
+            for (int i = 0; i < size; i++) {
+                int from = (head + i) & (entities.length - 1);
+                newEntities[i] = entities[from];
+                newAgents[i] = agents[from];
+                newTickets[i] = tickets[from];
+            }
+            entities = newEntities;
+            agents = newAgents;
+            tickets = newTickets;
+            head = 0;
+        }
+    }
+}
@@ -1,18 +1,19 @@
 package org.example.engine.ecs.systems;
 
 import org.example.engine.ecs.Entity;
-import org.example.engine.ecs.System;
+import org.example.engine.ecs.ParallelSystem;
 import org.example.engine.ecs.components.AnimationComponent;
 import org.example.engine.ecs.components.SpriteComponent;
 
 /**
  * System that handles animation updates
  */
-public class AnimationSystem extends System {
+public class AnimationSystem extends ParallelSystem {
 
     public AnimationSystem() {
         // High priority to update animations before rendering
         super(50, AnimationComponent.class, SpriteComponent.class);
+        writes(AnimationComponent.class);
     }
 
     @Override
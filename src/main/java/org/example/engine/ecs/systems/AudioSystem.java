@@ -25,6 +25,7 @@ public class AudioSystem extends System {
 
     public AudioSystem(AudioEngine audioEngine) {
         super(80, TransformComponent.class, AudioComponent.class);
+        reads(TransformComponent.class, AudioComponent.class);
         this.audioEngine = audioEngine;
     }
 
@@ -43,7 +44,7 @@ public class AudioSystem extends System {
         Vector3f position = transform.getPosition();
 
         // Generate a unique ID for this entity's sound
-        String instanceId = entity.getId().toString() + "_" + audio.getSoundId();
+        String instanceId = entity.getId() + "_" + audio.getSoundId();
 
         // Check if sound is already playing
         Integer sourceId = activeSounds.get(instanceId);
@@ -116,7 +117,7 @@ public class AudioSystem extends System {
         Vector3f position = transform.getPosition();
 
         // Generate a unique ID for this entity's sound
-        String instanceId = entity.getId().toString() + "_" + audio.getSoundId();
+        String instanceId = entity.getId() + "_" + audio.getSoundId();
 
         // Stop any existing playback
         Integer existingSource = activeSounds.get(instanceId);
@@ -148,7 +149,7 @@ public class AudioSystem extends System {
         }
 
         AudioComponent audio = entity.getComponent(AudioComponent.class);
-        String instanceId = entity.getId().toString() + "_" + audio.getSoundId();
+        String instanceId = entity.getId() + "_" + audio.getSoundId();
 
         Integer sourceId = activeSounds.get(instanceId);
         if (sourceId != null) {
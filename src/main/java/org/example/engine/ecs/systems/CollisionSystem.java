@@ -14,6 +14,7 @@ public class CollisionSystem extends System {
     public CollisionSystem() {
         // Run after movement but before rendering
         super(30, TransformComponent.class, CollisionComponent.class);
+        writes(TransformComponent.class);
     }
 
     @Override
@@ -80,14 +81,14 @@ public class CollisionSystem extends System {
         // Simple collision resolution: push entities apart
         // This is a very basic implementation
 
-        float aLeft = transformA.getPosition().x;
+        float aLeft = transformA.getX();
         float aRight = aLeft + collisionA.getWidth();
-        float aTop = transformA.getPosition().y;
+        float aTop = transformA.getY();
         float aBottom = aTop + collisionA.getHeight();
 
-        float bLeft = transformB.getPosition().x;
+        float bLeft = transformB.getX();
         float bRight = bLeft + collisionB.getWidth();
-        float bTop = transformB.getPosition().y;
+        float bTop = transformB.getY();
         float bBottom = bTop + collisionB.getHeight();
 
         // Calculate overlap distances
@@ -98,20 +99,20 @@ public class CollisionSystem extends System {
         if (overlapX < overlapY) {
             // Resolve horizontally
             if (aLeft < bLeft) {
-                transformA.getPosition().x -= overlapX / 2;
-                transformB.getPosition().x += overlapX / 2;
+                transformA.translate(-overlapX / 2, 0);
+                transformB.translate(overlapX / 2, 0);
             } else {
-                transformA.getPosition().x += overlapX / 2;
-                transformB.getPosition().x -= overlapX / 2;
+                transformA.translate(overlapX / 2, 0);
+                transformB.translate(-overlapX / 2, 0);
             }
         } else {
             // Resolve vertically
             if (aTop < bTop) {
-                transformA.getPosition().y -= overlapY / 2;
-                transformB.getPosition().y += overlapY / 2;
+                transformA.translate(0, -overlapY / 2);
+                transformB.translate(0, overlapY / 2);
             } else {
-                transformA.getPosition().y += overlapY / 2;
-                transformB.getPosition().y -= overlapY / 2;
+                transformA.translate(0, overlapY / 2);
+                transformB.translate(0, -overlapY / 2);
             }
         }
     }
@@ -1,6 +1,7 @@
 package org.example.engine.ecs.systems;
 
 import org.example.engine.Input;
+import org.example.engine.ecs.ComponentObserver;
 import org.example.engine.ecs.ECSManager;
 import org.example.engine.ecs.Entity;
 import org.example.engine.ecs.System;
@@ -8,6 +9,9 @@ import org.example.engine.ecs.components.*;
 import org.example.engine.utils.Logger;
 import org.joml.Vector3f;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import static org.lwjgl.glfw.GLFW.GLFW_KEY_E;
 
 /**
@@ -18,24 +22,56 @@ public class InteractionSystem extends System {
     private Entity playerEntity = null;
     private final ECSManager ecsManager;
     private float interactionDistance = 64.0f; // Default interaction distance
+    private final List<Entity> nearbyEntities = new ArrayList<>();
+    // Largest interaction radius in use, to know how far out the spatial query must reach
+    private final RadiusTracker radiusTracker = new RadiusTracker();
 
     public InteractionSystem(Input input) {
         // Run after input but before movement
         super(15, InteractableComponent.class, TransformComponent.class);
+        // No access is declared: interactions touch arbitrary components of the player
+        // and the target, so the scheduler runs this system alone
         this.input = input;
         this.ecsManager = ECSManager.getInstance();
     }
 
+    @Override
+    protected void onAdded(ECSManager manager) {
+        radiusTracker.reset();
+        manager.addObserver(InteractableComponent.class, radiusTracker);
+    }
+
+    @Override
+    protected void onRemoved(ECSManager manager) {
+        manager.removeObserver(InteractableComponent.class, radiusTracker);
+        radiusTracker.reset();
+    }
+
     @Override
     public void begin(float deltaTime) {
-        // Find the local player entity at the start of each frame
-        for (Entity entity : ecsManager.getAllEntities()) {
-            PlayerComponent playerComponent = entity.getComponent(PlayerComponent.class);
-            if (playerComponent != null && playerComponent.isLocalPlayer()) {
-                playerEntity = entity;
-                break;
+        // Look up the local player entity at the start of each frame
+        playerEntity = ecsManager.getLocalPlayerEntity();
+    }
+
+    @Override
+    public void update(float deltaTime) {
+        begin(deltaTime);
+
+        // Only interactables near the player can be in range, so ask the spatial index instead of visiting all of them
+        if (playerEntity != null && input.isKeyJustPressed(GLFW_KEY_E)) {
+            TransformComponent playerTransform = playerEntity.getComponent(TransformComponent.class);
+            if (playerTransform != null) {
+                nearbyEntities.clear();
+                ecsManager.queryRadius(playerTransform.getX(), playerTransform.getY(), getQueryRadius(),
+                        getRequiredMask(), nearbyEntities);
+                for (Entity entity : nearbyEntities) {
+                    processEntity(entity, deltaTime);
+                }
+                nearbyEntities.clear();
             }
         }
+
+        end(deltaTime);
     }
 
     @Override
@@ -201,8 +237,8 @@ public class InteractionSystem extends System {
             }
         }
 
-        // Remove the item entity from the world
-        ecsManager.removeEntity(entity.getId());
+        // Remove the item entity from the world once this system has finished
+        getCommandBuffer().destroy(entity);
     }
 
     private void toggleLever(Entity entity, String leverData) {
@@ -250,8 +286,75 @@ public class InteractionSystem extends System {
         showDialog(entity, "Interacting with: " + data);
     }
 
-    // Helper method to set the interaction distance
+    /**
+     * Get how far around the player interactables are looked up: the largest interaction radius in use,
+     * but at least the interaction distance
+     */
+    private float getQueryRadius() {
+        return Math.max(interactionDistance, radiusTracker.getMaxRadius());
+    }
+
+    // Helper method to set the minimum distance interactables are looked up at;
+    // each one is still only usable within its own interaction radius
     public void setInteractionDistance(float distance) {
         this.interactionDistance = distance;
     }
+
+    /**
+     * Keeps the largest interaction radius of the attached interactables and how many share it.
+     * It is only recounted over all entities once the last of them is detached or some radius changes.
+     */
+    private final class RadiusTracker implements ComponentObserver<InteractableComponent> {
+        private float maxRadius = 0;
+        private int maxCount = 0;
+        private boolean stale = false;
+
+        @Override
+        public void componentAttached(Entity entity, InteractableComponent interactable) {
+            count(interactable.getInteractionRadius());
+        }
+
+        @Override
+        public void componentDetached(Entity entity, InteractableComponent interactable) {
+            if (interactable.getInteractionRadius() == maxRadius && --maxCount <= 0) {
+                stale = true;
+            }
+        }
+
+        @Override
+        public void componentKeyChanged(Entity entity, InteractableComponent interactable) {
+            // The old radius is unknown, so recount on the next lookup
+            stale = true;
+        }
+
+        float getMaxRadius() {
+            if (stale) {
+                maxRadius = 0;
+                maxCount = 0;
+                stale = false;
+                for (Entity entity : getManager().getEntities()) {
+                    InteractableComponent interactable = entity.getComponent(InteractableComponent.class);
+                    if (interactable != null) {
+                        count(interactable.getInteractionRadius());
+                    }
+                }
+            }
+            return maxRadius;
+        }
+
+        void reset() {
+            maxRadius = 0;
+            maxCount = 0;
+            stale = false;
+        }
+
+        private void count(float radius) {
+            if (radius > maxRadius) {
+                maxRadius = radius;
+                maxCount = 1;
+            } else if (radius == maxRadius) {
+                maxCount++;
+            }
+        }
+    }
 }
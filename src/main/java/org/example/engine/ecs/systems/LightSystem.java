@@ -12,6 +12,9 @@ public class LightSystem extends System {
     public LightSystem() {
         // Medium priority
         super(60, TransformComponent.class, LightComponent.class);
+        reads(TransformComponent.class, LightComponent.class);
+        // Fills the global light list that sprites read while rendering
+        pinToMainThread();
     }
 
     @Override
@@ -1,17 +1,52 @@
 package org.example.engine.ecs.systems;
 
+import org.example.engine.ecs.Archetype;
 import org.example.engine.ecs.Entity;
-import org.example.engine.ecs.System;
+import org.example.engine.ecs.ParallelSystem;
+import org.example.engine.ecs.TransformStore;
 import org.example.engine.ecs.components.MovementComponent;
-import org.example.engine.ecs.components.TransformComponent;
-import org.joml.Vector3f; /**
+import org.example.engine.ecs.components.TransformComponent; /**
  * System that handles movement physics
  */
-public class MovementSystem extends System {
+public class MovementSystem extends ParallelSystem {
 
     public MovementSystem() {
         // Medium priority to process after input but before rendering
         super(20, TransformComponent.class, MovementComponent.class);
+        writes(TransformComponent.class);
+    }
+
+    @Override
+    protected void processChunk(Archetype.Chunk chunk, int count, float deltaTime, int worker) {
+        // Work directly on the slot-indexed arrays instead of the component objects
+        TransformStore store = getManager().getTransformStore();
+        float[] x = store.getX();
+        float[] y = store.getY();
+        float[] speed = store.getSpeed();
+        int[] flags = store.getFlags();
+        int[] changeTicks = store.getChangeTicks();
+        int[] indices = chunk.getIndices();
+        Entity[] entities = chunk.getEntities();
+        int tick = getManager().getChangeTick();
+
+        for (int i = 0; i < count; i++) {
+            int slot = indices[i];
+            int f = flags[slot];
+            // Rows of entities removed or deactivated earlier in this pass are masked out; their slot may be reused
+            int processable = isProcessable(entities[i]) ? 1 : 0;
+            int moving = ((f >>> 4) & 1) & processable;
+
+            // Branch-free: each direction flag contributes -1, 0 or +1 per axis, scaled by the moving mask
+            float moveAmount = speed[slot] * deltaTime * moving;
+            int dirX = ((f >>> 3) & 1) - ((f >>> 2) & 1);
+            int dirY = ((f >>> 1) & 1) - (f & 1);
+
+            x[slot] += dirX * moveAmount;
+            y[slot] += dirY * moveAmount;
+
+            // Ticks only grow, so max stamps moving rows with the current tick and leaves the others alone
+            changeTicks[slot] = Math.max(changeTicks[slot], tick * moving);
+        }
     }
 
     @Override
@@ -22,27 +57,24 @@ public class MovementSystem extends System {
         // Only process movement for moving entities
         if (movementComponent.isMoving()) {
             float moveAmount = movementComponent.getMoveSpeed() * deltaTime;
-            Vector3f position = transformComponent.getPosition();
+            float dx = 0;
+            float dy = 0;
 
             // Move based on direction flags
             if (movementComponent.isMoveUp()) {
-                position.y -= moveAmount;
+                dy -= moveAmount;
             }
             if (movementComponent.isMoveDown()) {
-                position.y += moveAmount;
+                dy += moveAmount;
             }
             if (movementComponent.isMoveLeft()) {
-                position.x -= moveAmount;
+                dx -= moveAmount;
             }
             if (movementComponent.isMoveRight()) {
-                position.x += moveAmount;
+                dx += moveAmount;
             }
 
-            // Optional: Handle collision if CollisionComponent is present
-            if (movementComponent.isCollisionEnabled()) {
-                // This would be handled by a separate collision system
-                // For now, we'll just update the position directly
-            }
+            transformComponent.translate(dx, dy);
         }
     }
 }
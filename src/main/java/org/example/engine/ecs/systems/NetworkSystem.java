@@ -15,6 +15,8 @@ public class NetworkSystem extends System {
     public NetworkSystem(com.esotericsoftware.kryonet.Client client) {
         // Medium-high priority
         super(40, NetworkComponent.class, TransformComponent.class);
+        reads(MovementComponent.class);
+        writes(NetworkComponent.class);
         this.client = client;
     }
 
@@ -23,19 +25,25 @@ public class NetworkSystem extends System {
         NetworkComponent networkComponent = entity.getComponent(NetworkComponent.class);
         TransformComponent transformComponent = entity.getComponent(TransformComponent.class);
 
+        MovementComponent movementComponent = entity.getComponent(MovementComponent.class);
+
         // Update sync timer
         networkComponent.updateSyncTimer(deltaTime);
 
-        // Check if we need to sync this entity
-        if ((networkComponent.needsSync() || networkComponent.shouldSync()) && client != null && client.isConnected()) {
+        // Only entities whose transform or movement changed since the last update sent are dirty
+        int lastSyncTick = networkComponent.getLastSyncTick();
+        boolean changed = transformComponent.isChangedSince(lastSyncTick)
+                || (movementComponent != null && movementComponent.isChangedSince(lastSyncTick));
+
+        // Check if we need to sync this entity; changes are sent at most once per sync interval
+        if ((networkComponent.needsSync() || (changed && networkComponent.shouldSync())) && client != null && client.isConnected()) {
             // Create a position update packet
             org.example.Packets.PlayerPositionUpdate update = new org.example.Packets.PlayerPositionUpdate();
             update.playerId = networkComponent.getNetworkId().toString();
-            update.x = transformComponent.getPosition().x;
-            update.y = transformComponent.getPosition().y;
+            update.x = transformComponent.getX();
+            update.y = transformComponent.getY();
 
             // Add direction if entity has movement component
-            MovementComponent movementComponent = entity.getComponent(MovementComponent.class);
             if (movementComponent != null) {
                 update.direction = movementComponent.getDirection();
                 update.isMoving = movementComponent.isMoving();
@@ -47,6 +55,7 @@ public class NetworkSystem extends System {
             // Reset sync flags and timer
             networkComponent.resetSyncTimer();
             networkComponent.clearSyncFlag();
+            networkComponent.setLastSyncTick(getManager().getChangeTick());
         }
     }
 }
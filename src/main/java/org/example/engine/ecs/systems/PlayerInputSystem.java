@@ -18,6 +18,7 @@ public class PlayerInputSystem extends System {
     public PlayerInputSystem(Input input) {
         // Highest priority (lowest number) to handle input before physics
         super(10, PlayerComponent.class, MovementComponent.class);
+        writes(MovementComponent.class, NetworkComponent.class);
         this.input = input;
     }
 
@@ -7,16 +7,22 @@ import org.example.engine.ecs.System;
 import org.example.engine.ecs.components.*;
 import org.example.engine.Sprite;
 import org.joml.Matrix4f;
+import org.joml.Vector2f;
 
 /**
  * System that handles rendering sprites
  */
 public class RenderSystem extends System {
     private final Matrix4f viewProjectionMatrix;
+    // Step start tick seen by the previous frame; entities that moved since were drawn interpolated and need a new push
+    private int renderedStepStartTick = 0;
 
     public RenderSystem(Matrix4f viewProjectionMatrix) {
         // Set a lower priority (higher number) to ensure physics, input, etc. run first
         super(100, TransformComponent.class, SpriteComponent.class);
+        reads(TransformComponent.class, SpriteComponent.class);
+        // Draws once per frame between the last two updates, on the thread owning the GL context
+        runInRenderPhase();
         this.viewProjectionMatrix = viewProjectionMatrix;
     }
 
@@ -27,22 +33,39 @@ public class RenderSystem extends System {
 
         Sprite sprite = spriteComponent.getSprite();
         if (sprite != null) {
+            // Only push properties that changed since the last frame, unless another entity used the sprite since
+            boolean ownerChanged = sprite.getRenderOwner() != spriteComponent;
+            sprite.setRenderOwner(spriteComponent);
+            boolean spriteChanged = ownerChanged || isChanged(spriteComponent);
+
             // Set sprite properties based on components
-            sprite.setPosition(transformComponent.getPosition().x, transformComponent.getPosition().y);
-            sprite.setZ(transformComponent.getPosition().z);
-            sprite.setRotation(transformComponent.getRotation());
-            sprite.setScale(transformComponent.getScale().x, transformComponent.getScale().y);
-            sprite.setColor(spriteComponent.getColor(), spriteComponent.getAlpha());
-
-            // Apply palette if set
-            if (spriteComponent.getPalette() != null) {
-                sprite.setPaletteFromCodes(spriteComponent.getPalette());
+            if (spriteChanged || transformComponent.isChangedSince(renderedStepStartTick)) {
+                float alpha = getManager().getInterpolationAlpha();
+                sprite.setPosition(transformComponent.getInterpolatedX(alpha), transformComponent.getInterpolatedY(alpha));
+                sprite.setZ(transformComponent.getZ());
+                sprite.setRotation(transformComponent.getRotation());
+                Vector2f scale = transformComponent.getScale();
+                sprite.setScale(scale.x, scale.y);
+            }
+
+            if (spriteChanged) {
+                sprite.setColor(spriteComponent.getColor(), spriteComponent.getAlpha());
+
+                // Apply palette if set
+                if (spriteComponent.getPalette() != null) {
+                    sprite.setPaletteFromCodes(spriteComponent.getPalette());
+                }
             }
 
             // Render the sprite
             sprite.render(viewProjectionMatrix);
         }
     }
+
+    @Override
+    public void end(float deltaTime) {
+        renderedStepStartTick = getManager().getStepStartTick();
+    }
 }
 
 
@@ -0,0 +1,181 @@
+package org.example.engine.navigation;
+
+import java.util.Arrays;
+
+/**
+ * Directions towards one target for every cell of a NavigationGrid.
+ * A breadth-first pass from the target fills the integration field (steps to the target),
+ * then each cell points at its cheapest neighbour, so agents sample their direction in O(1).
+ */
+public class FlowField {
+    /**
+     * Direction of cells that are blocked, unreachable, outside the grid or the target itself
+     */
+    public static final int NONE = -1;
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    // Eight directions: orthogonal first, then diagonal
+    private static final int[] DIRECTION_X = {1, -1, 0, 0, 1, 1, -1, -1};
+    private static final int[] DIRECTION_Y = {0, 0, 1, -1, 1, -1, 1, -1};
+
+    private final NavigationGrid grid;
+    private final int[] costs;
+    private final byte[] directions;
+    private final int[] queue;
+    private int targetCellX = Integer.MIN_VALUE;
+    private int targetCellY = Integer.MIN_VALUE;
+    private int gridVersion = -1;
+    private int computeCount = 0;
+
+    public FlowField(NavigationGrid grid) {
+        this.grid = grid;
+        int cells = grid.getWidth() * grid.getHeight();
+        this.costs = new int[cells];
+        this.directions = new byte[cells];
+        this.queue = new int[cells];
+    }
+
+    public NavigationGrid getGrid() {
+        return grid;
+    }
+
+    /**
+     * Point the field at a target position; recomputes only if the target entered another cell
+     * or the grid changed since the last computation
+     * @param targetX Target world x
+     * @param targetY Target world y
+     * @return True if the field was recomputed
+     */
+    public boolean update(float targetX, float targetY) {
+        int cellX = grid.cellX(targetX);
+        int cellY = grid.cellY(targetY);
+        if (cellX == targetCellX && cellY == targetCellY && gridVersion == grid.getVersion()) {
+            return false;
+        }
+        compute(cellX, cellY);
+        return true;
+    }
+
+    /**
+     * Recompute the whole field for a target cell
+     * @param cellX Target column
+     * @param cellY Target row
+     */
+    public void compute(int cellX, int cellY) {
+        targetCellX = cellX;
+        targetCellY = cellY;
+        gridVersion = grid.getVersion();
+        computeCount++;
+
+        Arrays.fill(costs, UNREACHABLE);
+        Arrays.fill(directions, (byte) NONE);
+        if (!grid.isWalkable(cellX, cellY)) {
+            return;
+        }
+
+        int width = grid.getWidth();
+        int height = grid.getHeight();
+        int head = 0;
+        int tail = 0;
+        int target = grid.index(cellX, cellY);
+        costs[target] = 0;
+        queue[tail++] = target;
+
+        // Integration field: steps over orthogonal neighbours
+        while (head < tail) {
+            int cell = queue[head++];
+            int x = cell % width;
+            int y = cell / width;
+            int next = costs[cell] + 1;
+            for (int d = 0; d < 4; d++) {
+                int nx = x + DIRECTION_X[d];
+                int ny = y + DIRECTION_Y[d];
+                if (nx < 0 || ny < 0 || nx >= width || ny >= height) {
+                    continue;
+                }
+                int neighbour = cell + DIRECTION_Y[d] * width + DIRECTION_X[d];
+                if (costs[neighbour] == UNREACHABLE && grid.isWalkable(neighbour)) {
+                    costs[neighbour] = next;
+                    queue[tail++] = neighbour;
+                }
+            }
+        }
+
+        // Direction field: cheapest neighbour, diagonals only when both adjacent cells are open
+        for (int i = 0; i < tail; i++) {
+            int cell = queue[i];
+            if (cell == target) {
+                continue;
+            }
+            int x = cell % width;
+            int y = cell / width;
+            int best = costs[cell];
+            int bestDirection = NONE;
+            for (int d = 0; d < 8; d++) {
+                int nx = x + DIRECTION_X[d];
+                int ny = y + DIRECTION_Y[d];
+                if (nx < 0 || ny < 0 || nx >= width || ny >= height) {
+                    continue;
+                }
+                if (d >= 4 && (!grid.isWalkable(nx, y) || !grid.isWalkable(x, ny))) {
+                    continue;
+                }
+                int cost = costs[ny * width + nx];
+                if (cost < best) {
+                    best = cost;
+                    bestDirection = d;
+                }
+            }
+            directions[cell] = (byte) bestDirection;
+        }
+    }
+
+    /**
+     * Get the direction to move from a world position
+     * @return Direction index for getDirectionX/Y, or NONE
+     */
+    public int getDirection(float x, float y) {
+        int cellX = grid.cellX(x);
+        int cellY = grid.cellY(y);
+        return grid.isInside(cellX, cellY) ? directions[grid.index(cellX, cellY)] : NONE;
+    }
+
+    /**
+     * Get the number of steps from a world position to the target
+     * @return Steps, or UNREACHABLE
+     */
+    public int getCost(float x, float y) {
+        int cellX = grid.cellX(x);
+        int cellY = grid.cellY(y);
+        return grid.isInside(cellX, cellY) ? costs[grid.index(cellX, cellY)] : UNREACHABLE;
+    }
+
+    /**
+     * Get the x step (-1, 0 or 1) of a direction
+     */
+    public static int getDirectionX(int direction) {
+        return direction == NONE ? 0 : DIRECTION_X[direction];
+    }
+
+    /**
+     * Get the y step (-1, 0 or 1) of a direction
+     */
+    public static int getDirectionY(int direction) {
+        return direction == NONE ? 0 : DIRECTION_Y[direction];
+    }
+
+    public int getTargetCellX() {
+        return targetCellX;
+    }
+
+    public int getTargetCellY() {
+        return targetCellY;
+    }
+
+    /**
+     * Get how many times the field was computed, for diagnostics
+     */
+    public int getComputeCount() {
+        return computeCount;
+    }
+}
@@ -0,0 +1,90 @@
+package org.example.engine.navigation;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Keeps one flow field per target (e.g. per player entity handle) over a shared grid.
+ * Agents chasing the same target all sample the same field, so the cost is one field
+ * per target instead of one path search per agent.
+ */
+public class FlowFieldService {
+    private NavigationGrid grid;
+    private final Map<Long, Entry> fields = new HashMap<>();
+
+    private static final class Entry {
+        final FlowField field;
+        // Whether the field was requested since the last pruneUnused
+        boolean used = true;
+
+        Entry(FlowField field) {
+            this.field = field;
+        }
+    }
+
+    public FlowFieldService(NavigationGrid grid) {
+        this.grid = grid;
+    }
+
+    public NavigationGrid getGrid() {
+        return grid;
+    }
+
+    /**
+     * Replace the grid; all fields are dropped and rebuilt on the next request
+     */
+    public void setGrid(NavigationGrid grid) {
+        this.grid = grid;
+        fields.clear();
+    }
+
+    /**
+     * Get the field towards a target, updated to its current position
+     * @param targetId Stable id of the target, e.g. its entity handle
+     * @param targetX Target world x
+     * @param targetY Target world y
+     * @return The field; recomputed only if the target changed cell or the grid changed
+     */
+    public FlowField getField(long targetId, float targetX, float targetY) {
+        Entry entry = fields.get(targetId);
+        if (entry == null) {
+            entry = new Entry(new FlowField(grid));
+            fields.put(targetId, entry);
+        }
+        entry.used = true;
+        entry.field.update(targetX, targetY);
+        return entry.field;
+    }
+
+    /**
+     * Drop the field of a target
+     * @param targetId The target id
+     */
+    public void removeField(long targetId) {
+        fields.remove(targetId);
+    }
+
+    /**
+     * Drop the fields that were not requested since the previous call, e.g. of targets that were destroyed
+     */
+    public void pruneUnused() {
+        Iterator<Entry> iterator = fields.values().iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (!entry.used) {
+                iterator.remove();
+            } else {
+                entry.used = false;
+            }
+        }
+    }
+
+    public int getFieldCount() {
+        return fields.size();
+    }
+
+    public void clear() {
+        fields.clear();
+    }
+}
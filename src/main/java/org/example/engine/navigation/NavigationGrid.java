@@ -0,0 +1,185 @@
+package org.example.engine.navigation;
+
+import org.example.engine.ecs.Archetype;
+import org.example.engine.ecs.ComponentMask;
+import org.example.engine.ecs.ECSManager;
+import org.example.engine.ecs.Entity;
+import org.example.engine.ecs.components.TileComponent;
+import org.example.engine.ecs.components.TransformComponent;
+
+/**
+ * Walkability of a uniform grid of cells, packed one bit per cell.
+ * Every change advances a version number so flow fields know when to recompute.
+ */
+public class NavigationGrid {
+    private final int width;
+    private final int height;
+    private final float cellSize;
+    private final float originX;
+    private final float originY;
+    private final long[] walkable;
+    private int version = 0;
+
+    /**
+     * Create a grid with every cell blocked
+     * @param width Number of columns
+     * @param height Number of rows
+     * @param cellSize Cell edge length in world units
+     * @param originX World x of the left edge of column 0
+     * @param originY World y of the top edge of row 0
+     */
+    public NavigationGrid(int width, int height, float cellSize, float originX, float originY) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Grid size must be positive");
+        }
+        if (cellSize <= 0) {
+            throw new IllegalArgumentException("Cell size must be positive");
+        }
+        this.width = width;
+        this.height = height;
+        this.cellSize = cellSize;
+        this.originX = originX;
+        this.originY = originY;
+        this.walkable = new long[(width * height + 63) >>> 6];
+    }
+
+    /**
+     * Build a grid from the tile entities of a manager.
+     * A cell is walkable if a walkable tile lies in it and no blocking tile does; cells without tiles are blocked.
+     * @param manager The manager holding the tile entities
+     * @param tileSize Tile edge length in world units
+     * @return The grid covering all tiles, or null if there are none
+     */
+    public static NavigationGrid fromTiles(ECSManager manager, float tileSize) {
+        ComponentMask tileMask = ComponentMask.of(TileComponent.class, TransformComponent.class);
+
+        // First pass: bounds of the tile positions
+        float minX = Float.POSITIVE_INFINITY;
+        float minY = Float.POSITIVE_INFINITY;
+        float maxX = Float.NEGATIVE_INFINITY;
+        float maxY = Float.NEGATIVE_INFINITY;
+        for (Archetype archetype : manager.getArchetypes()) {
+            if (!archetype.hasAll(tileMask)) {
+                continue;
+            }
+            for (Archetype.Chunk chunk : archetype.getChunks()) {
+                Entity[] entities = chunk.getEntities();
+                for (int i = 0; i < chunk.size(); i++) {
+                    TransformComponent transform = entities[i].getComponent(TransformComponent.class);
+                    minX = Math.min(minX, transform.getX());
+                    minY = Math.min(minY, transform.getY());
+                    maxX = Math.max(maxX, transform.getX());
+                    maxY = Math.max(maxY, transform.getY());
+                }
+            }
+        }
+        if (minX > maxX) {
+            return null;
+        }
+
+        int width = (int) Math.floor((maxX - minX) / tileSize) + 1;
+        int height = (int) Math.floor((maxY - minY) / tileSize) + 1;
+        NavigationGrid grid = new NavigationGrid(width, height, tileSize, minX, minY);
+
+        // Second pass: walkable tiles open their cell, then blocking tiles close theirs again
+        long[] blocked = new long[grid.walkable.length];
+        for (Archetype archetype : manager.getArchetypes()) {
+            if (!archetype.hasAll(tileMask)) {
+                continue;
+            }
+            for (Archetype.Chunk chunk : archetype.getChunks()) {
+                Entity[] entities = chunk.getEntities();
+                for (int i = 0; i < chunk.size(); i++) {
+                    TransformComponent transform = entities[i].getComponent(TransformComponent.class);
+                    int cell = grid.index(grid.cellX(transform.getX()), grid.cellY(transform.getY()));
+                    if (entities[i].getComponent(TileComponent.class).isWalkable()) {
+                        grid.walkable[cell >>> 6] |= 1L << cell;
+                    } else {
+                        blocked[cell >>> 6] |= 1L << cell;
+                    }
+                }
+            }
+        }
+        for (int i = 0; i < blocked.length; i++) {
+            grid.walkable[i] &= ~blocked[i];
+        }
+        return grid;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public float getCellSize() {
+        return cellSize;
+    }
+
+    public float getOriginX() {
+        return originX;
+    }
+
+    public float getOriginY() {
+        return originY;
+    }
+
+    /**
+     * Get the version number, advanced by every walkability change
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Get the column containing a world x coordinate; may lie outside the grid
+     */
+    public int cellX(float x) {
+        return (int) Math.floor((x - originX) / cellSize);
+    }
+
+    /**
+     * Get the row containing a world y coordinate; may lie outside the grid
+     */
+    public int cellY(float y) {
+        return (int) Math.floor((y - originY) / cellSize);
+    }
+
+    public boolean isInside(int cellX, int cellY) {
+        return cellX >= 0 && cellY >= 0 && cellX < width && cellY < height;
+    }
+
+    /**
+     * Check if a cell can be walked on; cells outside the grid are blocked
+     */
+    public boolean isWalkable(int cellX, int cellY) {
+        return isInside(cellX, cellY) && isWalkable(index(cellX, cellY));
+    }
+
+    /**
+     * Open or block a cell
+     * @param cellX Column
+     * @param cellY Row
+     * @param value True to make the cell walkable
+     */
+    public void setWalkable(int cellX, int cellY, boolean value) {
+        if (!isInside(cellX, cellY)) {
+            throw new IllegalArgumentException("Cell outside of the grid: " + cellX + ", " + cellY);
+        }
+        int cell = index(cellX, cellY);
+        if (isWalkable(cell) != value) {
+            walkable[cell >>> 6] ^= 1L << cell;
+            version++;
+        }
+    }
+
+    int index(int cellX, int cellY) {
+        return cellY * width + cellX;
+    }
+
+    boolean isWalkable(int cell) {
+        return (walkable[cell >>> 6] & (1L << cell)) != 0;
+    }
+}
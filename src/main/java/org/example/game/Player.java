@@ -16,7 +16,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.lwjgl.glfw.GLFW.*;
 
-public class Player extends GameObject {
+public class Player extends GameObject implements Interpolated {
 
     private final UUID playerId;
     private String username;
@@ -44,6 +44,8 @@ public class Player extends GameObject {
     private boolean isAlive = true;
 
     private Vector3f position = new Vector3f(100, 200, 0);
+    // Position at the start of the current tick, for render interpolation
+    private final Vector3f previousPosition = new Vector3f(position);
     private float moveSpeed = 120.0f; // Faster movement speed
     private boolean isMoving = false;
     private Direction currentDirection = Direction.DOWN;
@@ -82,6 +84,7 @@ public class Player extends GameObject {
         this.position.z = z;
         this.position.x = x;
         this.position.y = y;
+        this.previousPosition.set(position);
 
         // Create unique sprite names for this player
         String playerIdShort = playerId.toString().substring(0, 8);
@@ -785,6 +788,19 @@ public class Player extends GameObject {
         }
     }
 
+    @Override
+    public void savePreviousState() {
+        previousPosition.set(position);
+    }
+
+    @Override
+    public void interpolate(float alpha) {
+        character.setPosition(
+                previousPosition.x + (position.x - previousPosition.x) * alpha,
+                previousPosition.y + (position.y - previousPosition.y) * alpha,
+                position.z);
+    }
+
     @Override
     public void render(Matrix4f viewProjectionMatrix) {
         //if (debug) System.out.println("Rendering player " + username + " at " + position.x + ", " + position.y + " (visible: " + (isAlive || !isLocalPlayer) + ")");
@@ -854,6 +870,8 @@ public class Player extends GameObject {
         position.x = x;
         position.y = y;
         position.z = z;
+        // Teleport: don't blend from the old position
+        previousPosition.set(position);
         character.setPosition(x, y, z);
 
         // Send position update if this is the local player
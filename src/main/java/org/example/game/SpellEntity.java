@@ -14,13 +14,15 @@ import java.util.Map;
 /**
  * Entity representing a cast spell in the game world
  */
-public class SpellEntity extends GameObject implements ZOrderProvider {
+public class SpellEntity extends GameObject implements ZOrderProvider, Interpolated {
     // Spell components
     private AbstractSpell spell;
     private SpriteManager spriteManager;
 
     // Position and state
     private Vector3f position = new Vector3f();
+    // Position at the start of the current tick, for render interpolation
+    private final Vector3f previousPosition = new Vector3f();
     private float lifeTime = 0f;
     private float maxLifeTime = 3.0f;
     private boolean active = true;
@@ -87,6 +89,7 @@ public class SpellEntity extends GameObject implements ZOrderProvider {
         this.position.x = x;
         this.position.y = y;
         this.position.z = 10.0f; // High Z value to ensure visibility
+        this.previousPosition.set(position);
 
         System.out.println("Creating " + spellType.getTypeName() + " spell at " + x + "," + y);
 
@@ -529,6 +532,25 @@ public class SpellEntity extends GameObject implements ZOrderProvider {
         }
     }
 
+    @Override
+    public void savePreviousState() {
+        previousPosition.set(position);
+    }
+
+    @Override
+    public void interpolate(float alpha) {
+        if (!active || !hasMovement) return;
+
+        float x = previousPosition.x + (position.x - previousPosition.x) * alpha;
+        float y = previousPosition.y + (position.y - previousPosition.y) * alpha;
+        if (currentSprite != null) {
+            currentSprite.setPosition(x, y);
+        }
+        for (Sprite effect : effectSprites) {
+            effect.setPosition(x, y);
+        }
+    }
+
     @Override
     public void render(Matrix4f viewProj) {
         if (!active) return;
@@ -592,6 +614,7 @@ public class SpellEntity extends GameObject implements ZOrderProvider {
     public void setPosition(float x, float y) {
         position.x = x;
         position.y = y;
+        previousPosition.set(position);
 
         // Update current sprite position if it exists
         if (currentSprite != null) {
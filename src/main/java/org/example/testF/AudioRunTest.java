@@ -21,7 +21,6 @@ import org.joml.Vector3f;
 
 import java.io.IOException;
 import java.util.Scanner;
-import java.util.UUID;
 
 import static org.lwjgl.glfw.GLFW.*;
 
@@ -32,9 +31,9 @@ public class AudioRunTest {
     private static int musicSourceId = -1;
 
     // Audio-enabled entity IDs for tracking
-    private static UUID lampPostEntityId;
-    private static UUID chestEntityId;
-    private static UUID enemyEntityId;
+    private static long lampPostEntityId;
+    private static long chestEntityId;
+    private static long enemyEntityId;
 
     public static void main(String[] args) {
         Scanner scanner = new Scanner(System.in);
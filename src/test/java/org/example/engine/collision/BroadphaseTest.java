@@ -0,0 +1,243 @@
+package org.example.engine.collision;
+
+import org.junit.jupiter.api.Named;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks every broadphase against a brute-force all-pairs oracle on randomly moving boxes
+ */
+class BroadphaseTest {
+    private static final int PROXIES = 300;
+    private static final int LAYERS = 4;
+    private static final int FRAMES = 40;
+    private static final float WORLD_SIZE = 400;
+
+    static Stream<Named<Supplier<Broadphase>>> broadphases() {
+        return Stream.of(
+                Named.of("dynamic tree", DynamicTreeBroadphase::new),
+                Named.of("spatial hash", () -> new SpatialHashBroadphase(32)),
+                Named.of("sweep and prune", SweepAndPruneBroadphase::new));
+    }
+
+    @ParameterizedTest
+    @MethodSource("broadphases")
+    void pairsOfStaticProxiesAreNeverReported(Supplier<Broadphase> factory) {
+        Broadphase broadphase = factory.get();
+        broadphase.add(0, 0, 0, 10, 10, true);
+        broadphase.add(1, 5, 5, 15, 15, true);
+        broadphase.add(2, 8, 8, 20, 20, false);
+
+        assertEquals(Set.of(pair(0, 2), pair(1, 2)), findPairs(broadphase));
+    }
+
+    @ParameterizedTest
+    @MethodSource("broadphases")
+    void filteredPairsAreNotReported(Supplier<Broadphase> factory) {
+        Broadphase broadphase = factory.get();
+        broadphase.add(0, 0, 0, 10, 10, false);
+        broadphase.add(1, 0, 0, 10, 10, false);
+        broadphase.add(2, 0, 0, 10, 10, false);
+        // 0 and 1 share a layer that collides with itself only; 2 collides with nothing
+        broadphase.setFilter(0, 1, 1);
+        broadphase.setFilter(1, 1, 1);
+        broadphase.setFilter(2, 2, 0);
+
+        assertEquals(Set.of(pair(0, 1)), findPairs(broadphase));
+        // Queries are not filtered
+        assertEquals(Set.of(0, 1, 2), query(broadphase, 5, 5, 6, 6));
+    }
+
+    @ParameterizedTest
+    @MethodSource("broadphases")
+    void touchingBoundsOverlap(Supplier<Broadphase> factory) {
+        Broadphase broadphase = factory.get();
+        broadphase.add(0, 0, 0, 10, 10, false);
+        broadphase.add(1, 10, 10, 20, 20, false);
+        broadphase.add(2, 20.5f, 0, 30, 10, false);
+
+        assertEquals(Set.of(pair(0, 1)), findPairs(broadphase));
+        assertEquals(Set.of(1, 2), query(broadphase, 20, 5, 25, 10));
+    }
+
+    @ParameterizedTest
+    @MethodSource("broadphases")
+    void clearStopsTrackingEveryProxy(Supplier<Broadphase> factory) {
+        Broadphase broadphase = factory.get();
+        broadphase.add(0, 0, 0, 10, 10, false);
+        broadphase.add(1, 5, 5, 15, 15, false);
+        broadphase.clear();
+
+        assertTrue(findPairs(broadphase).isEmpty());
+        assertTrue(query(broadphase, 0, 0, 20, 20).isEmpty());
+
+        // Ids can be tracked again afterwards
+        broadphase.add(1, 0, 0, 10, 10, false);
+        broadphase.add(0, 5, 5, 15, 15, false);
+        assertEquals(Set.of(pair(0, 1)), findPairs(broadphase));
+    }
+
+    @ParameterizedTest
+    @MethodSource("broadphases")
+    void matchesOracleOnMovingBoxes(Supplier<Broadphase> factory) {
+        Random random = new Random(12345);
+        Broadphase broadphase = factory.get();
+        Oracle oracle = new Oracle();
+
+        boolean[][] collides = new boolean[LAYERS][LAYERS];
+        for (int a = 0; a < LAYERS; a++) {
+            for (int b = a; b < LAYERS; b++) {
+                collides[a][b] = collides[b][a] = random.nextInt(4) != 0;
+            }
+        }
+
+        for (int proxy = 0; proxy < PROXIES; proxy++) {
+            addRandom(random, broadphase, oracle, proxy, random.nextInt(5) == 0);
+            setRandomFilter(random, broadphase, oracle, proxy, collides);
+        }
+
+        for (int frame = 0; frame < FRAMES; frame++) {
+            for (int proxy = 0; proxy < PROXIES; proxy++) {
+                if (!oracle.tracked[proxy]) {
+                    addRandom(random, broadphase, oracle, proxy, random.nextInt(5) == 0);
+                    setRandomFilter(random, broadphase, oracle, proxy, collides);
+                } else if (random.nextInt(50) == 0) {
+                    // Removed ids are reused by a later frame
+                    broadphase.remove(proxy);
+                    oracle.tracked[proxy] = false;
+                } else if (!oracle.isStatic[proxy] && random.nextInt(2) == 0) {
+                    float dx = random.nextInt(21) - 10;
+                    float dy = random.nextInt(21) - 10;
+                    oracle.set(proxy, oracle.minX[proxy] + dx, oracle.minY[proxy] + dy,
+                            oracle.maxX[proxy] + dx, oracle.maxY[proxy] + dy);
+                    broadphase.update(proxy, oracle.minX[proxy], oracle.minY[proxy], oracle.maxX[proxy], oracle.maxY[proxy]);
+                } else if (random.nextInt(20) == 0) {
+                    setRandomFilter(random, broadphase, oracle, proxy, collides);
+                }
+            }
+
+            assertEquals(oracle.findPairs(), findPairs(broadphase), "pairs in frame " + frame);
+
+            for (int q = 0; q < 20; q++) {
+                float minX = random.nextInt((int) WORLD_SIZE) - 20;
+                float minY = random.nextInt((int) WORLD_SIZE) - 20;
+                float maxX = minX + random.nextInt(80);
+                float maxY = minY + random.nextInt(80);
+                assertEquals(oracle.query(minX, minY, maxX, maxY), query(broadphase, minX, minY, maxX, maxY),
+                        "query in frame " + frame);
+            }
+        }
+    }
+
+    private static void addRandom(Random random, Broadphase broadphase, Oracle oracle, int proxy, boolean isStatic) {
+        float minX = random.nextInt((int) WORLD_SIZE);
+        float minY = random.nextInt((int) WORLD_SIZE);
+        // A few boxes are much larger than the rest, as big level colliders are
+        int size = random.nextInt(40) == 0 ? 200 : 40;
+        float maxX = minX + 1 + random.nextInt(size);
+        float maxY = minY + 1 + random.nextInt(size);
+        broadphase.add(proxy, minX, minY, maxX, maxY, isStatic);
+        oracle.tracked[proxy] = true;
+        oracle.isStatic[proxy] = isStatic;
+        oracle.category[proxy] = -1L;
+        oracle.mask[proxy] = -1L;
+        oracle.set(proxy, minX, minY, maxX, maxY);
+    }
+
+    private static void setRandomFilter(Random random, Broadphase broadphase, Oracle oracle, int proxy,
+                                        boolean[][] collides) {
+        int layer = random.nextInt(LAYERS);
+        long mask = 0;
+        for (int other = 0; other < LAYERS; other++) {
+            if (collides[layer][other]) {
+                mask |= 1L << other;
+            }
+        }
+        broadphase.setFilter(proxy, 1L << layer, mask);
+        oracle.category[proxy] = 1L << layer;
+        oracle.mask[proxy] = mask;
+    }
+
+    private static Set<Long> findPairs(Broadphase broadphase) {
+        PairBuffer buffer = new PairBuffer();
+        broadphase.findPairs(buffer);
+        Set<Long> pairs = new HashSet<>();
+        for (int i = 0; i < buffer.size(); i++) {
+            assertTrue(pairs.add(pair(buffer.getA(i), buffer.getB(i))),
+                    "pair reported twice: " + buffer.getA(i) + ", " + buffer.getB(i));
+        }
+        return pairs;
+    }
+
+    private static Set<Integer> query(Broadphase broadphase, float minX, float minY, float maxX, float maxY) {
+        List<Integer> reported = new ArrayList<>();
+        broadphase.query(minX, minY, maxX, maxY, proxy -> reported.add(proxy));
+        Set<Integer> proxies = new HashSet<>(reported);
+        assertEquals(reported.size(), proxies.size(), "proxy reported twice");
+        return proxies;
+    }
+
+    private static long pair(int a, int b) {
+        return ((long) Math.min(a, b) << 32) | Math.max(a, b);
+    }
+
+    /**
+     * Brute-force reference that checks every pair
+     */
+    private static final class Oracle {
+        final boolean[] tracked = new boolean[PROXIES];
+        final boolean[] isStatic = new boolean[PROXIES];
+        final long[] category = new long[PROXIES];
+        final long[] mask = new long[PROXIES];
+        final float[] minX = new float[PROXIES];
+        final float[] minY = new float[PROXIES];
+        final float[] maxX = new float[PROXIES];
+        final float[] maxY = new float[PROXIES];
+
+        void set(int proxy, float minX, float minY, float maxX, float maxY) {
+            this.minX[proxy] = minX;
+            this.minY[proxy] = minY;
+            this.maxX[proxy] = maxX;
+            this.maxY[proxy] = maxY;
+        }
+
+        Set<Long> findPairs() {
+            Set<Long> pairs = new HashSet<>();
+            for (int a = 0; a < PROXIES; a++) {
+                for (int b = a + 1; b < PROXIES; b++) {
+                    if (tracked[a] && tracked[b] && !(isStatic[a] && isStatic[b])
+                            && (category[a] & mask[b]) != 0 && overlaps(a, minX[b], minY[b], maxX[b], maxY[b])) {
+                        pairs.add(pair(a, b));
+                    }
+                }
+            }
+            return pairs;
+        }
+
+        Set<Integer> query(float minX, float minY, float maxX, float maxY) {
+            Set<Integer> proxies = new HashSet<>();
+            for (int proxy = 0; proxy < PROXIES; proxy++) {
+                if (tracked[proxy] && overlaps(proxy, minX, minY, maxX, maxY)) {
+                    proxies.add(proxy);
+                }
+            }
+            return proxies;
+        }
+
+        private boolean overlaps(int proxy, float minX, float minY, float maxX, float maxY) {
+            return this.minX[proxy] <= maxX && this.maxX[proxy] >= minX
+                    && this.minY[proxy] <= maxY && this.maxY[proxy] >= minY;
+        }
+    }
+}
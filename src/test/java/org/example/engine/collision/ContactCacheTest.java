@@ -0,0 +1,218 @@
+package org.example.engine.collision;
+
+import org.example.engine.GameObject;
+import org.example.engine.Scene;
+import org.joml.Matrix4f;
+import org.joml.Vector3f;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the contact cache and the begin, stay and end events the collision system derives by
+ * merging one frame's contacts with the last
+ */
+class ContactCacheTest {
+    private CollisionSystem collisionSystem;
+    private final List<String> events = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        collisionSystem = new CollisionSystem(new Scene());
+        // Keep the objects where the tests put them
+        collisionSystem.setResponseStrength(0);
+    }
+
+    @Test
+    void seekFindsFirstContactAtOrAfterKey() {
+        ContactCache cache = new ContactCache();
+        Collider a = new BoxCollider(1, 1);
+        Collider b = new BoxCollider(1, 1);
+        cache.add(ContactCache.key(0, 1), null, null, a, b, false, false);
+        cache.add(ContactCache.key(0, 3), null, null, a, b, false, false);
+        cache.add(ContactCache.key(2, 3), null, null, a, b, true, false);
+
+        assertEquals(0, cache.seek(0, ContactCache.key(0, 1)));
+        assertEquals(1, cache.seek(0, ContactCache.key(0, 2)));
+        assertEquals(2, cache.seek(1, ContactCache.key(1, 0)));
+        assertEquals(3, cache.seek(2, ContactCache.key(5, 6)));
+        assertTrue(cache.isTrigger(2));
+    }
+
+    @Test
+    void matchesOnlySameCollidersAndTriggerFlags() {
+        ContactCache cache = new ContactCache();
+        Collider a = new BoxCollider(1, 1);
+        Collider b = new BoxCollider(1, 1);
+        long key = ContactCache.key(0, 1);
+        cache.add(key, null, null, a, b, false, true);
+
+        assertTrue(cache.matches(0, key, a, b, false, true));
+        assertFalse(cache.matches(0, ContactCache.key(0, 2), a, b, false, true));
+        // Proxy id reused by another collider
+        assertFalse(cache.matches(0, key, a, new BoxCollider(1, 1), false, true));
+        // Switched between trigger and solid
+        assertFalse(cache.matches(0, key, a, b, false, false));
+        assertFalse(cache.matches(1, key, a, b, false, true));
+    }
+
+    @Test
+    void clearDropsObjectsAndColliders() {
+        ContactCache cache = new ContactCache();
+        Collider a = new BoxCollider(1, 1);
+        cache.add(ContactCache.key(0, 1), new Body("A", 0, 0), new Body("B", 0, 0), a, a, false, false);
+        cache.clear();
+
+        assertEquals(0, cache.size());
+        assertNull(cache.getObjectA(0));
+        assertNull(cache.getColliderB(0));
+    }
+
+    @Test
+    void contactBeginsStaysAndEnds() {
+        Body a = register(new Body("A", 0, 0), false);
+        Body b = register(new Body("B", 5, 0), false);
+
+        assertEvents("A enter B", "B enter A");
+        assertEvents("A stay B", "B stay A");
+        b.position.set(50, 0, 0);
+        assertEvents("A exit B", "B exit A");
+        assertEvents();
+        a.position.set(45, 0, 0);
+        assertEvents("A enter B", "B enter A");
+    }
+
+    @Test
+    void triggerContactBeginsStaysAndEnds() {
+        register(new Body("A", 0, 0), true);
+        Body b = register(new Body("B", 5, 0), false);
+
+        assertEvents("A trigger enter B");
+        assertEvents("A trigger stay B");
+        b.position.set(50, 0, 0);
+        assertEvents("A trigger exit B");
+    }
+
+    @Test
+    void switchingToSolidEndsTriggerContact() {
+        Body a = new Body("A", 0, 0);
+        BoxCollider trigger = new BoxCollider(10, 10);
+        trigger.setTrigger(true);
+        collisionSystem.registerCollider(a, trigger);
+        register(new Body("B", 5, 0), false);
+
+        assertEvents("A trigger enter B");
+        trigger.setTrigger(false);
+        assertEvents("A trigger exit B", "A enter B", "B enter A");
+        assertEvents("A stay B", "B stay A");
+    }
+
+    @Test
+    void unregisteringEndsContacts() {
+        register(new Body("A", 0, 0), false);
+        Body b = register(new Body("B", 5, 0), false);
+
+        assertEvents("A enter B", "B enter A");
+        collisionSystem.unregisterCollider(b);
+        assertEvents("A exit B", "B exit A");
+    }
+
+    @Test
+    void proxyIdReusedMidFrameStartsNewContact() {
+        Body a = register(new Body("A", 0, 0), false);
+        register(new Body("B", 2, 0), false);
+        Body c = register(new Body("C", 4, 0), false);
+        Body d = new Body("D", 4, 0);
+        assertEvents("A enter B", "B enter A", "A enter C", "C enter A", "B enter C", "C enter B");
+
+        // C's proxy id is handed to D while the frame's contacts are being dispatched
+        a.onStay = () -> {
+            a.onStay = null;
+            collisionSystem.unregisterCollider(c);
+            collisionSystem.registerCollider(d, new BoxCollider(10, 10));
+        };
+        assertEvents("A stay B", "B stay A", "A exit C", "C exit A", "B exit C", "C exit B");
+        // D's contacts begin rather than continuing C's
+        assertEvents("A stay B", "B stay A", "A enter D", "D enter A", "B enter D", "D enter B");
+    }
+
+    private Body register(Body body, boolean isTrigger) {
+        BoxCollider collider = new BoxCollider(10, 10);
+        collider.setTrigger(isTrigger);
+        collisionSystem.registerCollider(body, collider);
+        return body;
+    }
+
+    private void assertEvents(String... expected) {
+        collisionSystem.update(0.016f);
+        assertEquals(List.of(expected), events);
+        events.clear();
+    }
+
+    public class Body extends GameObject implements Collidable {
+        private final String name;
+        private final Vector3f position;
+        Runnable onStay;
+
+        Body(String name, float x, float y) {
+            this.name = name;
+            this.position = new Vector3f(x, y, 0);
+        }
+
+        public Vector3f getPosition() {
+            return position;
+        }
+
+        @Override
+        public void update(float deltaTime) {
+        }
+
+        @Override
+        public void render(Matrix4f viewProjectionMatrix) {
+        }
+
+        @Override
+        public void onCollision(GameObject other, CollisionResult result) {
+            log("enter", other);
+        }
+
+        @Override
+        public void onCollisionStay(GameObject other, CollisionResult result) {
+            log("stay", other);
+            if (onStay != null) {
+                onStay.run();
+            }
+        }
+
+        @Override
+        public void onCollisionExit(GameObject other) {
+            log("exit", other);
+        }
+
+        @Override
+        public void onTriggerEnter(GameObject other, CollisionResult result) {
+            log("trigger enter", other);
+        }
+
+        @Override
+        public void onTriggerStay(GameObject other, CollisionResult result) {
+            log("trigger stay", other);
+        }
+
+        @Override
+        public void onTriggerExit(GameObject other) {
+            log("trigger exit", other);
+        }
+
+        private void log(String event, GameObject other) {
+            events.add(name + " " + event + " " + ((Body) other).name);
+        }
+    }
+}
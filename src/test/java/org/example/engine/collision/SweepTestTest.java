@@ -0,0 +1,98 @@
+package org.example.engine.collision;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SweepTestTest {
+    private static final float EPSILON = 1e-5f;
+
+    private final SweepTest sweep = new SweepTest();
+
+    @Test
+    void boxHitsBoxInItsPath() {
+        // The moving box's right side reaches the other box after 5 of its 20 units
+        assertTrue(sweep.boxBox(0, 0, 10, 10, 20, 0, 15, 0, 25, 10));
+        assertEquals(0.25f, sweep.time, EPSILON);
+        assertNormal(1, 0);
+    }
+
+    @Test
+    void boxHitsBoxFromBelow() {
+        assertTrue(sweep.boxBox(0, 30, 10, 10, 0, -40, 0, 0, 10, 10));
+        assertEquals(0.5f, sweep.time, EPSILON);
+        assertNormal(0, -1);
+    }
+
+    @Test
+    void boxMissesBoxOutOfItsPath() {
+        assertFalse(sweep.boxBox(0, 0, 10, 10, 20, 0, 15, 20, 25, 30));
+        // Stops short of it
+        assertFalse(sweep.boxBox(0, 0, 10, 10, 4, 0, 15, 0, 25, 10));
+        // Moves away from it
+        assertFalse(sweep.boxBox(0, 0, 10, 10, -20, 0, 15, 0, 25, 10));
+    }
+
+    @Test
+    void boxStartingInsideBoxIsNoHit() {
+        assertFalse(sweep.boxBox(0, 0, 10, 10, 20, 0, 5, 5, 15, 15));
+    }
+
+    @Test
+    void circleHitsCircleInItsPath() {
+        assertTrue(sweep.circleCircle(0, 0, 1, 10, 0, 5, 0, 1));
+        assertEquals(0.3f, sweep.time, EPSILON);
+        assertNormal(1, 0);
+    }
+
+    @Test
+    void circleMissesCircle() {
+        // Passes by
+        assertFalse(sweep.circleCircle(0, 0, 1, 10, 0, 5, 3, 1));
+        // Stops short
+        assertFalse(sweep.circleCircle(0, 0, 1, 2, 0, 5, 0, 1));
+        // Moves away
+        assertFalse(sweep.circleCircle(0, 0, 1, -10, 0, 5, 0, 1));
+    }
+
+    @Test
+    void circleStartingInsideCircleIsNoHit() {
+        assertFalse(sweep.circleCircle(0, 0, 1, 10, 0, 1, 0, 1));
+    }
+
+    @Test
+    void circleHitsBoxSide() {
+        assertTrue(sweep.circleBox(-5, 5, 1, 10, 0, 0, 0, 10, 10));
+        assertEquals(0.4f, sweep.time, EPSILON);
+        assertNormal(1, 0);
+    }
+
+    @Test
+    void circleHitsBoxCorner() {
+        assertTrue(sweep.circleBox(-5, -5, 1, 10, 10, 0, 0, 10, 10));
+        float expected = 0.5f - 1 / (float) Math.sqrt(200);
+        assertEquals(expected, sweep.time, EPSILON);
+        float diagonal = (float) Math.sqrt(0.5);
+        assertNormal(diagonal, diagonal);
+    }
+
+    @Test
+    void circleMissesRoundedBoxCorner() {
+        // Reaches the corner of the box grown by the radius, but not the circle around the box's corner
+        assertFalse(sweep.circleBox(-3, -3, 1, 2.5f, 2, 0, 0, 10, 10));
+    }
+
+    @Test
+    void circleStartingInsideBoxIsNoHit() {
+        assertFalse(sweep.circleBox(5, 5, 1, 10, 0, 0, 0, 10, 10));
+        // Overlapping the side counts as inside too
+        assertFalse(sweep.circleBox(-0.5f, 5, 1, 10, 0, 0, 0, 10, 10));
+    }
+
+    private void assertNormal(float x, float y) {
+        assertEquals(x, sweep.normalX, EPSILON, "normal x");
+        assertEquals(y, sweep.normalY, EPSILON, "normal y");
+    }
+}